@@ -0,0 +1,83 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatchCoordBenchmark {
+
+    private static final int SIDE = 256;
+
+    private PatchCoord[] coords;
+    private String[] keys;
+    private long[] packed;
+    private Set<PatchCoord> coordSet;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        coords = new PatchCoord[SIDE * SIDE];
+        keys = new String[coords.length];
+        packed = new long[coords.length];
+        coordSet = new HashSet<>();
+        int index = 0;
+        for (int x = -SIDE / 2; x < SIDE / 2; x++) {
+            for (int z = -SIDE / 2; z < SIDE / 2; z++) {
+                PatchCoord coord = new PatchCoord(x, z);
+                coords[index] = coord;
+                keys[index] = coord.asKey();
+                packed[index] = coord.packed();
+                if ((index & 1) == 0) {
+                    coordSet.add(coord);
+                }
+                index++;
+            }
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (coords.length - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public String asKey() {
+        return coords[next()].asKey();
+    }
+
+    @Benchmark
+    public PatchCoord fromKey() {
+        return PatchCoord.fromKey(keys[next()]);
+    }
+
+    @Benchmark
+    public long packed() {
+        return coords[next()].packed();
+    }
+
+    @Benchmark
+    public PatchCoord fromPacked() {
+        return PatchCoord.fromPacked(packed[next()]);
+    }
+
+    @Benchmark
+    public PatchCoord fromBlock() {
+        PatchCoord coord = coords[next()];
+        return PatchCoord.fromBlock(coord.patchX() * 24 + 7, coord.patchZ() * 24 + 11, 24, 24);
+    }
+
+    @Benchmark
+    public boolean hashSetLookup() {
+        return coordSet.contains(coords[next()]);
+    }
+}
@@ -0,0 +1,99 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+import dev.roguealex.chunkworldbuilder.storage.GeneratedPatchStorage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatchStateRegistryBenchmark {
+
+    private static final int RANGE = 512;
+
+    private PatchStateRegistry registry;
+
+    @Setup
+    public void setup() throws IOException {
+        GeneratedPatchStorage storage = new GeneratedPatchStorage(
+                Files.createTempDirectory("cwb-registry-bench").toFile(),
+                Logger.getLogger("PatchStateRegistryBenchmark"),
+                "bench"
+        );
+        storage.load();
+        for (int x = 0; x < RANGE; x += 2) {
+            for (int z = 0; z < RANGE; z++) {
+                storage.markGenerated(new PatchCoord(x, z));
+            }
+        }
+        registry = new PatchStateRegistry(storage);
+    }
+
+    private static PatchCoord randomCoord() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new PatchCoord(random.nextInt(RANGE), random.nextInt(RANGE));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PatchStatus getStatusSingleThread() {
+        return registry.getStatus(randomCoord());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean transitionCycleContended() {
+        PatchCoord coord = randomCoord();
+        boolean started = registry.tryQueue(coord) && registry.tryStartGenerating(coord);
+        if (started) {
+            registry.resetToNew(coord);
+        }
+        return started;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public PatchStatus mixedReaders() {
+        return registry.getStatus(randomCoord());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public boolean mixedWriter() {
+        PatchCoord coord = randomCoord();
+        if (registry.tryQueue(coord)) {
+            registry.resetToNew(coord);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("aggregates")
+    @GroupThreads(1)
+    public int aggregateDoneCount() {
+        return registry.getDoneCount();
+    }
+
+    @Benchmark
+    @Group("aggregates")
+    @GroupThreads(3)
+    public PatchStatus aggregateReaders() {
+        return registry.getStatus(randomCoord());
+    }
+}
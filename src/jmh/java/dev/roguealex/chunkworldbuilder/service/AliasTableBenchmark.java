@@ -0,0 +1,55 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AliasTableBenchmark {
+
+    @Param({"1", "4", "64"})
+    public int donors;
+
+    private AliasTable table;
+    private double[] cumulative;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        double[] weights = new double[donors];
+        cumulative = new double[donors];
+        double total = 0.0;
+        for (int i = 0; i < donors; i++) {
+            weights[i] = 1.0 + (i % 5);
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        table = new AliasTable(weights);
+        random = new SplittableRandom(42L);
+    }
+
+    @Benchmark
+    public int aliasSample() {
+        return table.sample(random);
+    }
+
+    @Benchmark
+    public int linearScanSample() {
+        double roll = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoundaryServiceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int donePatches;
+
+    @Param({"24"})
+    public int patchSize;
+
+    private Set<PatchCoord> done;
+
+    @Setup
+    public void setup() {
+        done = new HashSet<>();
+        int side = (int) Math.ceil(Math.sqrt(donePatches));
+        for (int x = 0; x < side && done.size() < donePatches; x++) {
+            for (int z = 0; z < side && done.size() < donePatches; z++) {
+                if (((x * 31) ^ (z * 17)) % 11 != 0) {
+                    done.add(new PatchCoord(x - side / 2, z - side / 2));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int perimeterColumns() {
+        return BoundaryService.computePerimeterColumns(done, patchSize, patchSize).size();
+    }
+}
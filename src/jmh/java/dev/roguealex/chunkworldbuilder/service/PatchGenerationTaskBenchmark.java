@@ -0,0 +1,89 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.world.BenchmarkBlockStates;
+import dev.roguealex.chunkworldbuilder.world.InMemoryBlockAccess;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatchGenerationTaskBenchmark {
+
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 320;
+    private static final BlockData AIR = BenchmarkBlockStates.create("air");
+    private static final BlockData[] TERRAIN = BenchmarkBlockStates.palette(4);
+
+    @Param({"8", "24", "32"})
+    public int patchSize;
+
+    @Param({"false", "true"})
+    public boolean bulkApply;
+
+    @Param({"false", "true"})
+    public boolean copyBiomes;
+
+    private InMemoryBlockAccess donor;
+    private PatchCopyService patchCopyService;
+
+    @Setup(Level.Trial)
+    public void setupDonor() {
+        donor = new InMemoryBlockAccess("donor", MIN_Y, MAX_Y, AIR, Biome.PLAINS);
+        for (int x = 0; x < patchSize; x++) {
+            for (int z = 0; z < patchSize; z++) {
+                int surface = 60 + ((x * 7 + z * 13) & 7);
+                for (int y = MIN_Y; y <= surface; y++) {
+                    donor.setBlockData(x, y, z, TERRAIN[(x ^ y ^ z) & 3]);
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupTarget() {
+        InMemoryBlockAccess target = new InMemoryBlockAccess("target", MIN_Y, MAX_Y, AIR, Biome.THE_VOID);
+        patchCopyService = new PatchCopyService(
+                null,
+                null,
+                target,
+                donor,
+                patchSize,
+                patchSize,
+                0,
+                patchSize - 1,
+                0,
+                patchSize - 1,
+                copyBiomes,
+                false,
+                false,
+                bulkApply
+        );
+    }
+
+    @Benchmark
+    public int copyPatch() {
+        PatchGenerationTask task = new PatchGenerationTask(
+                new PatchCoord(3, -2),
+                new DonorPatch(patchCopyService.getDonors().get(0), new PatchCoord(0, 0)),
+                patchCopyService,
+                null
+        );
+        int processed = 0;
+        while (!task.isComplete()) {
+            processed += task.process(20000);
+        }
+        return processed;
+    }
+}
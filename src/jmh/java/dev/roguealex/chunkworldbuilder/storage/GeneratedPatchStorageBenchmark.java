@@ -0,0 +1,72 @@
+package dev.roguealex.chunkworldbuilder.storage;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class GeneratedPatchStorageBenchmark {
+
+    private static final Logger LOGGER = Logger.getLogger("GeneratedPatchStorageBenchmark");
+
+    @Param({"10000", "100000", "1000000"})
+    public int patchCount;
+
+    private File dataFolder;
+    private GeneratedPatchStorage storage;
+    private int side;
+    private int extraPatch;
+
+    @Setup
+    public void setup() throws IOException {
+        dataFolder = Files.createTempDirectory("cwb-storage-bench").toFile();
+        storage = new GeneratedPatchStorage(dataFolder, LOGGER, "bench");
+        storage.load();
+        side = (int) Math.ceil(Math.sqrt(patchCount));
+        int added = 0;
+        for (int x = 0; x < side && added < patchCount; x++) {
+            for (int z = 0; z < side && added < patchCount; z++) {
+                storage.markGenerated(new PatchCoord(x - side / 2, z - side / 2));
+                added++;
+            }
+        }
+        storage.flush();
+    }
+
+    @Benchmark
+    public int load() {
+        GeneratedPatchStorage fresh = new GeneratedPatchStorage(dataFolder, LOGGER, "bench");
+        fresh.load();
+        return fresh.getGeneratedCount();
+    }
+
+    @Benchmark
+    public int loadAllRegions() {
+        GeneratedPatchStorage fresh = new GeneratedPatchStorage(dataFolder, LOGGER, "bench");
+        fresh.load();
+        return fresh.getGeneratedPatches().size();
+    }
+
+    @Benchmark
+    public void markAndFlush() {
+        storage.markGenerated(new PatchCoord(side + extraPatch++, side));
+        storage.flush();
+    }
+}
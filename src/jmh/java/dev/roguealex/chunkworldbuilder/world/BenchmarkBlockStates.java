@@ -0,0 +1,67 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+import java.lang.reflect.Proxy;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+public final class BenchmarkBlockStates {
+
+    private BenchmarkBlockStates() {
+    }
+
+    public static BlockData create(String name) {
+        Material material = Material.matchMaterial(name);
+        return create(name, material == null ? Material.STONE : material);
+    }
+
+    public static BlockData create(String name, Material material) {
+        return (BlockData) Proxy.newProxyInstance(
+                BlockData.class.getClassLoader(),
+                new Class<?>[]{BlockData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals", "matches" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString", "getAsString" -> name;
+                    case "getMaterial", "getPlacementMaterial" -> material;
+                    case "clone", "merge" -> proxy;
+                    default -> defaultValue(method.getReturnType());
+                }
+        );
+    }
+
+    public static BlockData[] palette(int size) {
+        BlockData[] palette = new BlockData[size];
+        for (int i = 0; i < size; i++) {
+            palette[i] = create("state-" + i);
+        }
+        return palette;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0.0F;
+        }
+        if (type == double.class) {
+            return 0.0D;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+}
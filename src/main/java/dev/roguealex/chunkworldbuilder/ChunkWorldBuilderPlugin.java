@@ -1,145 +1,450 @@
 package dev.roguealex.chunkworldbuilder;
 
+import dev.roguealex.chunkworldbuilder.command.ChunkWorldBuilderCommand;
 import dev.roguealex.chunkworldbuilder.listeners.AdvancementListener;
 import dev.roguealex.chunkworldbuilder.listeners.AdminSupportHintListener;
 import dev.roguealex.chunkworldbuilder.listeners.MovementSafetyListener;
 import dev.roguealex.chunkworldbuilder.listeners.PlayerMoveWatcher;
 import dev.roguealex.chunkworldbuilder.listeners.SpawnWorldRoutingListener;
 import dev.roguealex.chunkworldbuilder.listeners.TeleportSafetyListener;
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.metrics.MetricsHttpServer;
+import dev.roguealex.chunkworldbuilder.metrics.PrometheusTextWriter;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
+import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
 import dev.roguealex.chunkworldbuilder.service.BoundaryService;
 import dev.roguealex.chunkworldbuilder.service.CopyEngineMode;
+import dev.roguealex.chunkworldbuilder.service.DonorAssignmentMode;
+import dev.roguealex.chunkworldbuilder.service.DonorSource;
 import dev.roguealex.chunkworldbuilder.service.EndPortalProgressionService;
+import dev.roguealex.chunkworldbuilder.service.GenerationScheduler;
 import dev.roguealex.chunkworldbuilder.service.PatchCopyService;
+import dev.roguealex.chunkworldbuilder.service.PregenService;
+import dev.roguealex.chunkworldbuilder.service.ThroughputController;
 import dev.roguealex.chunkworldbuilder.service.WorldEditPatchCopyEngine;
 import dev.roguealex.chunkworldbuilder.service.WorldExpansionService;
 import dev.roguealex.chunkworldbuilder.storage.GeneratedPatchStorage;
+import dev.roguealex.chunkworldbuilder.world.FoliaDetector;
+import dev.roguealex.chunkworldbuilder.world.PaperBlockAccess;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.WorldCreator;
 import org.bukkit.WorldType;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class ChunkWorldBuilderPlugin extends JavaPlugin {
 
-    private World targetWorld;
-    private World donorWorld;
-    private int patchWidth;
-    private int patchLength;
-    private GeneratedPatchStorage generatedPatchStorage;
-    private PatchStateRegistry patchStateRegistry;
-    private PatchCopyService patchCopyService;
-    private WorldEditPatchCopyEngine worldEditPatchCopyEngine;
-    private WorldExpansionService worldExpansionService;
-    private BoundaryService boundaryService;
-    private EndPortalProgressionService endPortalProgressionService;
-    private TeleportSafetyListener teleportSafetyListener;
+    private static final String PRIMARY_WORLD_ID = "primary";
+
+    private List<WorldDefinition> worldDefinitions;
+    private List<PatchWorld> patchWorlds;
+    private TickProfiler tickProfiler;
+    private GenerationScheduler generationScheduler;
+    private ForkJoinPool preparationPool;
+    private boolean worldEditAvailable;
+    private ThroughputController throughputController;
+    private ScheduledTask metricsLogTask;
+    private volatile boolean migrationCancelled;
+    private MetricsHttpServer metricsHttpServer;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        migrationCancelled = false;
+        patchWorlds = new CopyOnWriteArrayList<>();
 
-        targetWorld = loadWorld(
-                "worlds.target",
-                getConfig().getBoolean("worlds.target.use-void-generator")
-        );
-
-        donorWorld = loadWorld("worlds.donor", false);
-
-        if (targetWorld == null || donorWorld == null) {
+        WorldDefinition primary = loadWorldDefinition(PRIMARY_WORLD_ID, "worlds", "generation");
+        if (primary == null) {
             getLogger().severe("Failed to initialize required worlds. Disabling plugin.");
             Bukkit.getPluginManager().disablePlugin(this);
             return;
         }
 
-        patchWidth = getConfig().getInt("generation.patch-width");
-        patchLength = getConfig().getInt("generation.patch-length");
+        worldDefinitions = new ArrayList<>();
+        worldDefinitions.add(primary);
+        ConfigurationSection additional = getConfig().getConfigurationSection("worlds.additional");
+        if (additional != null) {
+            for (String id : additional.getKeys(false)) {
+                String root = "worlds.additional." + id;
+                WorldDefinition definition = loadWorldDefinition(id, root, root + ".generation");
+                if (definition == null) {
+                    getLogger().severe("Skipping patch world '" + id + "'.");
+                } else if (conflictsWithLoadedWorld(definition)) {
+                    getLogger().severe("Skipping patch world '" + id + "': target world "
+                            + definition.targetWorld().getName() + " is already used by another patch world.");
+                } else {
+                    worldDefinitions.add(definition);
+                }
+            }
+        }
+
+        tickProfiler = new TickProfiler();
+        worldEditAvailable = resolveCopyEngine();
+        generationScheduler = new GenerationScheduler(
+                this,
+                tickProfiler,
+                getConfig().getInt("performance.max-blocks-per-tick")
+        );
+        generationScheduler.start();
+        int prepareThreads = getConfig().getInt("performance.prepare-threads", 2);
+        preparationPool = prepareThreads > 0 ? new ForkJoinPool(prepareThreads) : null;
+
+        startSharedServices(primary.targetWorld());
+
+        for (WorldDefinition definition : worldDefinitions) {
+            if (definition.storage().needsPatchGridMigration(definition.patchWidth(), definition.patchLength())) {
+                getLogger().warning("Patch grid size of " + definition.targetWorld().getName() + " changed to "
+                        + definition.patchWidth() + "x" + definition.patchLength()
+                        + ". Migrating generated patches in the background; generation starts when it finishes.");
+                Bukkit.getAsyncScheduler().runNow(this, ignored -> runPatchGridMigration(definition));
+                continue;
+            }
+
+            reportPatchGridMigration(definition, definition.storage().migratePatchGridIfNeeded(
+                    definition.patchWidth(),
+                    definition.patchLength(),
+                    (completed, total) -> { },
+                    () -> false
+            ));
+            if (!startWorld(definition)) {
+                return;
+            }
+        }
+    }
+
+    private WorldDefinition loadWorldDefinition(String id, String worldsRoot, String generationRoot) {
+        World targetWorld = loadWorld(
+                worldsRoot + ".target",
+                getConfig().getBoolean(worldsRoot + ".target.use-void-generator")
+        );
+        if (targetWorld == null) {
+            return null;
+        }
+        List<DonorDefinition> donors = loadDonorDefinitions(worldsRoot);
+        if (donors.isEmpty()) {
+            return null;
+        }
+
+        int patchWidth = generationInt(generationRoot, "patch-width", 0);
+        int patchLength = generationInt(generationRoot, "patch-length", 0);
         if (patchWidth <= 0 || patchLength <= 0) {
-            getLogger().severe("Invalid patch size in config. patch-width and patch-length must be > 0.");
-            Bukkit.getPluginManager().disablePlugin(this);
-            return;
+            getLogger().severe("Invalid patch size in config for " + targetWorld.getName()
+                    + ". patch-width and patch-length must be > 0.");
+            return null;
         }
 
-        generatedPatchStorage = new GeneratedPatchStorage(this, targetWorld.getName());
-        generatedPatchStorage.load();
-        GeneratedPatchStorage.WorldResetResult worldResetResult =
-                generatedPatchStorage.resetIfTargetWorldChanged(targetWorld.getUID());
+        GeneratedPatchStorage storage = new GeneratedPatchStorage(this, targetWorld.getName());
+        if (!storage.load()) {
+            getLogger().severe("Generated patch storage of " + targetWorld.getName()
+                    + " is unavailable. Skipping this world.");
+            return null;
+        }
+        GeneratedPatchStorage.WorldResetResult worldResetResult = storage.resetIfTargetWorldChanged(targetWorld.getUID());
         if (worldResetResult.reset()) {
-            getLogger().warning("Detected target world recreation (UUID changed). Cleared generated patch storage ("
+            getLogger().warning("Detected target world recreation (UUID changed) for " + targetWorld.getName()
+                    + ". Cleared generated patch storage ("
                     + worldResetResult.oldGeneratedCount() + " -> " + worldResetResult.newGeneratedCount() + ").");
         }
-        GeneratedPatchStorage.MigrationResult migrationResult =
-                generatedPatchStorage.migratePatchGridIfNeeded(patchWidth, patchLength);
+        return new WorldDefinition(id, targetWorld, donors, generationRoot, patchWidth, patchLength, storage);
+    }
+
+    private List<DonorDefinition> loadDonorDefinitions(String worldsRoot) {
+        List<DonorDefinition> donors = new ArrayList<>();
+        ConfigurationSection section = getConfig().getConfigurationSection(worldsRoot + ".donors");
+        if (section == null) {
+            World donorWorld = loadWorld(worldsRoot + ".donor", false);
+            if (donorWorld != null) {
+                donors.add(new DonorDefinition(donorWorld, worldsRoot + ".donor", 1.0));
+            }
+            return donors;
+        }
+
+        for (String key : section.getKeys(false)) {
+            String root = worldsRoot + ".donors." + key;
+            double weight = getConfig().getDouble(root + ".weight", 1.0);
+            if (!(weight > 0.0)) {
+                getLogger().warning("Ignoring donor " + root + ": weight must be > 0.");
+                continue;
+            }
+            World donorWorld = loadWorld(root, false);
+            if (donorWorld != null) {
+                donors.add(new DonorDefinition(donorWorld, root, weight));
+            }
+        }
+        return donors;
+    }
+
+    private boolean conflictsWithLoadedWorld(WorldDefinition candidate) {
+        for (WorldDefinition definition : worldDefinitions) {
+            if (definition.targetWorld().equals(candidate.targetWorld())
+                    || definition.usesDonor(candidate.targetWorld())
+                    || candidate.usesDonor(definition.targetWorld())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runPatchGridMigration(WorldDefinition definition) {
+        GeneratedPatchStorage.MigrationResult result;
+        try {
+            result = definition.storage().migratePatchGridIfNeeded(
+                    definition.patchWidth(),
+                    definition.patchLength(),
+                    (completed, total) -> logMigrationProgress(definition, completed, total),
+                    () -> migrationCancelled
+            );
+        } catch (CancellationException ex) {
+            getLogger().warning(ex.getMessage() + ". It will resume on the next start.");
+            return;
+        } catch (RuntimeException ex) {
+            getLogger().severe("Patch grid migration failed for " + definition.targetWorld().getName()
+                    + ": " + ex.getMessage());
+            if (isEnabled() && PRIMARY_WORLD_ID.equals(definition.id())) {
+                Bukkit.getGlobalRegionScheduler().execute(this, () -> Bukkit.getPluginManager().disablePlugin(this));
+            }
+            return;
+        }
+
+        if (isEnabled()) {
+            Bukkit.getGlobalRegionScheduler().execute(this, () -> {
+                reportPatchGridMigration(definition, result);
+                startWorld(definition);
+            });
+        }
+    }
+
+    private void logMigrationProgress(WorldDefinition definition, int completedRegions, int totalRegions) {
+        if (completedRegions == totalRegions
+                || completedRegions * 10 / totalRegions != (completedRegions - 1) * 10 / totalRegions) {
+            getLogger().info("Patch grid migration of " + definition.targetWorld().getName() + ": "
+                    + completedRegions + "/" + totalRegions + " regions ("
+                    + (completedRegions * 100 / totalRegions) + "%).");
+        }
+    }
+
+    private void reportPatchGridMigration(
+            WorldDefinition definition,
+            GeneratedPatchStorage.MigrationResult migrationResult
+    ) {
         if (migrationResult.migrated()) {
-            getLogger().warning("Patch grid size changed. Migrated generated patches to "
+            getLogger().warning("Patch grid size of " + definition.targetWorld().getName() + " changed. Migrated generated patches to "
                     + migrationResult.patchWidth() + "x" + migrationResult.patchLength()
                     + " (" + migrationResult.oldGeneratedCount() + " -> "
                     + migrationResult.newGeneratedCount() + ").");
             getLogger().warning("Recommendation: recreate the target world after changing patch size to avoid possible layout issues.");
         }
-        patchStateRegistry = new PatchStateRegistry(generatedPatchStorage);
+    }
+
+    private void startSharedServices(World primaryTargetWorld) {
+        if (getConfig().getBoolean("auto-tune.enabled", false) && FoliaDetector.isFolia()) {
+            getLogger().warning("auto-tune is not available on Folia (no global MSPT); using fixed limits.");
+        } else if (getConfig().getBoolean("auto-tune.enabled", false)) {
+            throughputController = new ThroughputController(
+                    this,
+                    generationScheduler,
+                    tickProfiler,
+                    getConfig().getLong("auto-tune.interval-ticks", 40L),
+                    getConfig().getDouble("auto-tune.target-mspt", 40.0),
+                    getConfig().getInt("auto-tune.min-budget-percent", 10),
+                    getConfig().getInt("auto-tune.max-budget-percent", 300),
+                    getConfig().getInt("auto-tune.increase-percent", 10),
+                    getConfig().getDouble("auto-tune.decrease-factor", 0.5),
+                    getConfig().getInt("auto-tune.min-move-check-interval-ticks", 2),
+                    getConfig().getInt("auto-tune.max-move-check-interval-ticks", 40),
+                    getConfig().getInt("auto-tune.min-prefetch-radius-patches", 0),
+                    getConfig().getInt("auto-tune.max-prefetch-radius-patches", 2),
+                    getConfig().getInt("performance.player-move-check-interval-ticks"),
+                    getConfig().getInt("generation.prefetch-radius-patches", 0)
+            );
+            throughputController.start();
+        }
+
+        if (getConfig().getBoolean("spawn-routing.enabled")) {
+            List<World> targetWorlds = new ArrayList<>();
+            for (WorldDefinition definition : worldDefinitions) {
+                targetWorlds.add(definition.targetWorld());
+            }
+            Bukkit.getPluginManager().registerEvents(
+                    new SpawnWorldRoutingListener(
+                            this,
+                            primaryTargetWorld,
+                            targetWorlds,
+                            tickProfiler,
+                            getConfig().getBoolean("spawn-routing.route-on-join"),
+                            getConfig().getBoolean("spawn-routing.route-on-respawn"),
+                            getConfig().getInt("spawn-routing.join-teleport-delay-ticks")
+                    ),
+                    this
+            );
+        }
 
+        if (getConfig().isConfigurationSection("support-message")) {
+            Bukkit.getPluginManager().registerEvents(
+                    new AdminSupportHintListener(
+                            this,
+                            tickProfiler,
+                            getConfig().getBoolean("support-message.enabled", false),
+                            getConfig().getString("support-message.text"),
+                            getConfig().getString("support-message.link-text"),
+                            getConfig().getString("support-message.link"),
+                            getConfig().getBoolean("support-message.use-minimessage"),
+                            getConfig().getString("support-message.font"),
+                            getConfig().getInt("support-message.delay-ticks")
+                    ),
+                    this
+            );
+        }
+
+        PluginCommand command = getCommand("cwb");
+        if (command != null) {
+            ChunkWorldBuilderCommand executor = new ChunkWorldBuilderCommand(this);
+            command.setExecutor(executor);
+            command.setTabCompleter(executor);
+        }
+
+        long metricsLogIntervalSeconds = getConfig().getLong("metrics.log-interval-seconds", 300L);
+        if (metricsLogIntervalSeconds > 0) {
+            metricsLogTask = Bukkit.getAsyncScheduler().runAtFixedRate(
+                    this,
+                    ignored -> logGenerationSummaries(),
+                    metricsLogIntervalSeconds,
+                    metricsLogIntervalSeconds,
+                    TimeUnit.SECONDS
+            );
+        }
+
+        if (getConfig().getBoolean("metrics.http.enabled", false)) {
+            String bind = getConfig().getString("metrics.http.bind", "127.0.0.1");
+            int port = getConfig().getInt("metrics.http.port", 9465);
+            metricsHttpServer = new MetricsHttpServer(bind, port, this::scrapeMetrics, getLogger());
+            try {
+                metricsHttpServer.start();
+                getLogger().info("Metrics endpoint listening on http://" + bind + ":" + port + "/metrics");
+            } catch (IOException ex) {
+                getLogger().warning("Could not start metrics endpoint on " + bind + ":" + port + ": " + ex.getMessage());
+                metricsHttpServer = null;
+            }
+        }
+    }
+
+    private boolean startWorld(WorldDefinition definition) {
+        World targetWorld = definition.targetWorld();
+        int patchWidth = definition.patchWidth();
+        int patchLength = definition.patchLength();
+        String generationRoot = definition.generationRoot();
+        PatchStateRegistry patchStateRegistry = new PatchStateRegistry(definition.storage());
+
+        DonorAssignmentMode assignmentMode = DonorAssignmentMode.fromConfig(
+                generationString(generationRoot, "donor-assignment"),
+                getLogger()
+        );
+        int donorMaxUses = generationInt(generationRoot, "donor-max-uses", 0);
+        if (assignmentMode == DonorAssignmentMode.SEEDED && donorMaxUses > 0) {
+            getLogger().warning("donor-max-uses is ignored for " + targetWorld.getName()
+                    + ": SEEDED donor assignment always maps a target patch to the same donor patch.");
+        }
+
+        PatchCopyService patchCopyService;
         try {
+            List<DonorSource> donors = new ArrayList<>();
+            for (DonorDefinition donor : definition.donors()) {
+                donors.add(new DonorSource(
+                        donors.size(),
+                        donor.world(),
+                        new PaperBlockAccess(donor.world()),
+                        donor.weight(),
+                        patchWidth,
+                        patchLength,
+                        donorInt(donor, generationRoot, "donor-range-min-x"),
+                        donorInt(donor, generationRoot, "donor-range-max-x"),
+                        donorInt(donor, generationRoot, "donor-range-min-z"),
+                        donorInt(donor, generationRoot, "donor-range-max-z")
+                ));
+            }
             patchCopyService = new PatchCopyService(
                     targetWorld,
-                    donorWorld,
+                    new PaperBlockAccess(targetWorld),
+                    donors,
                     patchWidth,
                     patchLength,
-                    getConfig().getInt("generation.donor-range-min-x"),
-                    getConfig().getInt("generation.donor-range-max-x"),
-                    getConfig().getInt("generation.donor-range-min-z"),
-                    getConfig().getInt("generation.donor-range-max-z"),
-                    getConfig().getBoolean("generation.copy-biomes"),
-                    getConfig().getBoolean("generation.copy-tile-entities")
+                    donorMaxUses,
+                    assignmentMode,
+                    generationLong(generationRoot, "donor-assignment-seed", targetWorld.getSeed()),
+                    generationBoolean(generationRoot, "copy-biomes", true),
+                    generationBoolean(generationRoot, "copy-tile-entities", false),
+                    generationBoolean(generationRoot, "copy-entities", false),
+                    getConfig().getBoolean("performance.bulk-apply", true)
             );
         } catch (IllegalArgumentException ex) {
-            getLogger().severe("Invalid donor range settings: " + ex.getMessage());
-            Bukkit.getPluginManager().disablePlugin(this);
-            return;
-        }
-
-        if (patchCopyService.isCopyTileEntitiesEnabled()) {
-            getLogger().warning("copy-tile-entities=true is accepted, but NBT copy is not implemented yet.");
+            getLogger().severe("Invalid donor settings for " + targetWorld.getName() + ": " + ex.getMessage());
+            if (PRIMARY_WORLD_ID.equals(definition.id())) {
+                Bukkit.getPluginManager().disablePlugin(this);
+                return false;
+            }
+            return true;
         }
+        definition.storage().forEachDonor((target, donor) -> patchCopyService.restoreDonorUsage(donor));
 
-        worldEditPatchCopyEngine = resolveWorldEditEngine();
-
-        worldExpansionService = new WorldExpansionService(
+        GenerationMetrics generationMetrics = new GenerationMetrics();
+        WorldEditPatchCopyEngine worldEditEngine = worldEditAvailable ? createWorldEditEngine(patchCopyService) : null;
+        WorldExpansionService worldExpansionService = new WorldExpansionService(
                 this,
                 patchStateRegistry,
                 patchCopyService,
-                worldEditPatchCopyEngine,
-                getConfig().getInt("performance.max-blocks-per-tick"),
-                getConfig().getInt("performance.max-patches-queued")
+                worldEditEngine,
+                worldEditEngine == null ? 1.0 : worldEditBudgetMultiplier(),
+                generationMetrics,
+                getConfig().getInt("performance.max-patches-queued"),
+                getConfig().getInt("performance.max-entities-per-tick", 20),
+                getConfig().getInt("performance.folia-max-concurrent-patches", 8),
+                preparationPool,
+                getConfig().getInt("performance.max-prepared-patches", 8)
         );
-        worldExpansionService.start();
+        generationScheduler.register(worldExpansionService);
 
-        PatchCoord spawnPatch = toPatchCoord(
+        PatchCoord spawnPatch = PatchCoord.fromBlock(
                 targetWorld.getSpawnLocation().getBlockX(),
-                targetWorld.getSpawnLocation().getBlockZ()
+                targetWorld.getSpawnLocation().getBlockZ(),
+                patchWidth,
+                patchLength
         );
         worldExpansionService.queuePatchPreferLand(spawnPatch, 96);
-        int startupPregenRadius = Math.max(0, getConfig().getInt("generation.pregen-radius-patches"));
+        int startupPregenRadius = Math.max(0, generationInt(generationRoot, "pregen-radius-patches", 0));
         if (startupPregenRadius > 0) {
             worldExpansionService.queueAround(spawnPatch, startupPregenRadius);
         }
 
-        Bukkit.getPluginManager().registerEvents(
-                new PlayerMoveWatcher(
-                        targetWorld,
-                        worldExpansionService,
-                        patchWidth,
-                        patchLength,
-                        getConfig().getInt("generation.edge-trigger-distance-blocks"),
-                        getConfig().getInt("performance.player-move-check-interval-ticks")
-                ),
-                this
+        PlayerMoveWatcher playerMoveWatcher = new PlayerMoveWatcher(
+                targetWorld,
+                worldExpansionService,
+                tickProfiler,
+                patchWidth,
+                patchLength,
+                generationInt(generationRoot, "edge-trigger-distance-blocks", 2),
+                getConfig().getInt("performance.player-move-check-interval-ticks"),
+                generationInt(generationRoot, "prefetch-radius-patches", 0)
         );
+        Bukkit.getPluginManager().registerEvents(playerMoveWatcher, this);
+        if (throughputController != null) {
+            throughputController.addPlayerMoveWatcher(playerMoveWatcher);
+        }
 
         if (getConfig().getBoolean("movement-safety.enabled")) {
             Bukkit.getPluginManager().registerEvents(
@@ -147,6 +452,8 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
                             targetWorld,
                             patchStateRegistry,
                             worldExpansionService,
+                            generationMetrics,
+                            tickProfiler,
                             patchWidth,
                             patchLength,
                             getConfig().getInt("movement-safety.message-cooldown-seconds")
@@ -155,12 +462,15 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
             );
         }
 
+        TeleportSafetyListener teleportSafetyListener = null;
         if (getConfig().getBoolean("teleport-safety.enabled")) {
             teleportSafetyListener = new TeleportSafetyListener(
                     this,
                     targetWorld,
                     patchStateRegistry,
                     worldExpansionService,
+                    generationMetrics,
+                    tickProfiler,
                     patchWidth,
                     patchLength,
                     getConfig().getInt("teleport-safety.pregen-radius-patches"),
@@ -170,11 +480,13 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
             Bukkit.getPluginManager().registerEvents(teleportSafetyListener, this);
         }
 
+        BoundaryService boundaryService = null;
         if (getConfig().getBoolean("boundary.enabled")) {
             boundaryService = new BoundaryService(
                     this,
                     targetWorld,
                     patchStateRegistry,
+                    tickProfiler,
                     patchWidth,
                     patchLength,
                     getConfig().getInt("boundary.min-y"),
@@ -185,11 +497,13 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
             boundaryService.start();
         }
 
-        endPortalProgressionService = new EndPortalProgressionService(
+        EndPortalProgressionService endPortalProgressionService = new EndPortalProgressionService(
+                this,
                 targetWorld,
-                patchCopyService,
+                worldExpansionService,
                 patchStateRegistry,
-                generatedPatchStorage,
+                definition.storage(),
+                tickProfiler,
                 patchWidth,
                 patchLength,
                 getConfig().getInt("progression.portal-edge-offset-patches")
@@ -200,59 +514,117 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
                     "progression.end-portal-on-advancement.trigger-advancement"
             );
             Bukkit.getPluginManager().registerEvents(
-                    new AdvancementListener(this, targetWorld, endPortalProgressionService, advancementKey),
+                    new AdvancementListener(this, targetWorld, endPortalProgressionService, tickProfiler, advancementKey),
                     this
             );
         }
 
-        if (getConfig().getBoolean("spawn-routing.enabled")) {
-            Bukkit.getPluginManager().registerEvents(
-                    new SpawnWorldRoutingListener(
-                            this,
-                            targetWorld,
-                            getConfig().getBoolean("spawn-routing.route-on-join"),
-                            getConfig().getBoolean("spawn-routing.route-on-respawn"),
-                            getConfig().getInt("spawn-routing.join-teleport-delay-ticks")
-                    ),
-                    this
-            );
-        }
+        PregenService pregenService = new PregenService(
+                this,
+                targetWorld,
+                patchStateRegistry,
+                worldExpansionService,
+                patchCopyService,
+                tickProfiler,
+                definition.storage().getPregenProgressFile(),
+                patchWidth,
+                patchLength,
+                getConfig().getLong("pregen.interval-ticks", 20L),
+                getConfig().getInt("pregen.max-queue-percent", 50),
+                getConfig().getBoolean("pregen.pause-when-players-online", true),
+                getConfig().getDouble("pregen.max-mspt", 45.0),
+                getConfig().getInt("pregen.report-interval-seconds", 60)
+        );
+        pregenService.resumeSaved();
 
-        if (getConfig().isConfigurationSection("support-message")) {
-            Bukkit.getPluginManager().registerEvents(
-                    new AdminSupportHintListener(
-                            this,
-                            getConfig().getBoolean("support-message.enabled", false),
-                            getConfig().getString("support-message.text"),
-                            getConfig().getString("support-message.link-text"),
-                            getConfig().getString("support-message.link"),
-                            getConfig().getBoolean("support-message.use-minimessage"),
-                            getConfig().getString("support-message.font"),
-                            getConfig().getInt("support-message.delay-ticks")
-                    ),
-                    this
-            );
+        patchWorlds.add(new PatchWorld(
+                definition.id(),
+                targetWorld,
+                patchWidth,
+                patchLength,
+                definition.storage(),
+                patchStateRegistry,
+                patchCopyService,
+                worldExpansionService,
+                generationMetrics,
+                playerMoveWatcher,
+                endPortalProgressionService,
+                teleportSafetyListener,
+                boundaryService,
+                pregenService
+        ));
+
+        List<String> donorNames = new ArrayList<>();
+        for (DonorSource donor : patchCopyService.getDonors()) {
+            donorNames.add(donor.getName() + "(" + donor.getWeight() + ")");
         }
-
-        getLogger().info("ChunkWorldBuilder enabled. target=" + targetWorld.getName()
-                + ", donor=" + donorWorld.getName()
+        getLogger().info("Patch world ready. target=" + targetWorld.getName()
+                + ", donors=" + String.join(",", donorNames)
+                + ", assignment=" + patchCopyService.getAssignmentMode()
+                + ", patch=" + patchWidth + "x" + patchLength
                 + ", generatedPatches=" + patchStateRegistry.getDoneCount());
+        return true;
     }
 
     @Override
     public void onDisable() {
-        if (teleportSafetyListener != null) {
-            teleportSafetyListener.stop();
+        migrationCancelled = true;
+        if (metricsLogTask != null) {
+            metricsLogTask.cancel();
+            metricsLogTask = null;
         }
-        if (boundaryService != null) {
-            boundaryService.stop();
+        if (metricsHttpServer != null) {
+            metricsHttpServer.stop();
+            metricsHttpServer = null;
+        }
+        if (throughputController != null) {
+            throughputController.stop();
         }
-        if (worldExpansionService != null) {
-            worldExpansionService.stop();
+        if (generationScheduler != null) {
+            generationScheduler.stop();
+        }
+        if (patchWorlds != null) {
+            for (PatchWorld patchWorld : patchWorlds) {
+                patchWorld.stop();
+            }
+        }
+        if (preparationPool != null) {
+            preparationPool.shutdownNow();
+            preparationPool = null;
         }
         getLogger().info("ChunkWorldBuilder disabled.");
     }
 
+    private int generationInt(String generationRoot, String key, int fallback) {
+        String path = generationRoot + "." + key;
+        return getConfig().isSet(path) ? getConfig().getInt(path) : getConfig().getInt("generation." + key, fallback);
+    }
+
+    private long generationLong(String generationRoot, String key, long fallback) {
+        String path = generationRoot + "." + key;
+        if (getConfig().isSet(path)) {
+            return getConfig().getLong(path);
+        }
+        return getConfig().isSet("generation." + key) ? getConfig().getLong("generation." + key) : fallback;
+    }
+
+    private String generationString(String generationRoot, String key) {
+        String path = generationRoot + "." + key;
+        return getConfig().isSet(path) ? getConfig().getString(path) : getConfig().getString("generation." + key);
+    }
+
+    private int donorInt(DonorDefinition donor, String generationRoot, String key) {
+        String path = donor.root() + "." + key;
+        return getConfig().isSet(path) ? getConfig().getInt(path) : generationInt(generationRoot, key, 0);
+    }
+
+    private boolean generationBoolean(String generationRoot, String key, boolean fallback) {
+        String path = generationRoot + "." + key;
+        return getConfig().isSet(path)
+                ? getConfig().getBoolean(path)
+                : getConfig().getBoolean("generation." + key, fallback);
+    }
+
     private World loadWorld(String root, boolean useVoidGenerator) {
         String name = getConfig().getString(root + ".name");
         if (name == null || name.isBlank()) {
@@ -333,54 +705,129 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
         }
     }
 
-    public World getTargetWorld() {
-        return targetWorld;
-    }
-
-    public World getDonorWorld() {
-        return donorWorld;
+    public List<PatchWorld> getPatchWorlds() {
+        return patchWorlds;
     }
 
-    public int getPatchWidth() {
-        return patchWidth;
+    public PatchWorld getPatchWorld(World world) {
+        for (PatchWorld patchWorld : patchWorlds) {
+            if (patchWorld.getTargetWorld().equals(world)) {
+                return patchWorld;
+            }
+        }
+        return null;
     }
 
-    public int getPatchLength() {
-        return patchLength;
+    public PatchWorld getPatchWorld(String targetWorldName) {
+        for (PatchWorld patchWorld : patchWorlds) {
+            if (patchWorld.getTargetWorld().getName().equalsIgnoreCase(targetWorldName)) {
+                return patchWorld;
+            }
+        }
+        return null;
     }
 
-    public GeneratedPatchStorage getGeneratedPatchStorage() {
-        return generatedPatchStorage;
+    public GenerationScheduler getGenerationScheduler() {
+        return generationScheduler;
     }
 
-    public PatchStateRegistry getPatchStateRegistry() {
-        return patchStateRegistry;
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
     }
 
-    public PatchCoord toPatchCoord(int blockX, int blockZ) {
-        return PatchCoord.fromBlock(blockX, blockZ, patchWidth, patchLength);
+    public ThroughputController getThroughputController() {
+        return throughputController;
     }
 
-    public PatchCopyService getPatchCopyService() {
-        return patchCopyService;
+    private void logGenerationSummaries() {
+        for (PatchWorld patchWorld : patchWorlds) {
+            getLogger().info("[" + patchWorld.getTargetWorld().getName() + "] "
+                    + patchWorld.getGenerationMetrics().summaryLine());
+        }
     }
 
-    public EndPortalProgressionService getEndPortalProgressionService() {
-        return endPortalProgressionService;
+    private String scrapeMetrics() {
+        PrometheusTextWriter writer = null;
+        for (PatchWorld patchWorld : patchWorlds) {
+            String worldName = patchWorld.getTargetWorld().getName();
+            writer = writer == null ? new PrometheusTextWriter(worldName) : writer.world(worldName);
+            writeWorldMetrics(writer, patchWorld);
+        }
+        if (writer == null) {
+            return "";
+        }
+        if (throughputController != null) {
+            writer.world("")
+                    .gauge("cwb_autotune_blocks_per_tick", "Block budget chosen by the auto-tuner.",
+                            throughputController.getBlockBudget())
+                    .gauge("cwb_autotune_move_check_interval_ticks", "Move-check interval chosen by the auto-tuner.",
+                            throughputController.getMoveCheckIntervalTicks())
+                    .gauge("cwb_autotune_prefetch_radius_patches", "Prefetch radius chosen by the auto-tuner.",
+                            throughputController.getPrefetchRadius())
+                    .gauge("cwb_autotune_observed_mspt", "Server MSPT seen by the last auto-tune step.",
+                            throughputController.getLastMspt())
+                    .counter("cwb_autotune_increases_total", "Auto-tune steps that raised throughput.",
+                            throughputController.getIncreases())
+                    .counter("cwb_autotune_decreases_total", "Auto-tune steps that backed off.",
+                            throughputController.getDecreases());
+        }
+        return writer.toString();
     }
 
-    public WorldExpansionService getWorldExpansionService() {
-        return worldExpansionService;
+    private void writeWorldMetrics(PrometheusTextWriter writer, PatchWorld patchWorld) {
+        GenerationMetrics metrics = patchWorld.getGenerationMetrics();
+        PatchStateRegistry patchStateRegistry = patchWorld.getPatchStateRegistry();
+        GeneratedPatchStorage generatedPatchStorage = patchWorld.getGeneratedPatchStorage();
+        writer.counter("cwb_patches_completed_total", "Patches generated successfully.", metrics.getPatchesCompleted())
+                .counter("cwb_patches_failed_total", "Patches that failed to generate.", metrics.getPatchesFailed())
+                .counter("cwb_blocks_written_total", "Blocks written into the target world.", metrics.getBlocksWritten())
+                .counter("cwb_movement_blocked_total", "Player moves blocked at ungenerated patches.", metrics.getMovementBlocked())
+                .counter("cwb_teleports_held_total", "Teleports held until the destination was generated.", metrics.getTeleportsHeld())
+                .gauge("cwb_queue_depth", "Patches waiting in the generation queue.", metrics.getQueueDepth())
+                .gauge(
+                        "cwb_patches",
+                        "Patches by generation state.",
+                        "state",
+                        new String[]{"queued", "generating", "clearing", "done"},
+                        new long[]{
+                                patchStateRegistry.getStatusCount(PatchStatus.QUEUED),
+                                patchStateRegistry.getStatusCount(PatchStatus.GENERATING),
+                                patchStateRegistry.getStatusCount(PatchStatus.CLEARING),
+                                patchStateRegistry.getStatusCount(PatchStatus.DONE)
+                        }
+                )
+                .summary("cwb_queue_wait_seconds", "Time from enqueue to generation start.", metrics.getQueueWaitNanos(), 1.0e-9)
+                .summary("cwb_generation_seconds", "Time from generation start to completion.", metrics.getGenerationNanos(), 1.0e-9)
+                .summary("cwb_patch_latency_seconds", "Time from enqueue to completion.", metrics.getTotalLatencyNanos(), 1.0e-9)
+                .summary("cwb_ticks_per_patch", "Server ticks spent generating one patch.", metrics.getTicksPerPatch(), 1.0)
+                .summary("cwb_tick_seconds", "Time spent generating per server tick.", metrics.getTickNanos(), 1.0e-9)
+                .summary("cwb_blocks_per_tick", "Blocks written per server tick.", metrics.getBlocksPerTick(), 1.0)
+                .summary("cwb_storage_save_seconds", "Time spent saving generated patch storage.",
+                        generatedPatchStorage.getSaveNanos(), 1.0e-9)
+                .gauge("cwb_storage_file_bytes", "Size of the generated patch storage file.",
+                        generatedPatchStorage.getFileSizeBytes());
+        BoundaryService boundaryService = patchWorld.getBoundaryService();
+        if (boundaryService != null) {
+            writer.counter("cwb_boundary_columns_drawn_total", "Boundary columns drawn.", boundaryService.getColumnsDrawn())
+                    .counter("cwb_boundary_columns_cleared_total", "Boundary columns cleared.", boundaryService.getColumnsCleared())
+                    .gauge("cwb_boundary_perimeter_columns", "Columns on the current boundary perimeter.",
+                            boundaryService.getPerimeterColumnCount());
+        }
     }
 
-    private WorldEditPatchCopyEngine resolveWorldEditEngine() {
+    private boolean resolveCopyEngine() {
         CopyEngineMode mode = CopyEngineMode.fromConfig(getConfig().getString("generation.copy-engine"));
         Plugin worldEdit = Bukkit.getPluginManager().getPlugin("WorldEdit");
         boolean worldEditInstalled = worldEdit != null && worldEdit.isEnabled();
 
         if (mode == CopyEngineMode.BUKKIT) {
             logInfoAqua("Copy engine: BUKKIT (forced by config).");
-            return null;
+            return false;
+        }
+
+        if (FoliaDetector.isFolia()) {
+            logInfoAqua("Copy engine: BUKKIT (Folia detected, patches are copied on their region threads).");
+            return false;
         }
 
         if (!worldEditInstalled) {
@@ -392,19 +839,28 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
             if (getConfig().getBoolean("performance.worldedit-recommendation.enabled")) {
                 logInfoAqua("Recommendation: install WorldEdit for better performance on large patch operations.");
             }
-            return null;
+            return false;
         }
 
+        if (mode == CopyEngineMode.WORLDEDIT) {
+            logInfoAqua("Copy engine: WORLDEDIT (forced by config).");
+        } else {
+            logInfoAqua("Copy engine: WORLDEDIT (AUTO mode, plugin detected).");
+        }
+        return true;
+    }
+
+    private double worldEditBudgetMultiplier() {
+        return (double) getConfig().getInt("performance.worldedit-max-blocks-per-tick", 250000)
+                / Math.max(1, generationScheduler.getBaseBlockBudget());
+    }
+
+    private WorldEditPatchCopyEngine createWorldEditEngine(PatchCopyService patchCopyService) {
         try {
-            WorldEditPatchCopyEngine engine = new WorldEditPatchCopyEngine(patchCopyService);
-            if (mode == CopyEngineMode.WORLDEDIT) {
-                logInfoAqua("Copy engine: WORLDEDIT (forced by config).");
-            } else {
-                logInfoAqua("Copy engine: WORLDEDIT (AUTO mode, plugin detected).");
-            }
-            return engine;
+            return new WorldEditPatchCopyEngine(patchCopyService);
         } catch (Throwable ex) {
-            getLogger().warning("Could not initialize WorldEdit copy engine: " + ex.getMessage());
+            getLogger().warning("Could not initialize WorldEdit copy engine for "
+                    + patchCopyService.getTargetWorld().getName() + ": " + ex.getMessage());
             getLogger().warning("Falling back to BUKKIT copy engine.");
             return null;
         }
@@ -415,4 +871,26 @@ public final class ChunkWorldBuilderPlugin extends JavaPlugin {
                 Component.text("[ChunkWorldBuilder] " + message, NamedTextColor.AQUA)
         );
     }
+
+    private record WorldDefinition(
+            String id,
+            World targetWorld,
+            List<DonorDefinition> donors,
+            String generationRoot,
+            int patchWidth,
+            int patchLength,
+            GeneratedPatchStorage storage
+    ) {
+        boolean usesDonor(World world) {
+            for (DonorDefinition donor : donors) {
+                if (donor.world().equals(world)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record DonorDefinition(World world, String root, double weight) {
+    }
 }
@@ -0,0 +1,133 @@
+package dev.roguealex.chunkworldbuilder;
+
+import dev.roguealex.chunkworldbuilder.listeners.PlayerMoveWatcher;
+import dev.roguealex.chunkworldbuilder.listeners.TeleportSafetyListener;
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
+import dev.roguealex.chunkworldbuilder.service.BoundaryService;
+import dev.roguealex.chunkworldbuilder.service.EndPortalProgressionService;
+import dev.roguealex.chunkworldbuilder.service.PatchCopyService;
+import dev.roguealex.chunkworldbuilder.service.PregenService;
+import dev.roguealex.chunkworldbuilder.service.WorldExpansionService;
+import dev.roguealex.chunkworldbuilder.storage.GeneratedPatchStorage;
+import org.bukkit.World;
+
+public final class PatchWorld {
+
+    private final String id;
+    private final World targetWorld;
+    private final int patchWidth;
+    private final int patchLength;
+    private final GeneratedPatchStorage generatedPatchStorage;
+    private final PatchStateRegistry patchStateRegistry;
+    private final PatchCopyService patchCopyService;
+    private final WorldExpansionService worldExpansionService;
+    private final GenerationMetrics generationMetrics;
+    private final PlayerMoveWatcher playerMoveWatcher;
+    private final EndPortalProgressionService endPortalProgressionService;
+    private final TeleportSafetyListener teleportSafetyListener;
+    private final BoundaryService boundaryService;
+    private final PregenService pregenService;
+
+    public PatchWorld(
+            String id,
+            World targetWorld,
+            int patchWidth,
+            int patchLength,
+            GeneratedPatchStorage generatedPatchStorage,
+            PatchStateRegistry patchStateRegistry,
+            PatchCopyService patchCopyService,
+            WorldExpansionService worldExpansionService,
+            GenerationMetrics generationMetrics,
+            PlayerMoveWatcher playerMoveWatcher,
+            EndPortalProgressionService endPortalProgressionService,
+            TeleportSafetyListener teleportSafetyListener,
+            BoundaryService boundaryService,
+            PregenService pregenService
+    ) {
+        this.id = id;
+        this.targetWorld = targetWorld;
+        this.patchWidth = patchWidth;
+        this.patchLength = patchLength;
+        this.generatedPatchStorage = generatedPatchStorage;
+        this.patchStateRegistry = patchStateRegistry;
+        this.patchCopyService = patchCopyService;
+        this.worldExpansionService = worldExpansionService;
+        this.generationMetrics = generationMetrics;
+        this.playerMoveWatcher = playerMoveWatcher;
+        this.endPortalProgressionService = endPortalProgressionService;
+        this.teleportSafetyListener = teleportSafetyListener;
+        this.boundaryService = boundaryService;
+        this.pregenService = pregenService;
+    }
+
+    public void stop() {
+        pregenService.stop();
+        endPortalProgressionService.stop();
+        if (teleportSafetyListener != null) {
+            teleportSafetyListener.stop();
+        }
+        if (boundaryService != null) {
+            boundaryService.stop();
+        }
+        worldExpansionService.stop();
+        generatedPatchStorage.flush();
+    }
+
+    public PatchCoord toPatchCoord(int blockX, int blockZ) {
+        return PatchCoord.fromBlock(blockX, blockZ, patchWidth, patchLength);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public World getTargetWorld() {
+        return targetWorld;
+    }
+
+    public int getPatchWidth() {
+        return patchWidth;
+    }
+
+    public int getPatchLength() {
+        return patchLength;
+    }
+
+    public GeneratedPatchStorage getGeneratedPatchStorage() {
+        return generatedPatchStorage;
+    }
+
+    public PatchStateRegistry getPatchStateRegistry() {
+        return patchStateRegistry;
+    }
+
+    public PatchCopyService getPatchCopyService() {
+        return patchCopyService;
+    }
+
+    public WorldExpansionService getWorldExpansionService() {
+        return worldExpansionService;
+    }
+
+    public GenerationMetrics getGenerationMetrics() {
+        return generationMetrics;
+    }
+
+    public PlayerMoveWatcher getPlayerMoveWatcher() {
+        return playerMoveWatcher;
+    }
+
+    public EndPortalProgressionService getEndPortalProgressionService() {
+        return endPortalProgressionService;
+    }
+
+    public BoundaryService getBoundaryService() {
+        return boundaryService;
+    }
+
+    public PregenService getPregenService() {
+        return pregenService;
+    }
+}
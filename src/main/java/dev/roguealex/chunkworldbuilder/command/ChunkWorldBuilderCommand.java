@@ -0,0 +1,257 @@
+package dev.roguealex.chunkworldbuilder.command;
+
+import dev.roguealex.chunkworldbuilder.ChunkWorldBuilderPlugin;
+import dev.roguealex.chunkworldbuilder.PatchWorld;
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchSpiral;
+import dev.roguealex.chunkworldbuilder.service.DonorPatch;
+import dev.roguealex.chunkworldbuilder.service.DonorReusePolicy;
+import dev.roguealex.chunkworldbuilder.service.PregenService;
+import dev.roguealex.chunkworldbuilder.service.ThroughputController;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.entity.Player;
+
+public final class ChunkWorldBuilderCommand implements TabExecutor {
+
+    private static final List<String> PREGEN_ACTIONS = List.of("radius", "rect", "status", "pause", "resume", "cancel");
+    private static final List<String> SUBCOMMANDS = List.of("stats", "profile", "donor", "pregen", "regen");
+
+    private final ChunkWorldBuilderPlugin plugin;
+
+    public ChunkWorldBuilderCommand(ChunkWorldBuilderPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 0) {
+            sender.sendMessage("Usage: /" + label + " <" + String.join("|", SUBCOMMANDS) + ">");
+            return true;
+        }
+
+        switch (args[0].toLowerCase(Locale.ROOT)) {
+            case "stats" -> handleStats(sender, args);
+            case "profile" -> handleProfile(sender, label, args);
+            case "donor" -> handleDonor(sender);
+            case "pregen" -> handleAreaJob(sender, label, args, false);
+            case "regen" -> handleAreaJob(sender, label, args, true);
+            default -> sender.sendMessage("Unknown subcommand. Usage: /" + label + " <"
+                    + String.join("|", SUBCOMMANDS) + ">");
+        }
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 1) {
+            return filterPrefix(SUBCOMMANDS, args[0]);
+        }
+        if (args.length == 2 && "stats".equalsIgnoreCase(args[0])) {
+            return filterPrefix(List.of("reset"), args[1]);
+        }
+        if (args.length == 2 && "profile".equalsIgnoreCase(args[0])) {
+            return filterPrefix(List.of("start", "stop"), args[1]);
+        }
+        if (args.length == 2 && ("pregen".equalsIgnoreCase(args[0]) || "regen".equalsIgnoreCase(args[0]))) {
+            return filterPrefix(PREGEN_ACTIONS, args[1]);
+        }
+        return List.of();
+    }
+
+    private void handleStats(CommandSender sender, String[] args) {
+        if (args.length > 1 && "reset".equalsIgnoreCase(args[1])) {
+            for (PatchWorld patchWorld : plugin.getPatchWorlds()) {
+                patchWorld.getGenerationMetrics().reset();
+            }
+            sender.sendMessage("Generation stats reset.");
+            return;
+        }
+
+        sender.sendMessage("ChunkWorldBuilder generation stats:");
+        for (PatchWorld patchWorld : plugin.getPatchWorlds()) {
+            GenerationMetrics metrics = patchWorld.getGenerationMetrics();
+            sender.sendMessage(" World " + patchWorld.getTargetWorld().getName() + ":");
+            for (String line : metrics.describe()) {
+                sender.sendMessage("  " + line);
+            }
+            DonorReusePolicy reusePolicy = patchWorld.getPatchCopyService().getReusePolicy();
+            if (!reusePolicy.isUnlimited()) {
+                sender.sendMessage("  Donor reuse: maxUses=" + reusePolicy.getMaxUses()
+                        + " exhausted=" + reusePolicy.getExhaustedCount() + "/" + reusePolicy.getTrackedArea()
+                        + " recorded=" + patchWorld.getGeneratedPatchStorage().getDonorRecordCount());
+            }
+        }
+        sender.sendMessage(" Shared budget: blocksPerTick=" + plugin.getGenerationScheduler().getBlockBudget()
+                + " queued=" + plugin.getGenerationScheduler().getQueuedCount());
+        ThroughputController controller = plugin.getThroughputController();
+        if (controller != null) {
+            for (String line : controller.describe()) {
+                sender.sendMessage(" " + line);
+            }
+        }
+    }
+
+    private void handleProfile(CommandSender sender, String label, String[] args) {
+        TickProfiler profiler = plugin.getTickProfiler();
+        String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "";
+        switch (action) {
+            case "start" -> {
+                if (profiler.start(Bukkit.getCurrentTick())) {
+                    sender.sendMessage("Tick profiler started. Run /" + label + " profile stop to see the breakdown.");
+                } else {
+                    sender.sendMessage("Tick profiler is already running.");
+                }
+            }
+            case "stop" -> {
+                if (!profiler.isRunning()) {
+                    sender.sendMessage("Tick profiler is not running.");
+                    return;
+                }
+                sender.sendMessage("ChunkWorldBuilder tick profile:");
+                for (String line : profiler.stop(Bukkit.getCurrentTick())) {
+                    sender.sendMessage(" " + line);
+                }
+            }
+            default -> sender.sendMessage("Usage: /" + label + " profile <start|stop>");
+        }
+    }
+
+    private void handleDonor(CommandSender sender) {
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage("Only players can look up the donor of their current patch.");
+            return;
+        }
+        PatchWorld patchWorld = plugin.getPatchWorld(player.getWorld());
+        if (patchWorld == null) {
+            sender.sendMessage("You are not in a patch world.");
+            return;
+        }
+
+        Location location = player.getLocation();
+        PatchCoord patch = patchWorld.toPatchCoord(location.getBlockX(), location.getBlockZ());
+        Long packed = patchWorld.getGeneratedPatchStorage().getDonor(patch);
+        DonorPatch donorPatch = packed == null ? null : patchWorld.getPatchCopyService().donorPatchOf(packed);
+        if (donorPatch == null) {
+            sender.sendMessage("No donor recorded for patch " + patch.asKey() + ".");
+            return;
+        }
+        int patchWidth = patchWorld.getPatchWidth();
+        int patchLength = patchWorld.getPatchLength();
+        sender.sendMessage("Patch " + patch.asKey() + " was copied from " + donorPatch.asKey()
+                + " (blocks " + donorPatch.coord().minBlockX(patchWidth) + "," + donorPatch.coord().minBlockZ(patchLength)
+                + " to " + (donorPatch.coord().minBlockX(patchWidth) + patchWidth - 1)
+                + "," + (donorPatch.coord().minBlockZ(patchLength) + patchLength - 1) + ").");
+    }
+
+    private void handleAreaJob(CommandSender sender, String label, String[] args, boolean regenerate) {
+        String subcommand = regenerate ? "regen" : "pregen";
+        String usage = "Usage: /" + label + " " + subcommand + " <radius <patches>|rect <x1> <z1> <x2> <z2>"
+                + "|status|pause|resume|cancel> [world]";
+        String action = args.length > 1 ? args[1].toLowerCase(Locale.ROOT) : "";
+        int worldArg = switch (action) {
+            case "radius" -> 3;
+            case "rect" -> 6;
+            case "status", "pause", "resume", "cancel" -> 2;
+            default -> -1;
+        };
+        if (worldArg < 0 || args.length < worldArg || args.length > worldArg + 1) {
+            sender.sendMessage(usage);
+            return;
+        }
+
+        PatchWorld patchWorld = resolvePatchWorld(sender, args.length > worldArg ? args[worldArg] : null);
+        if (patchWorld == null) {
+            sender.sendMessage("Unknown patch world" + (args.length > worldArg ? ": " + args[worldArg] : "") + ".");
+            return;
+        }
+        PregenService pregen = patchWorld.getPregenService();
+        String worldName = patchWorld.getTargetWorld().getName();
+
+        switch (action) {
+            case "status" -> {
+                for (String line : pregen.describe()) {
+                    sender.sendMessage(line);
+                }
+            }
+            case "pause" -> sender.sendMessage(pregen.pause()
+                    ? "Job in " + worldName + " paused."
+                    : "No running pregen or regen to pause in " + worldName + ".");
+            case "resume" -> sender.sendMessage(pregen.resume()
+                    ? "Job in " + worldName + " resumed."
+                    : "No paused pregen or regen in " + worldName + ".");
+            case "cancel" -> sender.sendMessage(pregen.cancel()
+                    ? "Job in " + worldName + " cancelled. Patches already queued will still be generated."
+                    : "No pregen or regen running in " + worldName + ".");
+            default -> {
+                PatchSpiral area;
+                try {
+                    area = "radius".equals(action)
+                            ? PatchSpiral.around(centerPatch(sender, patchWorld), Integer.parseInt(args[2]))
+                            : rectangle(patchWorld, args);
+                } catch (NumberFormatException ex) {
+                    sender.sendMessage(usage);
+                    return;
+                }
+                if (!pregen.start(area, regenerate)) {
+                    sender.sendMessage("A " + (pregen.isRegenerating() ? "regen" : "pregen") + " is already running in "
+                            + worldName + ". Use /" + label + " " + subcommand + " cancel first.");
+                    return;
+                }
+                sender.sendMessage((regenerate ? "Regen" : "Pregen") + " of " + worldName + " started: " + area.area() + " patches from "
+                        + area.getMinPatchX() + "," + area.getMinPatchZ() + " to "
+                        + area.getMaxPatchX() + "," + area.getMaxPatchZ() + ". Check /" + label + " " + subcommand + " status.");
+            }
+        }
+    }
+
+    private PatchWorld resolvePatchWorld(CommandSender sender, String worldName) {
+        if (worldName != null) {
+            return plugin.getPatchWorld(worldName);
+        }
+        if (sender instanceof Player player) {
+            PatchWorld patchWorld = plugin.getPatchWorld(player.getWorld());
+            if (patchWorld != null) {
+                return patchWorld;
+            }
+        }
+        List<PatchWorld> patchWorlds = plugin.getPatchWorlds();
+        return patchWorlds.isEmpty() ? null : patchWorlds.get(0);
+    }
+
+    private static PatchCoord centerPatch(CommandSender sender, PatchWorld patchWorld) {
+        Location location = sender instanceof Player player && player.getWorld().equals(patchWorld.getTargetWorld())
+                ? player.getLocation()
+                : patchWorld.getTargetWorld().getSpawnLocation();
+        return patchWorld.toPatchCoord(location.getBlockX(), location.getBlockZ());
+    }
+
+    private static PatchSpiral rectangle(PatchWorld patchWorld, String[] args) {
+        int x1 = Integer.parseInt(args[2]);
+        int z1 = Integer.parseInt(args[3]);
+        int x2 = Integer.parseInt(args[4]);
+        int z2 = Integer.parseInt(args[5]);
+        PatchCoord min = patchWorld.toPatchCoord(Math.min(x1, x2), Math.min(z1, z2));
+        PatchCoord max = patchWorld.toPatchCoord(Math.max(x1, x2), Math.max(z1, z2));
+        return new PatchSpiral(min.patchX(), min.patchZ(), max.patchX(), max.patchZ(), 0, 0);
+    }
+
+    private static List<String> filterPrefix(List<String> options, String prefix) {
+        String lowered = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        for (String option : options) {
+            if (option.startsWith(lowered)) {
+                result.add(option);
+            }
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -8,7 +9,6 @@ import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -19,6 +19,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 public final class AdminSupportHintListener implements Listener {
 
     private final JavaPlugin plugin;
+    private final TickProfiler profiler;
     private final boolean enabled;
     private final String messageTemplate;
     private final String linkTextTemplate;
@@ -31,6 +32,7 @@ public final class AdminSupportHintListener implements Listener {
 
     public AdminSupportHintListener(
             JavaPlugin plugin,
+            TickProfiler profiler,
             boolean enabled,
             String messageTemplate,
             String linkTextTemplate,
@@ -40,6 +42,7 @@ public final class AdminSupportHintListener implements Listener {
             int delayTicks
     ) {
         this.plugin = plugin;
+        this.profiler = profiler;
         this.enabled = enabled;
         this.messageTemplate = messageTemplate;
         this.linkTextTemplate = linkTextTemplate;
@@ -53,6 +56,15 @@ public final class AdminSupportHintListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleJoin(event);
+        } finally {
+            profiler.end("admin-support-hint-listener", startedAt);
+        }
+    }
+
+    private void handleJoin(PlayerJoinEvent event) {
         if (!enabled) {
             return;
         }
@@ -65,12 +77,12 @@ public final class AdminSupportHintListener implements Listener {
             return;
         }
 
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+        player.getScheduler().runDelayed(plugin, ignored -> {
             if (!player.isOnline()) {
                 return;
             }
             sendSupportMessage(player);
-        }, delayTicks);
+        }, null, Math.max(1L, delayTicks));
     }
 
     private void sendSupportMessage(Player player) {
@@ -1,6 +1,9 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.service.EndPortalProgressionService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
@@ -15,22 +18,34 @@ public final class AdvancementListener implements Listener {
     private final JavaPlugin plugin;
     private final World targetWorld;
     private final EndPortalProgressionService progressionService;
+    private final TickProfiler profiler;
     private final String triggerAdvancementKey;
 
     public AdvancementListener(
             JavaPlugin plugin,
             World targetWorld,
             EndPortalProgressionService progressionService,
+            TickProfiler profiler,
             String triggerAdvancementKey
     ) {
         this.plugin = plugin;
         this.targetWorld = targetWorld;
         this.progressionService = progressionService;
+        this.profiler = profiler;
         this.triggerAdvancementKey = triggerAdvancementKey;
     }
 
     @EventHandler
     public void onPlayerAdvancementDone(PlayerAdvancementDoneEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleAdvancement(event);
+        } finally {
+            profiler.end("advancement-listener", startedAt);
+        }
+    }
+
+    private void handleAdvancement(PlayerAdvancementDoneEvent event) {
         Player player = event.getPlayer();
         if (!player.getWorld().equals(targetWorld)) {
             return;
@@ -41,13 +56,21 @@ public final class AdvancementListener implements Listener {
             return;
         }
 
-        try {
-            Location portal = progressionService.ensurePortalForPlayerDirection(player);
-            player.sendMessage("End portal prepared at X=" + portal.getBlockX()
-                    + " Y=" + portal.getBlockY()
-                    + " Z=" + portal.getBlockZ());
-        } catch (RuntimeException ex) {
-            plugin.getLogger().severe("Failed to create end portal progression patch: " + ex.getMessage());
+        CompletableFuture<Location> portalFuture = progressionService.ensurePortalForPlayerDirection(player);
+        if (!portalFuture.isDone()) {
+            player.sendMessage("Preparing the end portal area...");
         }
+        portalFuture.whenComplete((portal, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            if (error != null) {
+                plugin.getLogger().severe("Failed to create end portal progression patch: " + error.getMessage());
+                return;
+            }
+            player.getScheduler().run(plugin, ignored -> player.sendMessage("End portal prepared at X=" + portal.getBlockX()
+                    + " Y=" + portal.getBlockY()
+                    + " Z=" + portal.getBlockZ()), null);
+        });
     }
 }
@@ -1,5 +1,7 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
 import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
@@ -19,6 +21,8 @@ public final class MovementSafetyListener implements Listener {
     private final World targetWorld;
     private final PatchStateRegistry patchStateRegistry;
     private final WorldExpansionService worldExpansionService;
+    private final GenerationMetrics metrics;
+    private final TickProfiler profiler;
     private final int patchWidth;
     private final int patchLength;
     private final long messageCooldownMillis;
@@ -28,6 +32,8 @@ public final class MovementSafetyListener implements Listener {
             World targetWorld,
             PatchStateRegistry patchStateRegistry,
             WorldExpansionService worldExpansionService,
+            GenerationMetrics metrics,
+            TickProfiler profiler,
             int patchWidth,
             int patchLength,
             int messageCooldownSeconds
@@ -35,6 +41,8 @@ public final class MovementSafetyListener implements Listener {
         this.targetWorld = targetWorld;
         this.patchStateRegistry = patchStateRegistry;
         this.worldExpansionService = worldExpansionService;
+        this.metrics = metrics;
+        this.profiler = profiler;
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.messageCooldownMillis = Math.max(1, messageCooldownSeconds) * 1000L;
@@ -43,6 +51,15 @@ public final class MovementSafetyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPlayerMove(PlayerMoveEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleMove(event);
+        } finally {
+            profiler.end("movement-safety-listener", startedAt);
+        }
+    }
+
+    private void handleMove(PlayerMoveEvent event) {
         if (event.getTo() == null || event.getTo().getWorld() == null) {
             return;
         }
@@ -77,6 +94,7 @@ public final class MovementSafetyListener implements Listener {
 
         worldExpansionService.queuePatchUrgent(toPatch);
         event.setTo(event.getFrom());
+        metrics.recordMovementBlocked();
         maybeNotify(event.getPlayer());
     }
 
@@ -1,5 +1,6 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.service.WorldExpansionService;
 import java.util.Map;
@@ -14,31 +15,46 @@ public final class PlayerMoveWatcher implements Listener {
 
     private final World targetWorld;
     private final WorldExpansionService worldExpansionService;
+    private final TickProfiler profiler;
     private final int patchWidth;
     private final int patchLength;
     private final int edgeTriggerDistanceBlocks;
-    private final long checkIntervalMillis;
+    private volatile long checkIntervalMillis;
+    private volatile int prefetchRadiusPatches;
     private final Map<UUID, Long> lastCheckTimeMillis;
 
     public PlayerMoveWatcher(
             World targetWorld,
             WorldExpansionService worldExpansionService,
+            TickProfiler profiler,
             int patchWidth,
             int patchLength,
             int edgeTriggerDistanceBlocks,
-            int checkIntervalTicks
+            int checkIntervalTicks,
+            int prefetchRadiusPatches
     ) {
         this.targetWorld = targetWorld;
         this.worldExpansionService = worldExpansionService;
+        this.profiler = profiler;
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.edgeTriggerDistanceBlocks = Math.max(1, edgeTriggerDistanceBlocks);
         this.checkIntervalMillis = Math.max(1, checkIntervalTicks) * 50L;
+        this.prefetchRadiusPatches = Math.max(0, prefetchRadiusPatches);
         this.lastCheckTimeMillis = new ConcurrentHashMap<>();
     }
 
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleMove(event);
+        } finally {
+            profiler.end("move-watcher-listener", startedAt);
+        }
+    }
+
+    private void handleMove(PlayerMoveEvent event) {
         if (event.getTo() == null || event.getFrom().getWorld() == null || event.getTo().getWorld() == null) {
             return;
         }
@@ -98,7 +114,28 @@ public final class PlayerMoveWatcher implements Listener {
             return;
         }
 
-        worldExpansionService.queuePatch(neighborPatch(currentPatch, edge));
+        PatchCoord nextPatch = neighborPatch(currentPatch, edge);
+        worldExpansionService.queuePatch(nextPatch);
+        int radius = prefetchRadiusPatches;
+        if (radius > 0) {
+            worldExpansionService.queueAround(nextPatch, radius);
+        }
+    }
+
+    public int getCheckIntervalTicks() {
+        return (int) (checkIntervalMillis / 50L);
+    }
+
+    public void setCheckIntervalTicks(int checkIntervalTicks) {
+        this.checkIntervalMillis = Math.max(1, checkIntervalTicks) * 50L;
+    }
+
+    public int getPrefetchRadiusPatches() {
+        return prefetchRadiusPatches;
+    }
+
+    public void setPrefetchRadiusPatches(int prefetchRadiusPatches) {
+        this.prefetchRadiusPatches = Math.max(0, prefetchRadiusPatches);
     }
 
     private enum Edge {
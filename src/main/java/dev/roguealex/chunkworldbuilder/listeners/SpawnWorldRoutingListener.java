@@ -1,6 +1,8 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
-import org.bukkit.Bukkit;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import java.util.Collection;
+import java.util.List;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.World;
@@ -16,6 +18,8 @@ public final class SpawnWorldRoutingListener implements Listener {
 
     private final JavaPlugin plugin;
     private final World targetWorld;
+    private final List<World> patchWorlds;
+    private final TickProfiler profiler;
     private final boolean routeOnJoin;
     private final boolean routeOnRespawn;
     private final int joinTeleportDelayTicks;
@@ -23,12 +27,16 @@ public final class SpawnWorldRoutingListener implements Listener {
     public SpawnWorldRoutingListener(
             JavaPlugin plugin,
             World targetWorld,
+            Collection<World> patchWorlds,
+            TickProfiler profiler,
             boolean routeOnJoin,
             boolean routeOnRespawn,
             int joinTeleportDelayTicks
     ) {
         this.plugin = plugin;
         this.targetWorld = targetWorld;
+        this.patchWorlds = List.copyOf(patchWorlds);
+        this.profiler = profiler;
         this.routeOnJoin = routeOnJoin;
         this.routeOnRespawn = routeOnRespawn;
         this.joinTeleportDelayTicks = Math.max(0, joinTeleportDelayTicks);
@@ -36,33 +44,51 @@ public final class SpawnWorldRoutingListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleJoin(event);
+        } finally {
+            profiler.end("spawn-routing-join-listener", startedAt);
+        }
+    }
+
+    private void handleJoin(PlayerJoinEvent event) {
         if (!routeOnJoin) {
             return;
         }
 
         Player player = event.getPlayer();
-        if (player.getWorld().equals(targetWorld)) {
+        if (patchWorlds.contains(player.getWorld())) {
             return;
         }
 
         Location spawn = safeSpawn(targetWorld);
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+        player.getScheduler().runDelayed(plugin, ignored -> {
             if (!player.isOnline()) {
                 return;
             }
-            if (!player.getWorld().equals(targetWorld)) {
-                player.teleport(spawn);
+            if (!patchWorlds.contains(player.getWorld())) {
+                player.teleportAsync(spawn);
             }
-        }, joinTeleportDelayTicks);
+        }, null, Math.max(1L, joinTeleportDelayTicks));
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerRespawn(PlayerRespawnEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleRespawn(event);
+        } finally {
+            profiler.end("spawn-routing-respawn-listener", startedAt);
+        }
+    }
+
+    private void handleRespawn(PlayerRespawnEvent event) {
         if (!routeOnRespawn) {
             return;
         }
         if (event.getRespawnLocation().getWorld() != null
-                && event.getRespawnLocation().getWorld().equals(targetWorld)) {
+                && patchWorlds.contains(event.getRespawnLocation().getWorld())) {
             return;
         }
         event.setRespawnLocation(safeSpawn(targetWorld));
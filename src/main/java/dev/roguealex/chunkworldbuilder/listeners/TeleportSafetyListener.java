@@ -1,15 +1,17 @@
 package dev.roguealex.chunkworldbuilder.listeners;
 
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
 import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
 import dev.roguealex.chunkworldbuilder.service.WorldExpansionService;
-import java.util.HashMap;
-import java.util.HashSet;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -26,19 +28,23 @@ public final class TeleportSafetyListener implements Listener {
     private final World targetWorld;
     private final PatchStateRegistry patchStateRegistry;
     private final WorldExpansionService worldExpansionService;
+    private final GenerationMetrics metrics;
+    private final TickProfiler profiler;
     private final int patchWidth;
     private final int patchLength;
     private final int pregenRadiusPatches;
     private final long timeoutMillis;
     private final Map<UUID, PendingTeleport> pendingTeleports;
     private final Set<UUID> bypassOnce;
-    private int taskId;
+    private ScheduledTask task;
 
     public TeleportSafetyListener(
             JavaPlugin plugin,
             World targetWorld,
             PatchStateRegistry patchStateRegistry,
             WorldExpansionService worldExpansionService,
+            GenerationMetrics metrics,
+            TickProfiler profiler,
             int patchWidth,
             int patchLength,
             int pregenRadiusPatches,
@@ -48,26 +54,28 @@ public final class TeleportSafetyListener implements Listener {
         this.targetWorld = targetWorld;
         this.patchStateRegistry = patchStateRegistry;
         this.worldExpansionService = worldExpansionService;
+        this.metrics = metrics;
+        this.profiler = profiler;
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.pregenRadiusPatches = Math.max(0, pregenRadiusPatches);
         this.timeoutMillis = Math.max(1, timeoutSeconds) * 1000L;
-        this.pendingTeleports = new HashMap<>();
-        this.bypassOnce = new HashSet<>();
-        this.taskId = -1;
+        this.pendingTeleports = new ConcurrentHashMap<>();
+        this.bypassOnce = ConcurrentHashMap.newKeySet();
     }
 
     public void start() {
-        if (taskId != -1) {
+        if (task != null) {
             return;
         }
-        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::tick, 1L, 1L);
+        Runnable tick = profiler.wrap("teleport-safety-tick", this::tick);
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> tick.run(), 1L, 1L);
     }
 
     public void stop() {
-        if (taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
+        if (task != null) {
+            task.cancel();
+            task = null;
         }
         pendingTeleports.clear();
         bypassOnce.clear();
@@ -75,6 +83,15 @@ public final class TeleportSafetyListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPlayerTeleport(PlayerTeleportEvent event) {
+        long startedAt = profiler.begin();
+        try {
+            handleTeleport(event);
+        } finally {
+            profiler.end("teleport-safety-listener", startedAt);
+        }
+    }
+
+    private void handleTeleport(PlayerTeleportEvent event) {
         Location to = event.getTo();
         if (to == null || to.getWorld() == null || !to.getWorld().equals(targetWorld)) {
             return;
@@ -97,6 +114,7 @@ public final class TeleportSafetyListener implements Listener {
         }
 
         event.setCancelled(true);
+        metrics.recordTeleportHeld();
         worldExpansionService.queuePatchUrgent(targetPatch);
         worldExpansionService.queueAroundUrgent(targetPatch, pregenRadiusPatches);
         pendingTeleports.put(playerId, new PendingTeleport(to.clone(), System.currentTimeMillis()));
@@ -124,10 +142,12 @@ public final class TeleportSafetyListener implements Listener {
             );
 
             if (patchStateRegistry.getStatus(targetPatch) == PatchStatus.DONE) {
-                bypassOnce.add(player.getUniqueId());
-                player.teleport(pending.target);
-                player.sendMessage("Destination is ready.");
                 iterator.remove();
+                player.getScheduler().run(plugin, ignored -> {
+                    bypassOnce.add(player.getUniqueId());
+                    player.teleportAsync(pending.target);
+                    player.sendMessage("Destination is ready.");
+                }, null);
                 continue;
             }
 
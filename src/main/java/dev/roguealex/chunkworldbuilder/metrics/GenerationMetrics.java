@@ -0,0 +1,177 @@
+package dev.roguealex.chunkworldbuilder.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+public final class GenerationMetrics {
+
+    private final LatencyHistogram queueWaitNanos;
+    private final LatencyHistogram generationNanos;
+    private final LatencyHistogram totalLatencyNanos;
+    private final LatencyHistogram ticksPerPatch;
+    private final LatencyHistogram tickNanos;
+    private final LatencyHistogram blocksPerTick;
+    private final LongAdder patchesCompleted;
+    private final LongAdder patchesFailed;
+    private final LongAdder blocksWritten;
+    private final LongAdder movementBlocked;
+    private final LongAdder teleportsHeld;
+    private volatile IntSupplier queueDepth;
+
+    public GenerationMetrics() {
+        this.queueWaitNanos = new LatencyHistogram();
+        this.generationNanos = new LatencyHistogram();
+        this.totalLatencyNanos = new LatencyHistogram();
+        this.ticksPerPatch = new LatencyHistogram();
+        this.tickNanos = new LatencyHistogram();
+        this.blocksPerTick = new LatencyHistogram();
+        this.patchesCompleted = new LongAdder();
+        this.patchesFailed = new LongAdder();
+        this.blocksWritten = new LongAdder();
+        this.movementBlocked = new LongAdder();
+        this.teleportsHeld = new LongAdder();
+        this.queueDepth = () -> 0;
+    }
+
+    public void bindQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public void recordPatchStarted(long enqueuedAtNanos, long startedAtNanos) {
+        queueWaitNanos.record(startedAtNanos - enqueuedAtNanos);
+    }
+
+    public void recordPatchCompleted(long enqueuedAtNanos, long startedAtNanos, long doneAtNanos, int ticks, long written) {
+        generationNanos.record(doneAtNanos - startedAtNanos);
+        totalLatencyNanos.record(doneAtNanos - enqueuedAtNanos);
+        ticksPerPatch.record(ticks);
+        blocksWritten.add(written);
+        patchesCompleted.increment();
+    }
+
+    public void recordPatchFailed() {
+        patchesFailed.increment();
+    }
+
+    public void recordTick(long nanos, int blocks) {
+        tickNanos.record(nanos);
+        blocksPerTick.record(blocks);
+    }
+
+    public void recordMovementBlocked() {
+        movementBlocked.increment();
+    }
+
+    public void recordTeleportHeld() {
+        teleportsHeld.increment();
+    }
+
+    public LatencyHistogram getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    public LatencyHistogram getGenerationNanos() {
+        return generationNanos;
+    }
+
+    public LatencyHistogram getTotalLatencyNanos() {
+        return totalLatencyNanos;
+    }
+
+    public LatencyHistogram getTicksPerPatch() {
+        return ticksPerPatch;
+    }
+
+    public LatencyHistogram getTickNanos() {
+        return tickNanos;
+    }
+
+    public LatencyHistogram getBlocksPerTick() {
+        return blocksPerTick;
+    }
+
+    public long getPatchesCompleted() {
+        return patchesCompleted.sum();
+    }
+
+    public long getPatchesFailed() {
+        return patchesFailed.sum();
+    }
+
+    public long getBlocksWritten() {
+        return blocksWritten.sum();
+    }
+
+    public long getMovementBlocked() {
+        return movementBlocked.sum();
+    }
+
+    public long getTeleportsHeld() {
+        return teleportsHeld.sum();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    public void reset() {
+        queueWaitNanos.reset();
+        generationNanos.reset();
+        totalLatencyNanos.reset();
+        ticksPerPatch.reset();
+        tickNanos.reset();
+        blocksPerTick.reset();
+        patchesCompleted.reset();
+        patchesFailed.reset();
+        blocksWritten.reset();
+        movementBlocked.reset();
+        teleportsHeld.reset();
+    }
+
+    public List<String> describe() {
+        return List.of(
+                "Patches: done=" + getPatchesCompleted() + " failed=" + getPatchesFailed()
+                        + " queued=" + getQueueDepth() + " blocksWritten=" + getBlocksWritten(),
+                "Queue wait: " + formatNanos(queueWaitNanos),
+                "Generation: " + formatNanos(generationNanos),
+                "Enqueue->done: " + formatNanos(totalLatencyNanos),
+                "Ticks per patch: " + formatCount(ticksPerPatch),
+                "Tick cost: " + formatNanos(tickNanos),
+                "Blocks per tick: " + formatCount(blocksPerTick),
+                "Safety: movementBlocked=" + getMovementBlocked() + " teleportsHeld=" + getTeleportsHeld()
+        );
+    }
+
+    public String summaryLine() {
+        return "Generation stats: done=" + getPatchesCompleted()
+                + ", failed=" + getPatchesFailed()
+                + ", queued=" + getQueueDepth()
+                + ", wait p50/p99=" + millis(queueWaitNanos.percentile(50)) + "/" + millis(queueWaitNanos.percentile(99))
+                + "ms, gen p50/p99=" + millis(generationNanos.percentile(50)) + "/" + millis(generationNanos.percentile(99))
+                + "ms, tick p99=" + millis(tickNanos.percentile(99))
+                + "ms, movementBlocked=" + getMovementBlocked()
+                + ", teleportsHeld=" + getTeleportsHeld();
+    }
+
+    private static String formatNanos(LatencyHistogram histogram) {
+        return "n=" + histogram.count()
+                + " p50=" + millis(histogram.percentile(50))
+                + " p90=" + millis(histogram.percentile(90))
+                + " p99=" + millis(histogram.percentile(99))
+                + " max=" + millis(histogram.max()) + "ms";
+    }
+
+    private static String formatCount(LatencyHistogram histogram) {
+        return "n=" + histogram.count()
+                + " p50=" + histogram.percentile(50)
+                + " p90=" + histogram.percentile(90)
+                + " p99=" + histogram.percentile(99)
+                + " max=" + histogram.max();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,83 @@
+package dev.roguealex.chunkworldbuilder.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public final class PrometheusTextWriter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final Map<String, StringBuilder> families;
+    private String labels;
+
+    public PrometheusTextWriter(String worldName) {
+        this.families = new LinkedHashMap<>();
+        world(worldName);
+    }
+
+    public PrometheusTextWriter world(String worldName) {
+        labels = "world=\"" + escape(worldName) + "\"";
+        return this;
+    }
+
+    public PrometheusTextWriter counter(String name, String help, long value) {
+        StringBuilder out = family(name, help, "counter");
+        sample(out, name, "", Long.toString(value));
+        return this;
+    }
+
+    public PrometheusTextWriter gauge(String name, String help, double value) {
+        StringBuilder out = family(name, help, "gauge");
+        sample(out, name, "", format(value));
+        return this;
+    }
+
+    public PrometheusTextWriter gauge(String name, String help, String labelName, String[] labelValues, long[] values) {
+        StringBuilder out = family(name, help, "gauge");
+        for (int i = 0; i < labelValues.length; i++) {
+            sample(out, name, "," + labelName + "=\"" + escape(labelValues[i]) + "\"", Long.toString(values[i]));
+        }
+        return this;
+    }
+
+    public PrometheusTextWriter summary(String name, String help, LatencyHistogram histogram, double scale) {
+        StringBuilder out = family(name, help, "summary");
+        for (double quantile : QUANTILES) {
+            sample(out, name, ",quantile=\"" + quantile + "\"", format(histogram.percentile(quantile * 100.0) * scale));
+        }
+        sample(out, name + "_sum", "", format(histogram.sum() * scale));
+        sample(out, name + "_count", "", Long.toString(histogram.count()));
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(4096);
+        for (StringBuilder family : families.values()) {
+            out.append(family);
+        }
+        return out.toString();
+    }
+
+    private StringBuilder family(String name, String help, String type) {
+        return families.computeIfAbsent(name, ignored -> new StringBuilder(256)
+                .append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n'));
+    }
+
+    private void sample(StringBuilder out, String name, String extraLabels, String value) {
+        out.append(name).append('{').append(labels).append(extraLabels).append("} ").append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1.0e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.9g", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,107 @@
+package dev.roguealex.chunkworldbuilder.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class TickProfiler {
+
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final Map<String, LatencyHistogram> samples;
+    private volatile boolean running;
+    private long startedAtNanos;
+    private int startedAtTick;
+
+    public TickProfiler() {
+        this.samples = new ConcurrentHashMap<>();
+    }
+
+    public synchronized boolean start(int currentTick) {
+        if (running) {
+            return false;
+        }
+        samples.clear();
+        startedAtNanos = System.nanoTime();
+        startedAtTick = currentTick;
+        running = true;
+        return true;
+    }
+
+    public synchronized List<String> stop(int currentTick) {
+        if (!running) {
+            return List.of();
+        }
+        running = false;
+
+        double windowMillis = (System.nanoTime() - startedAtNanos) / 1_000_000.0;
+        int ticks = Math.max(1, currentTick - startedAtTick);
+
+        List<Map.Entry<String, LatencyHistogram>> components = new ArrayList<>(samples.entrySet());
+        components.sort(Comparator.comparingLong(
+                (Map.Entry<String, LatencyHistogram> entry) -> entry.getValue().sum()
+        ).reversed());
+
+        long totalNanos = 0L;
+        for (Map.Entry<String, LatencyHistogram> entry : components) {
+            totalNanos += entry.getValue().sum();
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add("Window: " + format(windowMillis / 1000.0) + "s, " + ticks + " ticks, plugin total "
+                + millis(totalNanos) + "ms (" + millis(totalNanos / ticks) + "ms/tick)");
+        if (components.isEmpty()) {
+            lines.add("No samples recorded.");
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : components) {
+            LatencyHistogram histogram = entry.getValue();
+            lines.add(entry.getKey()
+                    + ": calls=" + histogram.count()
+                    + " total=" + millis(histogram.sum())
+                    + "ms perTick=" + millis(histogram.sum() / ticks)
+                    + "ms p50=" + millis(histogram.percentile(50))
+                    + " p95=" + millis(histogram.percentile(95))
+                    + " p99=" + millis(histogram.percentile(99))
+                    + " max=" + millis(histogram.max()) + "ms");
+        }
+        samples.clear();
+        return lines;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long begin() {
+        return running ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    public void end(String component, long startedAt) {
+        if (startedAt == NOT_SAMPLED || !running) {
+            return;
+        }
+        samples.computeIfAbsent(component, ignored -> new LatencyHistogram()).record(System.nanoTime() - startedAt);
+    }
+
+    public Runnable wrap(String component, Runnable task) {
+        return () -> {
+            long startedAt = begin();
+            try {
+                task.run();
+            } finally {
+                end(component, startedAt);
+            }
+        };
+    }
+
+    private static String millis(long nanos) {
+        return format(nanos / 1_000_000.0);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,245 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.service.DonorPatch;
+import dev.roguealex.chunkworldbuilder.service.SeededDonorAssignment;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class ChunkComposer {
+
+    private static final String AIR = "minecraft:air";
+    private static final String DEFAULT_BIOME = "minecraft:plains";
+    private static final long MISSING_CHUNK_BYTES = 64L;
+
+    private final int patchWidth;
+    private final int patchLength;
+    private final PatchArea area;
+    private final SeededDonorAssignment assignment;
+    private final List<DonorWorld> donors;
+    private final Set<PatchCoord> failedPatches;
+    private final Map<ChunkRef, DonorChunk> cache;
+    private final Map<PatchCoord, Long> assignments;
+    private final long cacheBytes;
+    private long cachedBytes;
+
+    ChunkComposer(
+            int patchWidth,
+            int patchLength,
+            PatchArea area,
+            SeededDonorAssignment assignment,
+            List<DonorWorld> donors,
+            Set<PatchCoord> failedPatches,
+            long cacheBytes
+    ) {
+        this.patchWidth = patchWidth;
+        this.patchLength = patchLength;
+        this.area = area;
+        this.assignment = assignment;
+        this.donors = donors;
+        this.failedPatches = failedPatches;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true);
+        this.assignments = new HashMap<>();
+        this.cacheBytes = cacheBytes;
+    }
+
+    Map<String, Object> compose(int chunkX, int chunkZ) throws IOException {
+        DonorChunk[] sources = new DonorChunk[256];
+        int[] donorX = new int[256];
+        int[] donorZ = new int[256];
+        int minSection = Integer.MAX_VALUE;
+        int maxSection = Integer.MIN_VALUE;
+        int dataVersion = 0;
+
+        assignments.clear();
+        for (int lz = 0; lz < 16; lz++) {
+            for (int lx = 0; lx < 16; lx++) {
+                int blockX = (chunkX << 4) + lx;
+                int blockZ = (chunkZ << 4) + lz;
+                PatchCoord target = PatchCoord.fromBlock(blockX, blockZ, patchWidth, patchLength);
+                if (!area.contains(target)) {
+                    continue;
+                }
+                long donor = assignments.computeIfAbsent(target, assignment::assign);
+                PatchCoord donorPatch = DonorPatch.coordOf(donor);
+                int column = (lz << 4) | lx;
+                donorX[column] = donorPatch.minBlockX(patchWidth) + (blockX - target.minBlockX(patchWidth));
+                donorZ[column] = donorPatch.minBlockZ(patchLength) + (blockZ - target.minBlockZ(patchLength));
+                DonorChunk source = donorChunk(DonorPatch.donorIndexOf(donor), donorX[column] >> 4, donorZ[column] >> 4);
+                if (source == null) {
+                    failedPatches.add(target);
+                    continue;
+                }
+                sources[column] = source;
+                minSection = Math.min(minSection, source.minSection);
+                maxSection = Math.max(maxSection, source.maxSection);
+                dataVersion = Math.max(dataVersion, source.dataVersion);
+            }
+        }
+        if (dataVersion == 0) {
+            return null;
+        }
+
+        List<Object> sections = new ArrayList<>(maxSection - minSection + 1);
+        for (int sectionY = minSection; sectionY <= maxSection; sectionY++) {
+            sections.add(composeSection(sectionY, sources, donorX, donorZ));
+        }
+
+        List<Object> blockEntities = new ArrayList<>();
+        for (int column = 0; column < 256; column++) {
+            DonorChunk source = sources[column];
+            if (source == null) {
+                continue;
+            }
+            List<Map<String, Object>> entities = source.blockEntitiesByColumn.get(
+                    DonorChunk.column(donorX[column], donorZ[column])
+            );
+            if (entities == null) {
+                continue;
+            }
+            int offsetX = (chunkX << 4) + (column & 15) - donorX[column];
+            int offsetZ = (chunkZ << 4) + (column >>> 4) - donorZ[column];
+            for (Map<String, Object> entity : entities) {
+                Map<String, Object> copy = new LinkedHashMap<>(entity);
+                copy.put("x", Nbt.intValue(entity, "x", 0) + offsetX);
+                copy.put("z", Nbt.intValue(entity, "z", 0) + offsetZ);
+                blockEntities.add(copy);
+            }
+        }
+
+        Map<String, Object> structures = new LinkedHashMap<>();
+        structures.put("References", new LinkedHashMap<String, Object>());
+        structures.put("starts", new LinkedHashMap<String, Object>());
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("DataVersion", dataVersion);
+        root.put("xPos", chunkX);
+        root.put("zPos", chunkZ);
+        root.put("yPos", minSection);
+        root.put("Status", "minecraft:full");
+        root.put("LastUpdate", 0L);
+        root.put("InhabitedTime", 0L);
+        root.put("isLightOn", (byte) 0);
+        root.put("sections", new NbtList(Nbt.TAG_COMPOUND, sections));
+        root.put("block_entities", new NbtList(Nbt.TAG_COMPOUND, blockEntities));
+        root.put("block_ticks", NbtList.empty());
+        root.put("fluid_ticks", NbtList.empty());
+        root.put("structures", structures);
+        return root;
+    }
+
+    private Map<String, Object> composeSection(int sectionY, DonorChunk[] sources, int[] donorX, int[] donorZ) {
+        int[] states = new int[DonorChunk.BLOCKS_PER_SECTION];
+        List<Object> palette = new ArrayList<>();
+        Map<String, Integer> paletteIndex = new HashMap<>();
+        Map<String, Object> air = new LinkedHashMap<>();
+        air.put("Name", AIR);
+        palette.add(air);
+        paletteIndex.put(AIR, 0);
+
+        int[] biomes = new int[DonorChunk.BIOMES_PER_SECTION];
+        List<Object> biomePalette = new ArrayList<>();
+        Map<Object, Integer> biomeIndex = new HashMap<>();
+        biomePalette.add(DEFAULT_BIOME);
+        biomeIndex.put(DEFAULT_BIOME, 0);
+
+        Map<DonorChunk.Section, int[]> remaps = new IdentityHashMap<>();
+        for (int column = 0; column < 256; column++) {
+            DonorChunk source = sources[column];
+            DonorChunk.Section section = source == null ? null : source.sections.get(sectionY);
+            if (section == null) {
+                continue;
+            }
+            int[] remap = remaps.computeIfAbsent(section, ignored -> {
+                int[] created = new int[section.paletteKeys.length];
+                Arrays.fill(created, -1);
+                return created;
+            });
+
+            int lx = column & 15;
+            int lz = column >>> 4;
+            int dlx = donorX[column] & 15;
+            int dlz = donorZ[column] & 15;
+            for (int y = 0; y < 16; y++) {
+                int donorState = section.state((y << 8) | (dlz << 4) | dlx);
+                int mapped = remap[donorState];
+                if (mapped < 0) {
+                    String key = section.paletteKeys[donorState];
+                    Integer existing = paletteIndex.get(key);
+                    if (existing == null) {
+                        existing = palette.size();
+                        palette.add(section.palette.get(donorState));
+                        paletteIndex.put(key, existing);
+                    }
+                    mapped = existing;
+                    remap[donorState] = mapped;
+                }
+                states[(y << 8) | (lz << 4) | lx] = mapped;
+            }
+
+            if ((lx & 3) == 0 && (lz & 3) == 0 && section.biomes != null) {
+                for (int by = 0; by < 4; by++) {
+                    Object biome = section.biomePalette.get(section.biomes[(by << 4) | ((dlz >> 2) << 2) | (dlx >> 2)]);
+                    Integer index = biomeIndex.get(biome);
+                    if (index == null) {
+                        index = biomePalette.size();
+                        biomePalette.add(biome);
+                        biomeIndex.put(biome, index);
+                    }
+                    biomes[(by << 4) | ((lz >> 2) << 2) | (lx >> 2)] = index;
+                }
+            }
+        }
+
+        Map<String, Object> blockStates = new LinkedHashMap<>();
+        blockStates.put("palette", new NbtList(Nbt.TAG_COMPOUND, palette));
+        if (palette.size() > 1) {
+            blockStates.put("data", PackedArray.pack(states, Math.max(4, PackedArray.bitsFor(palette.size()))));
+        }
+        Map<String, Object> biomeContainer = new LinkedHashMap<>();
+        biomeContainer.put("palette", new NbtList(Nbt.TAG_STRING, biomePalette));
+        if (biomePalette.size() > 1) {
+            biomeContainer.put("data", PackedArray.pack(biomes, PackedArray.bitsFor(biomePalette.size())));
+        }
+
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("Y", (byte) sectionY);
+        section.put("block_states", blockStates);
+        section.put("biomes", biomeContainer);
+        return section;
+    }
+
+    private DonorChunk donorChunk(int donorIndex, int chunkX, int chunkZ) throws IOException {
+        if (donorIndex >= donors.size()) {
+            return null;
+        }
+        ChunkRef ref = new ChunkRef(donorIndex, chunkX, chunkZ);
+        if (cache.containsKey(ref)) {
+            return cache.get(ref);
+        }
+        DonorChunk chunk = donors.get(donorIndex).readChunk(chunkX, chunkZ);
+        cache.put(ref, chunk);
+        cachedBytes += bytesOf(chunk);
+        Iterator<DonorChunk> eldest = cache.values().iterator();
+        while (cachedBytes > cacheBytes && cache.size() > 1) {
+            cachedBytes -= bytesOf(eldest.next());
+            eldest.remove();
+        }
+        return chunk;
+    }
+
+    private static long bytesOf(DonorChunk chunk) {
+        return chunk == null ? MISSING_CHUNK_BYTES : chunk.estimatedBytes;
+    }
+
+    private record ChunkRef(int donor, int chunkX, int chunkZ) {
+    }
+}
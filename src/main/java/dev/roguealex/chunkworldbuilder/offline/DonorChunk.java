@@ -0,0 +1,158 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+final class DonorChunk {
+
+    static final int BLOCKS_PER_SECTION = 16 * 16 * 16;
+    static final int BIOMES_PER_SECTION = 4 * 4 * 4;
+
+    final int dataVersion;
+    final Map<Integer, Section> sections;
+    final Map<Integer, List<Map<String, Object>>> blockEntitiesByColumn;
+    final int minSection;
+    final int maxSection;
+    final long estimatedBytes;
+
+    private DonorChunk(
+            int dataVersion,
+            TreeMap<Integer, Section> sections,
+            Map<Integer, List<Map<String, Object>>> blockEntitiesByColumn
+    ) {
+        this.dataVersion = dataVersion;
+        this.sections = sections;
+        this.blockEntitiesByColumn = blockEntitiesByColumn;
+        this.minSection = sections.isEmpty() ? 0 : sections.firstKey();
+        this.maxSection = sections.isEmpty() ? -1 : sections.lastKey();
+        long bytes = 256L + blockEntitiesByColumn.size() * 256L;
+        for (Section section : sections.values()) {
+            bytes += section.estimatedBytes();
+        }
+        this.estimatedBytes = bytes;
+    }
+
+    static DonorChunk decode(Map<String, Object> root) {
+        Object status = root.get("Status");
+        if (!(status instanceof String value) || !value.endsWith("full")) {
+            return null;
+        }
+
+        TreeMap<Integer, Section> sections = new TreeMap<>();
+        NbtList sectionList = Nbt.list(root, "sections");
+        if (sectionList != null) {
+            for (Object entry : sectionList.values()) {
+                if (entry instanceof Map<?, ?>) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> section = (Map<String, Object>) entry;
+                    Section decoded = Section.decode(section);
+                    if (decoded != null) {
+                        sections.put(Nbt.intValue(section, "Y", 0), decoded);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Map<String, Object>>> blockEntities = new HashMap<>();
+        NbtList blockEntityList = Nbt.list(root, "block_entities");
+        if (blockEntityList != null) {
+            for (Object entry : blockEntityList.values()) {
+                if (entry instanceof Map<?, ?>) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> blockEntity = (Map<String, Object>) entry;
+                    int column = column(Nbt.intValue(blockEntity, "x", 0), Nbt.intValue(blockEntity, "z", 0));
+                    blockEntities.computeIfAbsent(column, ignored -> new ArrayList<>(1)).add(blockEntity);
+                }
+            }
+        }
+        return new DonorChunk(Nbt.intValue(root, "DataVersion", 0), sections, blockEntities);
+    }
+
+    static int column(int blockX, int blockZ) {
+        return ((blockZ & 15) << 4) | (blockX & 15);
+    }
+
+    static final class Section {
+
+        final List<Object> palette;
+        final String[] paletteKeys;
+        final List<Object> biomePalette;
+        final int[] biomes;
+        private final long[] stateData;
+        private final int stateBits;
+
+        private Section(
+                List<Object> palette,
+                String[] paletteKeys,
+                long[] stateData,
+                int stateBits,
+                List<Object> biomePalette,
+                int[] biomes
+        ) {
+            this.palette = palette;
+            this.paletteKeys = paletteKeys;
+            this.stateData = stateData;
+            this.stateBits = stateBits;
+            this.biomePalette = biomePalette;
+            this.biomes = biomes;
+        }
+
+        int state(int index) {
+            return PackedArray.get(stateData, stateBits, index);
+        }
+
+        long estimatedBytes() {
+            return 64L + (stateData == null ? 0L : stateData.length * 8L) + paletteKeys.length * 160L
+                    + (biomes == null ? 0L : BIOMES_PER_SECTION * 4L);
+        }
+
+        static Section decode(Map<String, Object> section) {
+            Map<String, Object> blockStates = Nbt.compound(section, "block_states");
+            NbtList palette = blockStates == null ? null : Nbt.list(blockStates, "palette");
+            if (palette == null || palette.values().isEmpty()) {
+                return null;
+            }
+            String[] keys = new String[palette.values().size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = stateKey(palette.values().get(i));
+            }
+            long[] stateData = keys.length > 1 ? (long[]) blockStates.get("data") : null;
+
+            Map<String, Object> biomeContainer = Nbt.compound(section, "biomes");
+            NbtList biomePalette = biomeContainer == null ? null : Nbt.list(biomeContainer, "palette");
+            List<Object> biomeValues = biomePalette == null ? List.of() : biomePalette.values();
+            int[] biomes = biomeValues.isEmpty()
+                    ? null
+                    : PackedArray.unpack(
+                            (long[]) biomeContainer.get("data"),
+                            PackedArray.bitsFor(biomeValues.size()),
+                            BIOMES_PER_SECTION
+                    );
+            return new Section(
+                    palette.values(),
+                    keys,
+                    stateData,
+                    Math.max(4, PackedArray.bitsFor(keys.length)),
+                    biomeValues,
+                    biomes
+            );
+        }
+
+        @SuppressWarnings("unchecked")
+        private static String stateKey(Object paletteEntry) {
+            if (!(paletteEntry instanceof Map<?, ?> map)) {
+                return String.valueOf(paletteEntry);
+            }
+            Map<String, Object> entry = (Map<String, Object>) map;
+            Object name = entry.get("Name");
+            Map<String, Object> properties = Nbt.compound(entry, "Properties");
+            if (properties == null || properties.isEmpty()) {
+                return String.valueOf(name);
+            }
+            return name + new TreeMap<>(properties).toString();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class DonorWorld implements AutoCloseable {
+
+    private final Path regionDirectory;
+    private final Map<Long, RegionHandle> regions;
+
+    DonorWorld(Path worldDirectory) {
+        Path nested = worldDirectory.resolve("region");
+        this.regionDirectory = Files.isDirectory(nested) ? nested : worldDirectory;
+        this.regions = new ConcurrentHashMap<>();
+    }
+
+    Path getRegionDirectory() {
+        return regionDirectory;
+    }
+
+    DonorChunk readChunk(int chunkX, int chunkZ) throws IOException {
+        int regionX = chunkX >> 5;
+        int regionZ = chunkZ >> 5;
+        RegionHandle handle = regions.computeIfAbsent(ChunkKey.of(regionX, regionZ), ignored -> new RegionHandle());
+        RegionFile region = handle.open(regionDirectory.resolve(RegionFile.fileName(regionX, regionZ)), regionX, regionZ);
+        if (region == null) {
+            return null;
+        }
+        Map<String, Object> root = region.readChunk(chunkX & 31, chunkZ & 31);
+        return root == null ? null : DonorChunk.decode(root);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (RegionHandle handle : regions.values()) {
+            handle.close();
+        }
+    }
+
+    private static final class RegionHandle {
+
+        private boolean opened;
+        private RegionFile region;
+
+        private synchronized RegionFile open(Path file, int regionX, int regionZ) throws IOException {
+            if (!opened) {
+                opened = true;
+                region = Files.isRegularFile(file) ? RegionFile.open(file, regionX, regionZ) : null;
+            }
+            return region;
+        }
+
+        private synchronized void close() throws IOException {
+            if (region != null) {
+                region.close();
+            }
+        }
+    }
+}
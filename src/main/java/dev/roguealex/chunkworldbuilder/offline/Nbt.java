@@ -0,0 +1,197 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class Nbt {
+
+    public static final int TAG_END = 0;
+    public static final int TAG_BYTE = 1;
+    public static final int TAG_SHORT = 2;
+    public static final int TAG_INT = 3;
+    public static final int TAG_LONG = 4;
+    public static final int TAG_FLOAT = 5;
+    public static final int TAG_DOUBLE = 6;
+    public static final int TAG_BYTE_ARRAY = 7;
+    public static final int TAG_STRING = 8;
+    public static final int TAG_LIST = 9;
+    public static final int TAG_COMPOUND = 10;
+    public static final int TAG_INT_ARRAY = 11;
+    public static final int TAG_LONG_ARRAY = 12;
+
+    private Nbt() {
+    }
+
+    public static Map<String, Object> readRoot(DataInput input) throws IOException {
+        int type = input.readUnsignedByte();
+        if (type != TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound: " + type);
+        }
+        input.readUTF();
+        return readCompound(input);
+    }
+
+    public static void writeRoot(DataOutput output, Map<String, Object> root) throws IOException {
+        output.writeByte(TAG_COMPOUND);
+        output.writeUTF("");
+        writeCompound(output, root);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> compound(Map<String, Object> parent, String key) {
+        Object value = parent.get(key);
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+    }
+
+    public static NbtList list(Map<String, Object> parent, String key) {
+        Object value = parent.get(key);
+        return value instanceof NbtList list ? list : null;
+    }
+
+    public static int intValue(Map<String, Object> parent, String key, int fallback) {
+        Object value = parent.get(key);
+        return value instanceof Number number ? number.intValue() : fallback;
+    }
+
+    private static Map<String, Object> readCompound(DataInput input) throws IOException {
+        Map<String, Object> compound = new LinkedHashMap<>();
+        while (true) {
+            int type = input.readUnsignedByte();
+            if (type == TAG_END) {
+                return compound;
+            }
+            String name = input.readUTF();
+            compound.put(name, readPayload(input, type));
+        }
+    }
+
+    private static Object readPayload(DataInput input, int type) throws IOException {
+        return switch (type) {
+            case TAG_BYTE -> input.readByte();
+            case TAG_SHORT -> input.readShort();
+            case TAG_INT -> input.readInt();
+            case TAG_LONG -> input.readLong();
+            case TAG_FLOAT -> input.readFloat();
+            case TAG_DOUBLE -> input.readDouble();
+            case TAG_BYTE_ARRAY -> {
+                byte[] value = new byte[input.readInt()];
+                input.readFully(value);
+                yield value;
+            }
+            case TAG_STRING -> input.readUTF();
+            case TAG_LIST -> {
+                int elementType = input.readUnsignedByte();
+                int length = input.readInt();
+                List<Object> values = new ArrayList<>(Math.max(0, length));
+                for (int i = 0; i < length; i++) {
+                    values.add(readPayload(input, elementType));
+                }
+                yield new NbtList(elementType, values);
+            }
+            case TAG_COMPOUND -> readCompound(input);
+            case TAG_INT_ARRAY -> {
+                int[] value = new int[input.readInt()];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = input.readInt();
+                }
+                yield value;
+            }
+            case TAG_LONG_ARRAY -> {
+                long[] value = new long[input.readInt()];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = input.readLong();
+                }
+                yield value;
+            }
+            default -> throw new IOException("Unknown NBT tag type: " + type);
+        };
+    }
+
+    private static void writeCompound(DataOutput output, Map<String, Object> compound) throws IOException {
+        for (Map.Entry<String, Object> entry : compound.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            output.writeByte(typeOf(entry.getValue()));
+            output.writeUTF(entry.getKey());
+            writePayload(output, entry.getValue());
+        }
+        output.writeByte(TAG_END);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writePayload(DataOutput output, Object value) throws IOException {
+        if (value instanceof Byte v) {
+            output.writeByte(v);
+        } else if (value instanceof Short v) {
+            output.writeShort(v);
+        } else if (value instanceof Integer v) {
+            output.writeInt(v);
+        } else if (value instanceof Long v) {
+            output.writeLong(v);
+        } else if (value instanceof Float v) {
+            output.writeFloat(v);
+        } else if (value instanceof Double v) {
+            output.writeDouble(v);
+        } else if (value instanceof byte[] v) {
+            output.writeInt(v.length);
+            output.write(v);
+        } else if (value instanceof String v) {
+            output.writeUTF(v);
+        } else if (value instanceof NbtList v) {
+            output.writeByte(v.values().isEmpty() ? TAG_END : v.elementType());
+            output.writeInt(v.values().size());
+            for (Object element : v.values()) {
+                writePayload(output, element);
+            }
+        } else if (value instanceof Map<?, ?> v) {
+            writeCompound(output, (Map<String, Object>) v);
+        } else if (value instanceof int[] v) {
+            output.writeInt(v.length);
+            for (int element : v) {
+                output.writeInt(element);
+            }
+        } else if (value instanceof long[] v) {
+            output.writeInt(v.length);
+            for (long element : v) {
+                output.writeLong(element);
+            }
+        } else {
+            throw new IOException("Unsupported NBT value: " + value.getClass().getName());
+        }
+    }
+
+    private static int typeOf(Object value) throws IOException {
+        if (value instanceof Byte) {
+            return TAG_BYTE;
+        } else if (value instanceof Short) {
+            return TAG_SHORT;
+        } else if (value instanceof Integer) {
+            return TAG_INT;
+        } else if (value instanceof Long) {
+            return TAG_LONG;
+        } else if (value instanceof Float) {
+            return TAG_FLOAT;
+        } else if (value instanceof Double) {
+            return TAG_DOUBLE;
+        } else if (value instanceof byte[]) {
+            return TAG_BYTE_ARRAY;
+        } else if (value instanceof String) {
+            return TAG_STRING;
+        } else if (value instanceof NbtList) {
+            return TAG_LIST;
+        } else if (value instanceof Map<?, ?>) {
+            return TAG_COMPOUND;
+        } else if (value instanceof int[]) {
+            return TAG_INT_ARRAY;
+        } else if (value instanceof long[]) {
+            return TAG_LONG_ARRAY;
+        }
+        throw new IOException("Unsupported NBT value: " + value.getClass().getName());
+    }
+}
@@ -0,0 +1,10 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import java.util.List;
+
+public record NbtList(int elementType, List<Object> values) {
+
+    public static NbtList empty() {
+        return new NbtList(Nbt.TAG_END, List.of());
+    }
+}
@@ -0,0 +1,329 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import dev.roguealex.chunkworldbuilder.patch.DonorRange;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.service.SeededDonorAssignment;
+import dev.roguealex.chunkworldbuilder.storage.PatchStorageWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public final class OfflineWorldBuilder {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: cwb-offline --world <dir> --seed <long> --donor <dir>[=weight][@range] [--donor ...]",
+            "                   [--radius <patches> | --area <minX>,<minZ>,<maxX>,<maxZ>]",
+            "                   [--patch <width>x<length>] [--donor-range <minX>,<maxX>,<minZ>,<maxZ>]",
+            "                   [--world-name <name>] [--plugin-data <dir>] [--threads <n>]",
+            "",
+            "Donors are listed in the same order as worlds.donors (or the single worlds.donor).",
+            "A donor's @minX,maxX,minZ,maxZ range must match its donor-range-* keys; donors without one",
+            "use --donor-range (generation.donor-range-*).",
+            "The server must run with generation.donor-assignment: SEEDED and donor-assignment-seed set to --seed."
+    );
+    private static final long PROGRESS_INTERVAL_MILLIS = 5000L;
+    private static final long MIN_CACHE_BYTES = 4L << 20;
+    private static final long MAX_CACHE_BYTES = 64L << 20;
+
+    private final Options options;
+
+    private OfflineWorldBuilder(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            new OfflineWorldBuilder(options).run();
+        } catch (IOException | ExecutionException ex) {
+            Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+            System.err.println("Offline build failed: " + cause.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Offline build interrupted.");
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException, ExecutionException, InterruptedException {
+        Path regionDirectory = options.world().resolve("region");
+        Files.createDirectories(regionDirectory);
+        try (Stream<Path> existing = Files.list(regionDirectory)) {
+            if (existing.anyMatch(path -> path.getFileName().toString().endsWith(".mca"))) {
+                throw new IOException("Refusing to overwrite existing region files in " + regionDirectory);
+            }
+        }
+
+        int patchWidth = options.patchWidth();
+        int patchLength = options.patchLength();
+        double[] weights = new double[options.donors().size()];
+        List<DonorRange> ranges = new ArrayList<>();
+        List<DonorWorld> donors = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            DonorOption donor = options.donors().get(i);
+            weights[i] = donor.weight();
+            int[] range = donor.range() != null ? donor.range() : options.donorRange();
+            ranges.add(DonorRange.ofBlocks(
+                    donor.path().toString(),
+                    patchWidth,
+                    patchLength,
+                    range[0],
+                    range[1],
+                    range[2],
+                    range[3]
+            ));
+            donors.add(new DonorWorld(donor.path()));
+        }
+        SeededDonorAssignment assignment = new SeededDonorAssignment(options.seed(), weights, ranges);
+
+        PatchArea area = options.area();
+        int minChunkX = Math.floorDiv(area.minPatchX() * patchWidth, 16);
+        int maxChunkX = Math.floorDiv((area.maxPatchX() + 1) * patchWidth - 1, 16);
+        int minChunkZ = Math.floorDiv(area.minPatchZ() * patchLength, 16);
+        int maxChunkZ = Math.floorDiv((area.maxPatchZ() + 1) * patchLength - 1, 16);
+
+        List<long[]> regions = new ArrayList<>();
+        for (int regionX = minChunkX >> 5; regionX <= maxChunkX >> 5; regionX++) {
+            for (int regionZ = minChunkZ >> 5; regionZ <= maxChunkZ >> 5; regionZ++) {
+                regions.add(new long[]{regionX, regionZ});
+            }
+        }
+
+        System.out.println("Composing " + area.patchCount() + " patches (" + patchWidth + "x" + patchLength + ") into "
+                + regions.size() + " region files with " + options.threads() + " threads.");
+
+        PatchStorageWriter storage = new PatchStorageWriter(
+                options.pluginData().toFile(),
+                options.worldName(),
+                patchWidth,
+                patchLength
+        );
+        long cacheBytes = Math.max(MIN_CACHE_BYTES, Math.min(MAX_CACHE_BYTES,
+                Runtime.getRuntime().maxMemory() / 4L / options.threads()));
+        Set<PatchCoord> failedPatches = ConcurrentHashMap.newKeySet();
+        AtomicInteger completedRegions = new AtomicInteger();
+        AtomicInteger writtenChunks = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(options.threads());
+        try {
+            List<Future<?>> futures = new ArrayList<>(regions.size());
+            for (long[] region : regions) {
+                int regionX = (int) region[0];
+                int regionZ = (int) region[1];
+                futures.add(pool.submit(() -> {
+                    ChunkComposer composer = new ChunkComposer(
+                            patchWidth,
+                            patchLength,
+                            area,
+                            assignment,
+                            donors,
+                            failedPatches,
+                            cacheBytes
+                    );
+                    byte[][] chunks = new byte[RegionFile.CHUNKS][];
+                    boolean any = false;
+                    for (int localZ = 0; localZ < 32; localZ++) {
+                        int chunkZ = (regionZ << 5) | localZ;
+                        if (chunkZ < minChunkZ || chunkZ > maxChunkZ) {
+                            continue;
+                        }
+                        for (int localX = 0; localX < 32; localX++) {
+                            int chunkX = (regionX << 5) | localX;
+                            if (chunkX < minChunkX || chunkX > maxChunkX) {
+                                continue;
+                            }
+                            Map<String, Object> chunk = composer.compose(chunkX, chunkZ);
+                            if (chunk != null) {
+                                chunks[(localZ << 5) | localX] = RegionFile.compress(chunk);
+                                writtenChunks.incrementAndGet();
+                                any = true;
+                            }
+                        }
+                    }
+                    if (any) {
+                        RegionFile.write(regionDirectory.resolve(RegionFile.fileName(regionX, regionZ)), regionX, regionZ, chunks);
+                    }
+                    completedRegions.incrementAndGet();
+                    return null;
+                }));
+            }
+
+            pool.shutdown();
+            while (!pool.awaitTermination(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                reportProgress(completedRegions.get(), regions.size(), writtenChunks.get(), startedAt);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+            for (DonorWorld donor : donors) {
+                donor.close();
+            }
+        }
+
+        long generated = 0L;
+        try (storage) {
+            for (int patchX = area.minPatchX(); patchX <= area.maxPatchX(); patchX++) {
+                for (int patchZ = area.minPatchZ(); patchZ <= area.maxPatchZ(); patchZ++) {
+                    PatchCoord patch = new PatchCoord(patchX, patchZ);
+                    if (!failedPatches.contains(patch)) {
+                        storage.markGenerated(patch, assignment.assign(patch));
+                        generated++;
+                    }
+                }
+            }
+            System.out.println("Wrote patch storage to " + storage.getDirectory());
+        }
+
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        System.out.println(String.format(Locale.ROOT,
+                "Done in %.1fs: %d chunks, %d patches marked generated, %d patches left for the server"
+                        + " (missing or incomplete donor chunks).",
+                seconds, writtenChunks.get(), generated, failedPatches.size()));
+    }
+
+    private static void reportProgress(int completed, int total, int chunks, long startedAt) {
+        double elapsed = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        double rate = completed / Math.max(elapsed, 0.001);
+        long eta = rate > 0.0 ? Math.round((total - completed) / rate) : -1L;
+        System.out.println(String.format(Locale.ROOT, "Regions %d/%d (%.1f%%), %d chunks, %.1f chunks/s, ETA %s",
+                completed, total, completed * 100.0 / total, chunks, chunks / Math.max(elapsed, 0.001),
+                eta < 0 ? "?" : eta + "s"));
+    }
+
+    private record DonorOption(Path path, double weight, int[] range) {
+    }
+
+    private record Options(
+            Path world,
+            String worldName,
+            Path pluginData,
+            List<DonorOption> donors,
+            long seed,
+            PatchArea area,
+            int patchWidth,
+            int patchLength,
+            int[] donorRange,
+            int threads
+    ) {
+        static Options parse(String[] args) {
+            Path world = null;
+            String worldName = null;
+            Path pluginData = null;
+            List<DonorOption> donors = new ArrayList<>();
+            Long seed = null;
+            PatchArea area = null;
+            int patchWidth = 24;
+            int patchLength = 24;
+            int[] donorRange = {-5000, 5000, -5000, 5000};
+            int threads = Runtime.getRuntime().availableProcessors();
+
+            for (int i = 0; i < args.length; i++) {
+                String flag = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + flag);
+                }
+                String value = args[++i];
+                try {
+                    switch (flag) {
+                        case "--world" -> world = Path.of(value);
+                        case "--world-name" -> worldName = value;
+                        case "--plugin-data" -> pluginData = Path.of(value);
+                        case "--seed" -> seed = Long.parseLong(value);
+                        case "--threads" -> threads = Math.max(1, Integer.parseInt(value));
+                        case "--radius" -> area = PatchArea.radius(Integer.parseInt(value));
+                        case "--area" -> {
+                            int[] bounds = ints(value, 4);
+                            area = new PatchArea(bounds[0], bounds[1], bounds[2], bounds[3]);
+                        }
+                        case "--patch" -> {
+                            String[] parts = value.toLowerCase(Locale.ROOT).split("x", -1);
+                            if (parts.length != 2) {
+                                throw new IllegalArgumentException("--patch expects <width>x<length>");
+                            }
+                            patchWidth = Integer.parseInt(parts[0]);
+                            patchLength = Integer.parseInt(parts[1]);
+                        }
+                        case "--donor-range" -> donorRange = ints(value, 4);
+                        case "--donor" -> donors.add(parseDonor(value));
+                        default -> throw new IllegalArgumentException("Unknown option: " + flag);
+                    }
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Invalid value for " + flag + ": " + value);
+                }
+            }
+
+            if (world == null || seed == null || donors.isEmpty()) {
+                throw new IllegalArgumentException("--world, --seed and at least one --donor are required.");
+            }
+            if (patchWidth <= 0 || patchLength <= 0) {
+                throw new IllegalArgumentException("Patch size must be > 0");
+            }
+            if (area == null) {
+                area = PatchArea.radius(16);
+            }
+            Path absoluteWorld = world.toAbsolutePath().normalize();
+            if (worldName == null) {
+                worldName = absoluteWorld.getFileName().toString();
+            }
+            if (pluginData == null) {
+                Path serverRoot = absoluteWorld.getParent() != null ? absoluteWorld.getParent() : absoluteWorld;
+                pluginData = serverRoot.resolve("plugins").resolve("ChunkWorldBuilder");
+            }
+            return new Options(absoluteWorld, worldName, pluginData, List.copyOf(donors), seed, area,
+                    patchWidth, patchLength, donorRange, threads);
+        }
+
+        private static DonorOption parseDonor(String value) {
+            String rest = value;
+            int[] range = null;
+            int rangeSeparator = rest.lastIndexOf('@');
+            if (rangeSeparator >= 0) {
+                range = ints(rest.substring(rangeSeparator + 1), 4);
+                rest = rest.substring(0, rangeSeparator);
+            }
+            int separator = rest.lastIndexOf('=');
+            double weight = separator < 0 ? 1.0 : Double.parseDouble(rest.substring(separator + 1));
+            if (!(weight > 0.0)) {
+                throw new IllegalArgumentException("Donor weight must be > 0: " + value);
+            }
+            return new DonorOption(Path.of(separator < 0 ? rest : rest.substring(0, separator)), weight, range);
+        }
+
+        private static int[] ints(String value, int count) {
+            String[] parts = value.split(",", -1);
+            if (parts.length != count) {
+                throw new IllegalArgumentException("Expected " + count + " comma-separated numbers: " + value);
+            }
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) {
+                result[i] = Integer.parseInt(parts[i].trim());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+final class PackedArray {
+
+    private PackedArray() {
+    }
+
+    static int[] unpack(long[] data, int bits, int count) {
+        int[] values = new int[count];
+        if (data == null || bits == 0) {
+            return values;
+        }
+        int perLong = Long.SIZE / bits;
+        long mask = (1L << bits) - 1L;
+        for (int i = 0; i < count; i++) {
+            int word = i / perLong;
+            if (word >= data.length) {
+                break;
+            }
+            values[i] = (int) ((data[word] >>> ((i % perLong) * bits)) & mask);
+        }
+        return values;
+    }
+
+    static int get(long[] data, int bits, int index) {
+        if (data == null || bits == 0) {
+            return 0;
+        }
+        int perLong = Long.SIZE / bits;
+        int word = index / perLong;
+        if (word >= data.length) {
+            return 0;
+        }
+        return (int) ((data[word] >>> ((index % perLong) * bits)) & ((1L << bits) - 1L));
+    }
+
+    static long[] pack(int[] values, int bits) {
+        int perLong = Long.SIZE / bits;
+        long[] data = new long[(values.length + perLong - 1) / perLong];
+        for (int i = 0; i < values.length; i++) {
+            data[i / perLong] |= (long) values[i] << ((i % perLong) * bits);
+        }
+        return data;
+    }
+
+    static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+}
@@ -0,0 +1,26 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+
+public record PatchArea(int minPatchX, int minPatchZ, int maxPatchX, int maxPatchZ) {
+
+    public PatchArea {
+        if (minPatchX > maxPatchX || minPatchZ > maxPatchZ) {
+            throw new IllegalArgumentException("Empty patch area: " + minPatchX + "," + minPatchZ
+                    + " .. " + maxPatchX + "," + maxPatchZ);
+        }
+    }
+
+    public static PatchArea radius(int radius) {
+        return new PatchArea(-radius, -radius, radius, radius);
+    }
+
+    public boolean contains(PatchCoord patch) {
+        return patch.patchX() >= minPatchX && patch.patchX() <= maxPatchX
+                && patch.patchZ() >= minPatchZ && patch.patchZ() <= maxPatchZ;
+    }
+
+    public long patchCount() {
+        return (long) (maxPatchX - minPatchX + 1) * (maxPatchZ - minPatchZ + 1);
+    }
+}
@@ -0,0 +1,179 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public final class RegionFile implements AutoCloseable {
+
+    public static final int CHUNKS = 32 * 32;
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int MAX_SECTORS = 255;
+    private static final int COMPRESSION_GZIP = 1;
+    private static final int COMPRESSION_ZLIB = 2;
+    private static final int COMPRESSION_NONE = 3;
+    private static final int COMPRESSION_EXTERNAL = 0x80;
+
+    private final Path file;
+    private final int regionX;
+    private final int regionZ;
+    private final FileChannel channel;
+    private final int[] locations;
+
+    private RegionFile(Path file, int regionX, int regionZ, FileChannel channel, int[] locations) {
+        this.file = file;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.channel = channel;
+        this.locations = locations;
+    }
+
+    public static RegionFile open(Path file, int regionX, int regionZ) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(CHUNKS * Integer.BYTES);
+            readFully(channel, header, 0L);
+            header.flip();
+            int[] locations = new int[CHUNKS];
+            for (int i = 0; i < CHUNKS; i++) {
+                locations[i] = header.getInt();
+            }
+            return new RegionFile(file, regionX, regionZ, channel, locations);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public static String fileName(int regionX, int regionZ) {
+        return "r." + regionX + "." + regionZ + ".mca";
+    }
+
+    public Map<String, Object> readChunk(int localX, int localZ) throws IOException {
+        int location = locations[(localZ << 5) | localX];
+        if (location == 0) {
+            return null;
+        }
+        long offset = (long) (location >>> 8) * SECTOR_BYTES;
+        ByteBuffer header = ByteBuffer.allocate(5);
+        readFully(channel, header, offset);
+        header.flip();
+        int length = header.getInt();
+        int compression = header.get() & 0xFF;
+
+        byte[] payload;
+        if ((compression & COMPRESSION_EXTERNAL) != 0) {
+            int chunkX = (regionX << 5) | localX;
+            int chunkZ = (regionZ << 5) | localZ;
+            payload = Files.readAllBytes(file.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc"));
+            compression &= ~COMPRESSION_EXTERNAL;
+        } else {
+            if (length <= 1) {
+                return null;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length - 1);
+            readFully(channel, body, offset + 5);
+            payload = body.array();
+        }
+
+        InputStream raw = new ByteArrayInputStream(payload);
+        InputStream decompressed = switch (compression) {
+            case COMPRESSION_GZIP -> new GZIPInputStream(raw);
+            case COMPRESSION_ZLIB -> new InflaterInputStream(raw);
+            case COMPRESSION_NONE -> raw;
+            default -> throw new IOException("Unsupported chunk compression " + compression + " in " + file);
+        };
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(decompressed, 8192))) {
+            return Nbt.readRoot(input);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static byte[] compress(Map<String, Object> chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(bytes, deflater, 8192), 8192))) {
+            Nbt.writeRoot(output, chunk);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    public static void write(Path file, int regionX, int regionZ, byte[][] compressedChunks) throws IOException {
+        int timestamp = (int) (System.currentTimeMillis() / 1000L);
+        ByteBuffer header = ByteBuffer.allocate(SECTOR_BYTES * 2);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int sector = 2;
+        for (int i = 0; i < CHUNKS; i++) {
+            byte[] chunk = compressedChunks[i];
+            if (chunk == null) {
+                continue;
+            }
+            int compression = COMPRESSION_ZLIB;
+            byte[] inline = chunk;
+            if (chunk.length + 5 > MAX_SECTORS * SECTOR_BYTES) {
+                int chunkX = (regionX << 5) | (i & 31);
+                int chunkZ = (regionZ << 5) | (i >>> 5);
+                Files.write(file.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc"), chunk);
+                compression |= COMPRESSION_EXTERNAL;
+                inline = new byte[0];
+            }
+            int length = inline.length + 5;
+            int sectors = (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+            ByteBuffer entry = ByteBuffer.allocate(sectors * SECTOR_BYTES);
+            entry.putInt(inline.length + 1).put((byte) compression).put(inline);
+            body.write(entry.array());
+            header.putInt(i * Integer.BYTES, (sector << 8) | sectors);
+            header.putInt(SECTOR_BYTES + i * Integer.BYTES, timestamp);
+            sector += sectors;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            header.rewind();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            ByteBuffer data = ByteBuffer.wrap(body.toByteArray());
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of region file");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+public final class ChunkKey {
+
+    private ChunkKey() {
+    }
+
+    public static long of(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    public static int x(long key) {
+        return (int) key;
+    }
+
+    public static int z(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static long[] forPatch(PatchCoord patch, int patchWidth, int patchLength) {
+        int minChunkX = Math.floorDiv(patch.minBlockX(patchWidth), 16);
+        int maxChunkX = Math.floorDiv(patch.minBlockX(patchWidth) + patchWidth - 1, 16);
+        int minChunkZ = Math.floorDiv(patch.minBlockZ(patchLength), 16);
+        int maxChunkZ = Math.floorDiv(patch.minBlockZ(patchLength) + patchLength - 1, 16);
+
+        long[] keys = new long[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        int index = 0;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                keys[index++] = of(chunkX, chunkZ);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,67 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+import java.util.random.RandomGenerator;
+
+public record DonorRange(int minPatchX, int maxPatchX, int minPatchZ, int maxPatchZ) {
+
+    private static final int MAX_PATCH = (1 << 27) - 1;
+    private static final int MIN_PATCH = -(1 << 27);
+
+    public static DonorRange ofBlocks(
+            String name,
+            int patchWidth,
+            int patchLength,
+            int rangeMinX,
+            int rangeMaxX,
+            int rangeMinZ,
+            int rangeMaxZ
+    ) {
+        int maxStartX = rangeMaxX - patchWidth + 1;
+        int maxStartZ = rangeMaxZ - patchLength + 1;
+        int minPatchX = ceilDiv(rangeMinX, patchWidth);
+        int maxPatchX = Math.floorDiv(maxStartX, patchWidth);
+        int minPatchZ = ceilDiv(rangeMinZ, patchLength);
+        int maxPatchZ = Math.floorDiv(maxStartZ, patchLength);
+
+        if (minPatchX > maxPatchX || minPatchZ > maxPatchZ) {
+            throw new IllegalArgumentException(
+                    "Donor range of " + name + " is too small for configured patch size: "
+                            + "patch=" + patchWidth + "x" + patchLength
+                            + ", rangeX=[" + rangeMinX + ".." + rangeMaxX + "]"
+                            + ", rangeZ=[" + rangeMinZ + ".." + rangeMaxZ + "]"
+            );
+        }
+        if (minPatchX < MIN_PATCH || maxPatchX > MAX_PATCH || minPatchZ < MIN_PATCH || maxPatchZ > MAX_PATCH) {
+            throw new IllegalArgumentException("Donor range of " + name + " is too large: patch coordinates"
+                    + " must stay within [" + MIN_PATCH + ".." + MAX_PATCH + "]");
+        }
+        return new DonorRange(minPatchX, maxPatchX, minPatchZ, maxPatchZ);
+    }
+
+    public PatchCoord randomPatch(RandomGenerator random) {
+        int x = random.nextInt(minPatchX, maxPatchX + 1);
+        int z = random.nextInt(minPatchZ, maxPatchZ + 1);
+        return new PatchCoord(x, z);
+    }
+
+    public long area() {
+        return (long) (maxPatchX - minPatchX + 1) * (maxPatchZ - minPatchZ + 1);
+    }
+
+    public long indexOf(PatchCoord patch) {
+        if (patch.patchX() < minPatchX || patch.patchX() > maxPatchX
+                || patch.patchZ() < minPatchZ || patch.patchZ() > maxPatchZ) {
+            return -1L;
+        }
+        return (long) (patch.patchZ() - minPatchZ) * (maxPatchX - minPatchX + 1) + (patch.patchX() - minPatchX);
+    }
+
+    public PatchCoord patchAt(long index) {
+        int width = maxPatchX - minPatchX + 1;
+        return new PatchCoord(minPatchX + (int) (index % width), minPatchZ + (int) (index / width));
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -25,6 +25,14 @@ public record PatchCoord(int patchX, int patchZ) {
         return patchZ * patchLength;
     }
 
+    public long packed() {
+        return (patchX & 0xFFFFFFFFL) | ((long) patchZ << 32);
+    }
+
+    public static PatchCoord fromPacked(long packed) {
+        return new PatchCoord((int) packed, (int) (packed >> 32));
+    }
+
     public String asKey() {
         return patchX + "," + patchZ;
     }
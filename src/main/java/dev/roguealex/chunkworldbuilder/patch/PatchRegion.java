@@ -0,0 +1,35 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+public record PatchRegion(int regionX, int regionZ) {
+
+    public static final int SHIFT = 5;
+    public static final int SIZE = 1 << SHIFT;
+    public static final int AREA = SIZE * SIZE;
+
+    public static PatchRegion of(PatchCoord coord) {
+        return new PatchRegion(coord.patchX() >> SHIFT, coord.patchZ() >> SHIFT);
+    }
+
+    public static long packedOf(PatchCoord coord) {
+        return ChunkKey.of(coord.patchX() >> SHIFT, coord.patchZ() >> SHIFT);
+    }
+
+    public static int localIndex(PatchCoord coord) {
+        return ((coord.patchZ() & (SIZE - 1)) << SHIFT) | (coord.patchX() & (SIZE - 1));
+    }
+
+    public PatchCoord patchAt(int localIndex) {
+        return new PatchCoord(
+                (regionX << SHIFT) | (localIndex & (SIZE - 1)),
+                (regionZ << SHIFT) | (localIndex >>> SHIFT)
+        );
+    }
+
+    public long packed() {
+        return ChunkKey.of(regionX, regionZ);
+    }
+
+    public static PatchRegion fromPacked(long packed) {
+        return new PatchRegion(ChunkKey.x(packed), ChunkKey.z(packed));
+    }
+}
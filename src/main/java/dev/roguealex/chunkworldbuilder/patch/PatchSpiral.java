@@ -0,0 +1,131 @@
+package dev.roguealex.chunkworldbuilder.patch;
+
+public final class PatchSpiral {
+
+    private final int minPatchX;
+    private final int minPatchZ;
+    private final int maxPatchX;
+    private final int maxPatchZ;
+    private final int centerX;
+    private final int centerZ;
+    private final int maxRing;
+    private int ring;
+    private int offset;
+
+    public PatchSpiral(int minPatchX, int minPatchZ, int maxPatchX, int maxPatchZ, int ring, int offset) {
+        if (minPatchX > maxPatchX || minPatchZ > maxPatchZ) {
+            throw new IllegalArgumentException("Empty patch area: " + minPatchX + "," + minPatchZ
+                    + " .. " + maxPatchX + "," + maxPatchZ);
+        }
+        this.minPatchX = minPatchX;
+        this.minPatchZ = minPatchZ;
+        this.maxPatchX = maxPatchX;
+        this.maxPatchZ = maxPatchZ;
+        this.centerX = (int) (((long) minPatchX + maxPatchX) >> 1);
+        this.centerZ = (int) (((long) minPatchZ + maxPatchZ) >> 1);
+        this.maxRing = Math.max(
+                Math.max(centerX - minPatchX, maxPatchX - centerX),
+                Math.max(centerZ - minPatchZ, maxPatchZ - centerZ)
+        );
+        seek(ring, offset);
+    }
+
+    public static PatchSpiral around(PatchCoord center, int radiusPatches) {
+        int radius = Math.max(0, radiusPatches);
+        return new PatchSpiral(
+                center.patchX() - radius,
+                center.patchZ() - radius,
+                center.patchX() + radius,
+                center.patchZ() + radius,
+                0,
+                0
+        );
+    }
+
+    public PatchCoord next() {
+        while (ring <= maxRing) {
+            if (ring == 0) {
+                ring = 1;
+                offset = 0;
+                return new PatchCoord(centerX, centerZ);
+            }
+
+            int sideLength = ring * 2;
+            int side = offset / sideLength;
+            if (side >= 4) {
+                ring++;
+                offset = 0;
+                continue;
+            }
+
+            int startX = side == 0 || side == 3 ? centerX - ring : centerX + ring;
+            int startZ = side == 0 || side == 1 ? centerZ - ring : centerZ + ring;
+            int stepX = side == 0 ? 1 : side == 2 ? -1 : 0;
+            int stepZ = side == 1 ? 1 : side == 3 ? -1 : 0;
+            int low = Math.max(0, Math.max(firstInside(startX, stepX, minPatchX, maxPatchX),
+                    firstInside(startZ, stepZ, minPatchZ, maxPatchZ)));
+            int high = Math.min(sideLength - 1, Math.min(lastInside(startX, stepX, minPatchX, maxPatchX, sideLength),
+                    lastInside(startZ, stepZ, minPatchZ, maxPatchZ, sideLength)));
+
+            int position = Math.max(offset % sideLength, low);
+            if (position > high) {
+                offset = (side + 1) * sideLength;
+                continue;
+            }
+            offset = side * sideLength + position + 1;
+            return new PatchCoord(startX + stepX * position, startZ + stepZ * position);
+        }
+        return null;
+    }
+
+    public void seek(int ring, int offset) {
+        this.ring = Math.max(0, ring);
+        this.offset = Math.max(0, offset);
+    }
+
+    public boolean isFinished() {
+        return ring > maxRing;
+    }
+
+    public long area() {
+        return (long) (maxPatchX - minPatchX + 1) * (maxPatchZ - minPatchZ + 1);
+    }
+
+    public int getRing() {
+        return ring;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getMinPatchX() {
+        return minPatchX;
+    }
+
+    public int getMinPatchZ() {
+        return minPatchZ;
+    }
+
+    public int getMaxPatchX() {
+        return maxPatchX;
+    }
+
+    public int getMaxPatchZ() {
+        return maxPatchZ;
+    }
+
+    private static int firstInside(int start, int step, int min, int max) {
+        if (step == 0) {
+            return start >= min && start <= max ? 0 : Integer.MAX_VALUE;
+        }
+        return step > 0 ? min - start : start - max;
+    }
+
+    private static int lastInside(int start, int step, int min, int max, int sideLength) {
+        if (step == 0) {
+            return start >= min && start <= max ? sideLength - 1 : Integer.MIN_VALUE;
+        }
+        return step > 0 ? max - start : start - min;
+    }
+}
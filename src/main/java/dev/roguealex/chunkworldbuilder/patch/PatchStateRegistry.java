@@ -3,77 +3,207 @@ package dev.roguealex.chunkworldbuilder.patch;
 import dev.roguealex.chunkworldbuilder.storage.GeneratedPatchStorage;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public final class PatchStateRegistry {
 
+    private static final PatchStatus[] STATUSES = PatchStatus.values();
+
     private final GeneratedPatchStorage storage;
-    private final Map<PatchCoord, PatchStatus> statuses;
+    private final Map<Long, Shard> shards;
+    private final AtomicIntegerArray statusCounts;
 
     public PatchStateRegistry(GeneratedPatchStorage storage) {
         this.storage = storage;
-        this.statuses = new HashMap<>();
+        this.shards = new ConcurrentHashMap<>();
+        this.statusCounts = new AtomicIntegerArray(STATUSES.length);
+    }
 
-        Set<PatchCoord> donePatches = storage.getGeneratedPatches();
-        for (PatchCoord coord : donePatches) {
-            statuses.put(coord, PatchStatus.DONE);
+    public PatchStatus getStatus(PatchCoord coord) {
+        Shard shard = shards.get(PatchRegion.packedOf(coord));
+        if (shard != null) {
+            synchronized (shard) {
+                PatchStatus transientStatus = shard.statuses.get(coord);
+                if (transientStatus != null) {
+                    return transientStatus;
+                }
+            }
         }
+        return storage.isGenerated(coord) ? PatchStatus.DONE : PatchStatus.NEW;
     }
 
-    public synchronized PatchStatus getStatus(PatchCoord coord) {
-        return statuses.getOrDefault(coord, PatchStatus.NEW);
+    public boolean tryQueue(PatchCoord coord) {
+        Shard shard = shardFor(coord);
+        synchronized (shard) {
+            if (shard.statuses.containsKey(coord) || storage.isGenerated(coord)) {
+                return false;
+            }
+            setStatus(shard, coord, PatchStatus.QUEUED);
+            return true;
+        }
     }
 
-    public synchronized boolean tryQueue(PatchCoord coord) {
-        PatchStatus current = getStatus(coord);
-        if (current != PatchStatus.NEW) {
-            return false;
+    public boolean tryStartGenerating(PatchCoord coord) {
+        Shard shard = shardFor(coord);
+        synchronized (shard) {
+            if (shard.statuses.get(coord) != PatchStatus.QUEUED) {
+                return false;
+            }
+            setStatus(shard, coord, PatchStatus.GENERATING);
+            return true;
+        }
+    }
+
+    public void markDone(PatchCoord coord) {
+        storage.markGenerated(coord);
+        resetToNew(coord);
+    }
+
+    public void markDone(PatchCoord coord, long donor) {
+        storage.recordDonor(coord, donor);
+        markDone(coord);
+    }
+
+    public boolean tryReset(PatchCoord coord) {
+        Shard shard = shardFor(coord);
+        synchronized (shard) {
+            if (shard.statuses.containsKey(coord) || !storage.isGenerated(coord)) {
+                return false;
+            }
+            if (!storage.unmarkGenerated(coord)) {
+                return false;
+            }
+            storage.removeDonor(coord);
+            setStatus(shard, coord, PatchStatus.CLEARING);
+            return true;
         }
-        statuses.put(coord, PatchStatus.QUEUED);
-        return true;
     }
 
-    public synchronized boolean tryStartGenerating(PatchCoord coord) {
-        if (getStatus(coord) != PatchStatus.QUEUED) {
+    public boolean tryClaimForClearing(PatchCoord coord) {
+        Shard shard = shardFor(coord);
+        synchronized (shard) {
+            if (shard.statuses.containsKey(coord) || storage.isGenerated(coord)) {
+                return false;
+            }
+            setStatus(shard, coord, PatchStatus.CLEARING);
+            return true;
+        }
+    }
+
+    public boolean finishClearing(PatchCoord coord) {
+        Shard shard = shards.get(PatchRegion.packedOf(coord));
+        if (shard == null) {
             return false;
         }
-        statuses.put(coord, PatchStatus.GENERATING);
-        return true;
+        synchronized (shard) {
+            if (shard.statuses.get(coord) != PatchStatus.CLEARING) {
+                return false;
+            }
+            setStatus(shard, coord, PatchStatus.NEW);
+            return true;
+        }
     }
 
-    public synchronized void markDone(PatchCoord coord) {
-        statuses.put(coord, PatchStatus.DONE);
-        storage.markGenerated(coord);
+    public Long getDonor(PatchCoord coord) {
+        return storage.getDonor(coord);
     }
 
-    public synchronized void resetToNew(PatchCoord coord) {
-        statuses.remove(coord);
+    public void flush() {
+        storage.flush();
     }
 
-    public synchronized int getDoneCount() {
-        int count = 0;
-        for (PatchStatus status : statuses.values()) {
-            if (status == PatchStatus.DONE) {
-                count++;
-            }
+    public void resetToNew(PatchCoord coord) {
+        Shard shard = shards.get(PatchRegion.packedOf(coord));
+        if (shard == null) {
+            return;
+        }
+        synchronized (shard) {
+            setStatus(shard, coord, PatchStatus.NEW);
         }
-        return count;
     }
 
-    public synchronized Set<PatchCoord> getPatchesWithStatuses(PatchStatus... targetStatuses) {
+    public int getDoneCount() {
+        return storage.getGeneratedCount();
+    }
+
+    public int getStatusCount(PatchStatus status) {
+        if (status == PatchStatus.DONE) {
+            return getDoneCount();
+        }
+        return statusCounts.get(status.ordinal());
+    }
+
+    public Set<PatchCoord> getDonePatches(int minPatchX, int minPatchZ, int maxPatchX, int maxPatchZ) {
+        return storage.getGeneratedPatches(minPatchX, minPatchZ, maxPatchX, maxPatchZ);
+    }
+
+    public Set<PatchCoord> getPatchesWithStatuses(PatchStatus... targetStatuses) {
         EnumSet<PatchStatus> filter = EnumSet.noneOf(PatchStatus.class);
+        boolean includeDone = false;
+        int expected = 0;
         for (PatchStatus status : targetStatuses) {
-            filter.add(status);
+            if (status == PatchStatus.DONE) {
+                includeDone = true;
+            } else if (status != PatchStatus.NEW && filter.add(status)) {
+                expected += getStatusCount(status);
+            }
         }
 
-        Set<PatchCoord> result = new HashSet<>();
-        for (Map.Entry<PatchCoord, PatchStatus> entry : statuses.entrySet()) {
-            if (filter.contains(entry.getValue())) {
-                result.add(entry.getKey());
+        Set<PatchCoord> result = includeDone
+                ? storage.getGeneratedPatches()
+                : new HashSet<>(Math.max(16, expected * 4 / 3 + 1));
+        if (expected == 0) {
+            return result;
+        }
+        for (Shard shard : shards.values()) {
+            synchronized (shard) {
+                if (!shard.hasAny(filter)) {
+                    continue;
+                }
+                for (Map.Entry<PatchCoord, PatchStatus> entry : shard.statuses.entrySet()) {
+                    if (filter.contains(entry.getValue())) {
+                        result.add(entry.getKey());
+                    }
+                }
             }
         }
         return result;
     }
+
+    private Shard shardFor(PatchCoord coord) {
+        return shards.computeIfAbsent(PatchRegion.packedOf(coord), ignored -> new Shard());
+    }
+
+    private void setStatus(Shard shard, PatchCoord coord, PatchStatus status) {
+        PatchStatus previous = status == PatchStatus.NEW
+                ? shard.statuses.remove(coord)
+                : shard.statuses.put(coord, status);
+        if (previous != null) {
+            shard.counts[previous.ordinal()]--;
+            statusCounts.decrementAndGet(previous.ordinal());
+        }
+        if (status != PatchStatus.NEW) {
+            shard.counts[status.ordinal()]++;
+            statusCounts.incrementAndGet(status.ordinal());
+        }
+    }
+
+    private static final class Shard {
+
+        private final Map<PatchCoord, PatchStatus> statuses = new HashMap<>();
+        private final int[] counts = new int[STATUSES.length];
+
+        private boolean hasAny(EnumSet<PatchStatus> filter) {
+            for (PatchStatus status : filter) {
+                if (counts[status.ordinal()] > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -4,5 +4,6 @@ public enum PatchStatus {
     NEW,
     QUEUED,
     GENERATING,
+    CLEARING,
     DONE
 }
@@ -1,14 +1,23 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
-import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
+import dev.roguealex.chunkworldbuilder.world.FoliaDetector;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class BoundaryService {
@@ -16,19 +25,23 @@ public final class BoundaryService {
     private final JavaPlugin plugin;
     private final World targetWorld;
     private final PatchStateRegistry patchStateRegistry;
+    private final TickProfiler profiler;
     private final int patchWidth;
     private final int patchLength;
     private final int minY;
     private final int maxY;
     private final Material boundaryMaterial;
     private final long updateIntervalTicks;
-    private int taskId;
-    private Set<Column> lastColumns;
+    private final LongAdder columnsDrawn;
+    private final LongAdder columnsCleared;
+    private ScheduledTask task;
+    private volatile Set<Column> lastColumns;
 
     public BoundaryService(
             JavaPlugin plugin,
             World targetWorld,
             PatchStateRegistry patchStateRegistry,
+            TickProfiler profiler,
             int patchWidth,
             int patchLength,
             int minY,
@@ -39,37 +52,57 @@ public final class BoundaryService {
         this.plugin = plugin;
         this.targetWorld = targetWorld;
         this.patchStateRegistry = patchStateRegistry;
+        this.profiler = profiler;
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.minY = Math.max(targetWorld.getMinHeight(), minY);
         this.maxY = Math.min(targetWorld.getMaxHeight() - 1, maxY);
         this.boundaryMaterial = invisibleBarrier ? Material.BARRIER : Material.GLASS;
         this.updateIntervalTicks = Math.max(1L, updateIntervalTicks);
-        this.taskId = -1;
+        this.columnsDrawn = new LongAdder();
+        this.columnsCleared = new LongAdder();
         this.lastColumns = Set.of();
     }
 
     public void start() {
-        if (taskId != -1 || maxY < minY) {
+        if (task != null || maxY < minY) {
             return;
         }
-        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::refresh, 20L, updateIntervalTicks);
+        Runnable refresh = profiler.wrap("boundary-refresh", this::refresh);
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(
+                plugin,
+                ignored -> refresh.run(),
+                20L,
+                updateIntervalTicks
+        );
     }
 
     public void stop() {
-        if (taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
+        if (task != null) {
+            task.cancel();
+            task = null;
         }
 
-        if (!lastColumns.isEmpty()) {
+        if (!lastColumns.isEmpty() && !FoliaDetector.isFolia()) {
             drawColumns(lastColumns, true);
             lastColumns = Set.of();
         }
     }
 
     private void refresh() {
-        Set<Column> currentColumns = computePerimeterColumns();
+        Set<Column> currentColumns = new HashSet<>(lastColumns);
+        int radius = Math.max(2, targetWorld.getViewDistance()) << 4;
+        for (Player player : targetWorld.getPlayers()) {
+            int x = player.getLocation().getBlockX();
+            int z = player.getLocation().getBlockZ();
+            refreshArea(
+                    currentColumns,
+                    Math.floorDiv(x - radius, patchWidth),
+                    Math.floorDiv(z - radius, patchLength),
+                    Math.floorDiv(x + radius, patchWidth),
+                    Math.floorDiv(z + radius, patchLength)
+            );
+        }
         if (currentColumns.equals(lastColumns)) {
             return;
         }
@@ -85,8 +118,22 @@ public final class BoundaryService {
         lastColumns = currentColumns;
     }
 
-    private Set<Column> computePerimeterColumns() {
-        Set<PatchCoord> done = patchStateRegistry.getPatchesWithStatuses(PatchStatus.DONE);
+    private void refreshArea(Set<Column> columns, int minPatchX, int minPatchZ, int maxPatchX, int maxPatchZ) {
+        int minX = minPatchX * patchWidth;
+        int maxX = (maxPatchX + 1) * patchWidth - 1;
+        int minZ = minPatchZ * patchLength;
+        int maxZ = (maxPatchZ + 1) * patchLength - 1;
+        Set<PatchCoord> done = patchStateRegistry.getDonePatches(minPatchX - 1, minPatchZ - 1, maxPatchX + 1, maxPatchZ + 1);
+
+        columns.removeIf(column -> column.x >= minX && column.x <= maxX && column.z >= minZ && column.z <= maxZ);
+        for (Column column : computePerimeterColumns(done, patchWidth, patchLength)) {
+            if (column.x >= minX && column.x <= maxX && column.z >= minZ && column.z <= maxZ) {
+                columns.add(column);
+            }
+        }
+    }
+
+    static Set<Column> computePerimeterColumns(Set<PatchCoord> done, int patchWidth, int patchLength) {
         if (done.isEmpty()) {
             return Set.of();
         }
@@ -133,10 +180,52 @@ public final class BoundaryService {
         return columns;
     }
 
+    public long getColumnsDrawn() {
+        return columnsDrawn.sum();
+    }
+
+    public long getColumnsCleared() {
+        return columnsCleared.sum();
+    }
+
+    public int getPerimeterColumnCount() {
+        return lastColumns.size();
+    }
+
     private void drawColumns(Set<Column> columns, boolean clear) {
         if (columns.isEmpty()) {
             return;
         }
+        if (clear) {
+            columnsCleared.add(columns.size());
+        } else {
+            columnsDrawn.add(columns.size());
+        }
+
+        Map<Long, List<Column>> byChunk = new HashMap<>();
+        for (Column column : columns) {
+            byChunk.computeIfAbsent(ChunkKey.of(column.x >> 4, column.z >> 4), ignored -> new ArrayList<>())
+                    .add(column);
+        }
+        for (Map.Entry<Long, List<Column>> entry : byChunk.entrySet()) {
+            int chunkX = ChunkKey.x(entry.getKey());
+            int chunkZ = ChunkKey.z(entry.getKey());
+            List<Column> chunkColumns = entry.getValue();
+            if (Bukkit.isOwnedByCurrentRegion(targetWorld, chunkX, chunkZ)) {
+                drawChunkColumns(chunkColumns, clear);
+            } else {
+                Bukkit.getRegionScheduler().execute(
+                        plugin,
+                        targetWorld,
+                        chunkX,
+                        chunkZ,
+                        () -> drawChunkColumns(chunkColumns, clear)
+                );
+            }
+        }
+    }
+
+    private void drawChunkColumns(List<Column> columns, boolean clear) {
         for (Column column : columns) {
             for (int y = minY; y <= maxY; y++) {
                 setBoundaryBlock(column.x, y, column.z, clear);
@@ -155,6 +244,6 @@ public final class BoundaryService {
         block.setType(boundaryMaterial, false);
     }
 
-    private record Column(int x, int z) {
+    record Column(int x, int z) {
     }
 }
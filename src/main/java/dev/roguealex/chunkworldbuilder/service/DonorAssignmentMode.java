@@ -0,0 +1,24 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+public enum DonorAssignmentMode {
+    RANDOM,
+    SEEDED;
+
+    public static DonorAssignmentMode fromConfig(String value, Logger logger) {
+        if (value == null || value.isBlank()) {
+            return RANDOM;
+        }
+
+        try {
+            return DonorAssignmentMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            logger.warning("Unknown donor-assignment '" + value + "', using RANDOM. Valid values: "
+                    + Arrays.toString(values()) + ".");
+            return RANDOM;
+        }
+    }
+}
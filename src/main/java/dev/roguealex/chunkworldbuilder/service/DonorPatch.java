@@ -0,0 +1,35 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+
+public record DonorPatch(DonorSource source, PatchCoord coord) {
+
+    public static final int MAX_DONORS = 255;
+
+    private static final int COORD_BITS = 28;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    public String asKey() {
+        return source.getName() + ":" + coord.asKey();
+    }
+
+    public long packed() {
+        return pack(source.getIndex(), coord);
+    }
+
+    public static long pack(int donorIndex, PatchCoord coord) {
+        return ((long) donorIndex << (COORD_BITS * 2))
+                | ((coord.patchZ() & COORD_MASK) << COORD_BITS)
+                | (coord.patchX() & COORD_MASK);
+    }
+
+    public static int donorIndexOf(long packed) {
+        return (int) (packed >>> (COORD_BITS * 2));
+    }
+
+    public static PatchCoord coordOf(long packed) {
+        int x = (int) (packed << (Long.SIZE - COORD_BITS) >> (Long.SIZE - COORD_BITS));
+        int z = (int) (packed << (Long.SIZE - COORD_BITS * 2) >> (Long.SIZE - COORD_BITS));
+        return new PatchCoord(x, z);
+    }
+}
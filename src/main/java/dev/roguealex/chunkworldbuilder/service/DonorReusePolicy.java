@@ -0,0 +1,149 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+public final class DonorReusePolicy {
+
+    private static final long MAX_TRACKED_AREA = 1L << 28;
+    private static final int RANDOM_PROBES = 8;
+
+    private final int maxUses;
+    private final Usage[] usages;
+
+    public DonorReusePolicy(List<DonorSource> donors, int maxUses) {
+        this.maxUses = Math.max(0, maxUses);
+        this.usages = new Usage[donors.size()];
+        if (this.maxUses == 0) {
+            return;
+        }
+        for (DonorSource donor : donors) {
+            if (donor.area() > MAX_TRACKED_AREA) {
+                throw new IllegalArgumentException("Donor range of " + donor.getName() + " covers " + donor.area()
+                        + " patches; donor-max-uses supports at most " + MAX_TRACKED_AREA);
+            }
+            usages[donor.getIndex()] = new Usage((int) donor.area());
+        }
+    }
+
+    public boolean isUnlimited() {
+        return maxUses == 0;
+    }
+
+    public int getMaxUses() {
+        return maxUses;
+    }
+
+    public PatchCoord sample(DonorSource donor, RandomGenerator random) {
+        if (isUnlimited()) {
+            return donor.randomPatch(random);
+        }
+        Usage usage = usages[donor.getIndex()];
+        if (usage.exhaustedCount >= usage.area) {
+            return null;
+        }
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            int index = random.nextInt(usage.area);
+            if (!usage.exhausted.get(index)) {
+                return donor.patchAt(index);
+            }
+        }
+        int index = usage.exhausted.nextClearBit(random.nextInt(usage.area));
+        if (index >= usage.area) {
+            index = usage.exhausted.nextClearBit(0);
+        }
+        return donor.patchAt(index);
+    }
+
+    public void markUsed(DonorPatch donorPatch) {
+        if (isUnlimited()) {
+            return;
+        }
+        long index = donorPatch.source().indexOf(donorPatch.coord());
+        if (index < 0L) {
+            return;
+        }
+        Usage usage = usages[donorPatch.source().getIndex()];
+        int bit = (int) index;
+        if (usage.exhausted.get(bit)) {
+            usage.overflowUses.merge(bit, 1, Integer::sum);
+            return;
+        }
+        int uses = maxUses == 1 ? 1 : usage.partialUses.merge(bit, 1, Integer::sum);
+        if (uses >= maxUses) {
+            usage.partialUses.remove(bit);
+            usage.exhausted.set(bit);
+            usage.exhaustedCount++;
+        }
+    }
+
+    public void release(DonorPatch donorPatch) {
+        if (isUnlimited()) {
+            return;
+        }
+        long index = donorPatch.source().indexOf(donorPatch.coord());
+        if (index < 0L) {
+            return;
+        }
+        Usage usage = usages[donorPatch.source().getIndex()];
+        int bit = (int) index;
+        Integer overflow = usage.overflowUses.get(bit);
+        if (overflow != null) {
+            if (overflow <= 1) {
+                usage.overflowUses.remove(bit);
+            } else {
+                usage.overflowUses.put(bit, overflow - 1);
+            }
+            return;
+        }
+        if (usage.exhausted.get(bit)) {
+            usage.exhausted.clear(bit);
+            usage.exhaustedCount--;
+            if (maxUses > 1) {
+                usage.partialUses.put(bit, maxUses - 1);
+            }
+            return;
+        }
+        usage.partialUses.computeIfPresent(bit, (ignored, uses) -> uses <= 1 ? null : uses - 1);
+    }
+
+    public long getExhaustedCount() {
+        long total = 0L;
+        for (Usage usage : usages) {
+            if (usage != null) {
+                total += usage.exhaustedCount;
+            }
+        }
+        return total;
+    }
+
+    public long getTrackedArea() {
+        long total = 0L;
+        for (Usage usage : usages) {
+            if (usage != null) {
+                total += usage.area;
+            }
+        }
+        return total;
+    }
+
+    private static final class Usage {
+
+        private final int area;
+        private final BitSet exhausted;
+        private final Map<Integer, Integer> partialUses;
+        private final Map<Integer, Integer> overflowUses;
+        private int exhaustedCount;
+
+        private Usage(int area) {
+            this.area = area;
+            this.exhausted = new BitSet();
+            this.partialUses = new HashMap<>();
+            this.overflowUses = new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.util.SplittableRandom;
+
+public final class DonorSeeds {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private DonorSeeds() {
+    }
+
+    public static SplittableRandom forPatch(long seed, PatchCoord targetPatch) {
+        return new SplittableRandom(mix64(seed + GOLDEN_GAMMA * mix64(targetPatch.packed())));
+    }
+
+    private static long mix64(long value) {
+        long z = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.DonorRange;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.world.BlockAccess;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+
+public final class DonorSource {
+
+    private final int index;
+    private final World world;
+    private final BlockAccess access;
+    private final double weight;
+    private final int patchWidth;
+    private final int patchLength;
+    private final DonorRange range;
+
+    public DonorSource(
+            int index,
+            World world,
+            BlockAccess access,
+            double weight,
+            int patchWidth,
+            int patchLength,
+            int rangeMinX,
+            int rangeMaxX,
+            int rangeMinZ,
+            int rangeMaxZ
+    ) {
+        this.index = index;
+        this.world = world;
+        this.access = access;
+        this.weight = weight;
+        this.patchWidth = patchWidth;
+        this.patchLength = patchLength;
+        this.range = DonorRange.ofBlocks(
+                access.getName(),
+                patchWidth,
+                patchLength,
+                rangeMinX,
+                rangeMaxX,
+                rangeMinZ,
+                rangeMaxZ
+        );
+    }
+
+    public PatchCoord randomPatch(RandomGenerator random) {
+        return range.randomPatch(random);
+    }
+
+    public long area() {
+        return range.area();
+    }
+
+    public long indexOf(PatchCoord patch) {
+        return range.indexOf(patch);
+    }
+
+    public PatchCoord patchAt(long index) {
+        return range.patchAt(index);
+    }
+
+    public boolean isLikelyLandPatch(PatchCoord patch) {
+        int minX = patch.minBlockX(patchWidth);
+        int minZ = patch.minBlockZ(patchLength);
+        int centerX = minX + (patchWidth / 2);
+        int centerZ = minZ + (patchLength / 2);
+
+        int oceanSamples = 0;
+        int totalSamples = 0;
+        int[] sampleOffsetsX = new int[]{0, -(patchWidth / 3), patchWidth / 3};
+        int[] sampleOffsetsZ = new int[]{0, -(patchLength / 3), patchLength / 3};
+
+        for (int ox : sampleOffsetsX) {
+            for (int oz : sampleOffsetsZ) {
+                int sampleX = centerX + ox;
+                int sampleZ = centerZ + oz;
+                int sampleY = Math.max(world.getMinHeight(), world.getHighestBlockYAt(sampleX, sampleZ));
+                Biome biome = world.getBiome(sampleX, sampleY, sampleZ);
+                if (isOceanBiome(biome)) {
+                    oceanSamples++;
+                }
+                totalSamples++;
+            }
+        }
+
+        return oceanSamples <= (totalSamples / 3);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return access.getName();
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public BlockAccess getAccess() {
+        return access;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public DonorRange getRange() {
+        return range;
+    }
+
+    private static boolean isOceanBiome(Biome biome) {
+        String biomeName = biome.name().toUpperCase(Locale.ROOT);
+        return biomeName.contains("OCEAN");
+    }
+}
@@ -1,51 +1,70 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
 import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
 import dev.roguealex.chunkworldbuilder.storage.GeneratedPatchStorage;
-import java.util.HashSet;
-import java.util.Set;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.data.BlockData;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.Vector;
 
 public final class EndPortalProgressionService {
 
+    private static final long CHECK_INTERVAL_TICKS = 5L;
+
+    private final JavaPlugin plugin;
     private final World targetWorld;
-    private final PatchCopyService patchCopyService;
+    private final WorldExpansionService worldExpansionService;
     private final PatchStateRegistry patchStateRegistry;
     private final GeneratedPatchStorage storage;
+    private final TickProfiler profiler;
     private final int patchWidth;
     private final int patchLength;
     private final int edgeOffsetPatches;
+    private PatchCoord pendingPatch;
+    private CompletableFuture<Location> pendingPortal;
+    private boolean building;
+    private ScheduledTask task;
 
     public EndPortalProgressionService(
+            JavaPlugin plugin,
             World targetWorld,
-            PatchCopyService patchCopyService,
+            WorldExpansionService worldExpansionService,
             PatchStateRegistry patchStateRegistry,
             GeneratedPatchStorage storage,
+            TickProfiler profiler,
             int patchWidth,
             int patchLength,
             int edgeOffsetPatches
     ) {
+        this.plugin = plugin;
         this.targetWorld = targetWorld;
-        this.patchCopyService = patchCopyService;
+        this.worldExpansionService = worldExpansionService;
         this.patchStateRegistry = patchStateRegistry;
         this.storage = storage;
+        this.profiler = profiler;
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.edgeOffsetPatches = Math.max(1, edgeOffsetPatches);
     }
 
-    public synchronized Location ensurePortalForPlayerDirection(Player player) {
+    public synchronized CompletableFuture<Location> ensurePortalForPlayerDirection(Player player) {
         Location existing = storage.getEndPortalLocation();
         if (existing != null) {
-            return existing;
+            return CompletableFuture.completedFuture(existing);
+        }
+        if (pendingPortal != null) {
+            return pendingPortal;
         }
 
         PatchCoord playerPatch = PatchCoord.fromBlock(
@@ -55,60 +74,93 @@ public final class EndPortalProgressionService {
                 patchLength
         );
 
-        PatchCoord targetPatch = selectEdgePatch(playerPatch, player.getLocation().getDirection());
-        ensurePatchDone(targetPatch);
+        pendingPatch = selectEdgePatch(playerPatch, player.getLocation().getDirection());
+        pendingPortal = new CompletableFuture<>();
+        building = false;
+        worldExpansionService.queuePatchUrgent(pendingPatch);
 
-        Location portalLocation = buildPortalRoom(targetPatch);
-        storage.markEndPortalSpawned(portalLocation);
-        return portalLocation;
+        Runnable tick = profiler.wrap("end-portal-tick", this::tick);
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> tick.run(), 1L, CHECK_INTERVAL_TICKS);
+        return pendingPortal;
+    }
+
+    public synchronized void stop() {
+        cancelTask();
+        if (pendingPortal != null) {
+            pendingPortal.completeExceptionally(new CancellationException("End portal generation stopped"));
+            pendingPortal = null;
+            pendingPatch = null;
+        }
     }
 
-    private void ensurePatchDone(PatchCoord patchCoord) {
-        PatchStatus status = patchStateRegistry.getStatus(patchCoord);
-        if (status == PatchStatus.DONE) {
+    private synchronized void tick() {
+        if (pendingPatch == null || building) {
             return;
         }
 
-        if (!patchStateRegistry.tryQueue(patchCoord)) {
-            throw new IllegalStateException("Patch is not available for generation: " + patchCoord.asKey());
+        PatchStatus status = patchStateRegistry.getStatus(pendingPatch);
+        if (status == PatchStatus.NEW) {
+            worldExpansionService.queuePatchUrgent(pendingPatch);
+            return;
+        }
+        if (status != PatchStatus.DONE) {
+            return;
         }
 
-        if (!patchStateRegistry.tryStartGenerating(patchCoord)) {
-            patchStateRegistry.resetToNew(patchCoord);
-            throw new IllegalStateException("Could not start generation for patch: " + patchCoord.asKey());
+        building = true;
+        PatchCoord patchCoord = pendingPatch;
+        int centerX = patchCoord.minBlockX(patchWidth) + (patchWidth / 2);
+        int centerZ = patchCoord.minBlockZ(patchLength) + (patchLength / 2);
+        Bukkit.getRegionScheduler().execute(plugin, targetWorld, centerX >> 4, centerZ >> 4,
+                () -> completePortal(patchCoord));
+    }
+
+    private void completePortal(PatchCoord patchCoord) {
+        CompletableFuture<Location> future;
+        Location portalLocation = null;
+        RuntimeException failure = null;
+        synchronized (this) {
+            if (pendingPortal == null || !patchCoord.equals(pendingPatch)) {
+                return;
+            }
+            future = pendingPortal;
+            try {
+                portalLocation = buildPortalRoom(patchCoord);
+                storage.markEndPortalSpawned(portalLocation);
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+            cancelTask();
+            pendingPortal = null;
+            pendingPatch = null;
+            building = false;
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(portalLocation);
         }
+    }
 
-        try {
-            patchCopyService.copyPatchFromRandomDonor(patchCoord);
-            patchStateRegistry.markDone(patchCoord);
-        } catch (RuntimeException ex) {
-            patchStateRegistry.resetToNew(patchCoord);
-            throw ex;
+    private void cancelTask() {
+        if (task != null) {
+            task.cancel();
+            task = null;
         }
     }
 
     private PatchCoord selectEdgePatch(PatchCoord playerPatch, Vector lookVector) {
-        Set<PatchCoord> done = new HashSet<>(storage.getGeneratedPatches());
-        done.add(playerPatch);
-
         int minX = playerPatch.patchX();
         int maxX = playerPatch.patchX();
         int minZ = playerPatch.patchZ();
         int maxZ = playerPatch.patchZ();
 
-        for (PatchCoord patch : done) {
-            if (patch.patchX() < minX) {
-                minX = patch.patchX();
-            }
-            if (patch.patchX() > maxX) {
-                maxX = patch.patchX();
-            }
-            if (patch.patchZ() < minZ) {
-                minZ = patch.patchZ();
-            }
-            if (patch.patchZ() > maxZ) {
-                maxZ = patch.patchZ();
-            }
+        GeneratedPatchStorage.PatchBounds bounds = storage.getGeneratedBounds();
+        if (bounds != null) {
+            minX = Math.min(minX, bounds.minPatchX());
+            maxX = Math.max(maxX, bounds.maxPatchX());
+            minZ = Math.min(minZ, bounds.minPatchZ());
+            maxZ = Math.max(maxZ, bounds.maxPatchZ());
         }
 
         double absX = Math.abs(lookVector.getX());
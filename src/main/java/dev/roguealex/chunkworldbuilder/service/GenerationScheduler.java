@@ -0,0 +1,113 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public final class GenerationScheduler {
+
+    private final JavaPlugin plugin;
+    private final TickProfiler profiler;
+    private final int baseBlockBudget;
+    private final List<WorldExpansionService> services;
+    private final List<WorldExpansionService> pending;
+    private volatile int blockBudget;
+    private int rotation;
+    private ScheduledTask task;
+
+    public GenerationScheduler(JavaPlugin plugin, TickProfiler profiler, int baseBlockBudget) {
+        this.plugin = plugin;
+        this.profiler = profiler;
+        this.baseBlockBudget = Math.max(1, baseBlockBudget);
+        this.services = new CopyOnWriteArrayList<>();
+        this.pending = new ArrayList<>();
+        this.blockBudget = this.baseBlockBudget;
+    }
+
+    public void register(WorldExpansionService service) {
+        services.add(service);
+    }
+
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        Runnable tick = profiler.wrap("expansion-tick", this::tick);
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> tick.run(), 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (WorldExpansionService service : services) {
+            service.stop();
+        }
+    }
+
+    public int getBaseBlockBudget() {
+        return baseBlockBudget;
+    }
+
+    public int getBlockBudget() {
+        return blockBudget;
+    }
+
+    public void setBlockBudget(int blockBudget) {
+        this.blockBudget = Math.max(1, blockBudget);
+    }
+
+    public int getQueuedCount() {
+        int queued = 0;
+        for (WorldExpansionService service : services) {
+            queued += service.getQueuedCount();
+        }
+        return queued;
+    }
+
+    public int getMaxPatchesQueued() {
+        int max = 0;
+        for (WorldExpansionService service : services) {
+            max += service.getMaxPatchesQueued();
+        }
+        return max;
+    }
+
+    private void tick() {
+        if (Bukkit.isStopping()) {
+            stop();
+            return;
+        }
+
+        int count = services.size();
+        if (count == 0) {
+            return;
+        }
+        rotation = (rotation + 1) % count;
+
+        pending.clear();
+        for (int i = 0; i < count; i++) {
+            WorldExpansionService service = services.get((rotation + i) % count);
+            if (service.getQueuedCount() > 0) {
+                pending.add(service);
+            } else {
+                service.tick(0);
+            }
+        }
+
+        int remaining = blockBudget;
+        for (int i = 0; i < pending.size(); i++) {
+            WorldExpansionService service = pending.get(i);
+            double multiplier = service.getBudgetMultiplier();
+            int share = remaining / (pending.size() - i);
+            int processed = service.tick((int) Math.min(Integer.MAX_VALUE, share * multiplier));
+            remaining = Math.max(0, remaining - (int) Math.ceil(processed / multiplier));
+        }
+        pending.clear();
+    }
+}
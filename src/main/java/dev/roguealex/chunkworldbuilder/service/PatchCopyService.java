@@ -1,25 +1,38 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import dev.roguealex.chunkworldbuilder.patch.DonorRange;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
-import java.util.Locale;
+import dev.roguealex.chunkworldbuilder.world.BlockAccess;
+import dev.roguealex.chunkworldbuilder.world.PaperBlockAccess;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.block.Biome;
-import org.bukkit.block.Block;
-import org.bukkit.block.data.BlockData;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntitySnapshot;
+import org.bukkit.entity.Player;
 
 public final class PatchCopyService {
 
     private final World targetWorld;
-    private final World donorWorld;
+    private final BlockAccess targetAccess;
+    private final List<DonorSource> donors;
+    private final AliasTable donorTable;
+    private final DonorReusePolicy reusePolicy;
+    private final DonorAssignmentMode assignmentMode;
+    private final SeededDonorAssignment seededAssignment;
     private final int patchWidth;
     private final int patchLength;
-    private final int donorMinPatchX;
-    private final int donorMaxPatchX;
-    private final int donorMinPatchZ;
-    private final int donorMaxPatchZ;
     private final boolean copyBiomes;
     private final boolean copyTileEntities;
+    private final boolean copyEntities;
+    private final boolean bulkApply;
 
     public PatchCopyService(
             World targetWorld,
@@ -31,46 +44,140 @@ public final class PatchCopyService {
             int donorRangeMinZ,
             int donorRangeMaxZ,
             boolean copyBiomes,
-            boolean copyTileEntities
+            boolean copyTileEntities,
+            boolean copyEntities,
+            boolean bulkApply
     ) {
+        this(
+                targetWorld,
+                donorWorld,
+                new PaperBlockAccess(targetWorld),
+                new PaperBlockAccess(donorWorld),
+                patchWidth,
+                patchLength,
+                donorRangeMinX,
+                donorRangeMaxX,
+                donorRangeMinZ,
+                donorRangeMaxZ,
+                copyBiomes,
+                copyTileEntities,
+                copyEntities,
+                bulkApply
+        );
+    }
+
+    public PatchCopyService(
+            World targetWorld,
+            World donorWorld,
+            BlockAccess targetAccess,
+            BlockAccess donorAccess,
+            int patchWidth,
+            int patchLength,
+            int donorRangeMinX,
+            int donorRangeMaxX,
+            int donorRangeMinZ,
+            int donorRangeMaxZ,
+            boolean copyBiomes,
+            boolean copyTileEntities,
+            boolean copyEntities,
+            boolean bulkApply
+    ) {
+        this(
+                targetWorld,
+                targetAccess,
+                List.of(new DonorSource(
+                        0,
+                        donorWorld,
+                        donorAccess,
+                        1.0,
+                        patchWidth,
+                        patchLength,
+                        donorRangeMinX,
+                        donorRangeMaxX,
+                        donorRangeMinZ,
+                        donorRangeMaxZ
+                )),
+                patchWidth,
+                patchLength,
+                0,
+                DonorAssignmentMode.RANDOM,
+                0L,
+                copyBiomes,
+                copyTileEntities,
+                copyEntities,
+                bulkApply
+        );
+    }
+
+    public PatchCopyService(
+            World targetWorld,
+            BlockAccess targetAccess,
+            List<DonorSource> donors,
+            int patchWidth,
+            int patchLength,
+            int donorMaxUses,
+            DonorAssignmentMode assignmentMode,
+            long assignmentSeed,
+            boolean copyBiomes,
+            boolean copyTileEntities,
+            boolean copyEntities,
+            boolean bulkApply
+    ) {
+        if (donors.isEmpty() || donors.size() > DonorPatch.MAX_DONORS) {
+            throw new IllegalArgumentException("Between 1 and " + DonorPatch.MAX_DONORS + " donors are supported, got "
+                    + donors.size());
+        }
         this.targetWorld = targetWorld;
-        this.donorWorld = donorWorld;
+        this.targetAccess = targetAccess;
+        this.donors = List.copyOf(donors);
         this.patchWidth = patchWidth;
         this.patchLength = patchLength;
         this.copyBiomes = copyBiomes;
         this.copyTileEntities = copyTileEntities;
+        this.copyEntities = copyEntities;
+        this.bulkApply = bulkApply;
+        this.assignmentMode = assignmentMode;
 
-        int maxStartX = donorRangeMaxX - patchWidth + 1;
-        int maxStartZ = donorRangeMaxZ - patchLength + 1;
-        donorMinPatchX = ceilDiv(donorRangeMinX, patchWidth);
-        donorMaxPatchX = Math.floorDiv(maxStartX, patchWidth);
-        donorMinPatchZ = ceilDiv(donorRangeMinZ, patchLength);
-        donorMaxPatchZ = Math.floorDiv(maxStartZ, patchLength);
-
-        if (donorMinPatchX > donorMaxPatchX || donorMinPatchZ > donorMaxPatchZ) {
-            throw new IllegalArgumentException(
-                    "Donor range is too small for configured patch size: "
-                            + "patch=" + patchWidth + "x" + patchLength
-                            + ", rangeX=[" + donorRangeMinX + ".." + donorRangeMaxX + "]"
-                            + ", rangeZ=[" + donorRangeMinZ + ".." + donorRangeMaxZ + "]"
-            );
+        double[] weights = new double[this.donors.size()];
+        List<DonorRange> ranges = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            DonorSource donor = this.donors.get(i);
+            if (donor.getIndex() != i) {
+                throw new IllegalArgumentException("Donor " + donor.getName() + " has index " + donor.getIndex()
+                        + " but is listed at position " + i);
+            }
+            weights[i] = donor.getWeight();
+            ranges.add(donor.getRange());
         }
+        this.donorTable = new AliasTable(weights);
+        this.seededAssignment = new SeededDonorAssignment(assignmentSeed, weights, ranges);
+        this.reusePolicy = new DonorReusePolicy(
+                this.donors,
+                assignmentMode == DonorAssignmentMode.SEEDED ? 0 : donorMaxUses
+        );
     }
 
     public CopyResult copyPatchFromRandomDonor(PatchCoord targetPatch) {
-        PatchCoord donorPatch = selectRandomDonorPatch();
-        copyPatch(targetPatch, donorPatch);
+        DonorPatch donorPatch = selectDonorPatch(targetPatch, 0);
+        try {
+            copyPatch(targetPatch, donorPatch);
+        } catch (RuntimeException ex) {
+            releaseDonorPatch(donorPatch);
+            throw ex;
+        }
         return new CopyResult(targetPatch, donorPatch);
     }
 
-    public void copyPatch(PatchCoord targetPatch, PatchCoord donorPatch) {
+    public void copyPatch(PatchCoord targetPatch, DonorPatch donorPatch) {
+        BlockAccess donorAccess = donorPatch.source().getAccess();
         int targetMinX = targetPatch.minBlockX(patchWidth);
         int targetMinZ = targetPatch.minBlockZ(patchLength);
-        int donorMinX = donorPatch.minBlockX(patchWidth);
-        int donorMinZ = donorPatch.minBlockZ(patchLength);
+        int donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        int donorMinZ = donorPatch.coord().minBlockZ(patchLength);
 
-        int minY = Math.max(targetWorld.getMinHeight(), donorWorld.getMinHeight());
-        int maxY = Math.min(targetWorld.getMaxHeight(), donorWorld.getMaxHeight()) - 1;
+        int minY = Math.max(targetAccess.getMinHeight(), donorAccess.getMinHeight());
+        int maxY = Math.min(targetAccess.getMaxHeight(), donorAccess.getMaxHeight()) - 1;
+        List<BlockState> tileEntities = copyTileEntities ? collectTileEntities(donorPatch) : List.of();
 
         for (int dx = 0; dx < patchWidth; dx++) {
             for (int dz = 0; dz < patchLength; dz++) {
@@ -80,25 +187,139 @@ public final class PatchCopyService {
                 int donorZ = donorMinZ + dz;
 
                 for (int y = minY; y <= maxY; y++) {
-                    Block donorBlock = donorWorld.getBlockAt(donorX, y, donorZ);
-                    Block targetBlock = targetWorld.getBlockAt(targetX, y, targetZ);
-
-                    BlockData donorData = donorBlock.getBlockData();
-                    targetBlock.setBlockData(donorData, false);
+                    targetAccess.setBlockData(targetX, y, targetZ, donorAccess.getBlockData(donorX, y, donorZ));
 
                     if (copyBiomes) {
-                        Biome biome = donorWorld.getBiome(donorX, y, donorZ);
-                        targetWorld.setBiome(targetX, y, targetZ, biome);
+                        targetAccess.setBiome(targetX, y, targetZ, donorAccess.getBiome(donorX, y, donorZ));
                     }
                 }
             }
         }
+
+        applyTileEntities(tileEntities, targetPatch, donorPatch);
+    }
+
+    public List<BlockState> collectTileEntities(DonorPatch donorPatch) {
+        World donorWorld = donorPatch.source().getWorld();
+        int donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        int donorMinZ = donorPatch.coord().minBlockZ(patchLength);
+        int donorMaxX = donorMinX + patchWidth - 1;
+        int donorMaxZ = donorMinZ + patchLength - 1;
+
+        List<BlockState> states = new ArrayList<>();
+        for (int chunkX = Math.floorDiv(donorMinX, 16); chunkX <= Math.floorDiv(donorMaxX, 16); chunkX++) {
+            for (int chunkZ = Math.floorDiv(donorMinZ, 16); chunkZ <= Math.floorDiv(donorMaxZ, 16); chunkZ++) {
+                collectTileEntities(donorWorld.getChunkAt(chunkX, chunkZ), donorPatch, states);
+            }
+        }
+        return states;
+    }
+
+    public void collectTileEntities(Chunk donorChunk, DonorPatch donorPatch, List<BlockState> states) {
+        BlockAccess donorAccess = donorPatch.source().getAccess();
+        int donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        int donorMinZ = donorPatch.coord().minBlockZ(patchLength);
+        int donorMaxX = donorMinX + patchWidth - 1;
+        int donorMaxZ = donorMinZ + patchLength - 1;
+        int minY = Math.max(targetAccess.getMinHeight(), donorAccess.getMinHeight());
+        int maxY = Math.min(targetAccess.getMaxHeight(), donorAccess.getMaxHeight()) - 1;
+
+        for (BlockState state : donorChunk.getTileEntities()) {
+            if (state.getX() >= donorMinX && state.getX() <= donorMaxX
+                    && state.getZ() >= donorMinZ && state.getZ() <= donorMaxZ
+                    && state.getY() >= minY && state.getY() <= maxY) {
+                states.add(state);
+            }
+        }
+    }
+
+    public void applyTileEntities(List<BlockState> states, PatchCoord targetPatch, DonorPatch donorPatch) {
+        int offsetX = targetPatch.minBlockX(patchWidth) - donorPatch.coord().minBlockX(patchWidth);
+        int offsetZ = targetPatch.minBlockZ(patchLength) - donorPatch.coord().minBlockZ(patchLength);
+        for (BlockState state : states) {
+            applyTileEntity(state, offsetX, offsetZ);
+        }
+    }
+
+    public void applyTileEntity(BlockState state, int offsetX, int offsetZ) {
+        Location location = new Location(targetWorld, state.getX() + offsetX, state.getY(), state.getZ() + offsetZ);
+        state.copy(location).update(true, false);
+    }
+
+    public void collectEntities(Chunk donorChunk, PatchCoord targetPatch, DonorPatch donorPatch, List<EntityCopy> copies) {
+        int donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        int donorMinZ = donorPatch.coord().minBlockZ(patchLength);
+        int offsetX = targetPatch.minBlockX(patchWidth) - donorMinX;
+        int offsetZ = targetPatch.minBlockZ(patchLength) - donorMinZ;
+
+        for (Entity entity : donorChunk.getEntities()) {
+            if (entity instanceof Player) {
+                continue;
+            }
+            Location location = entity.getLocation();
+            if (location.getX() >= donorMinX && location.getX() < donorMinX + patchWidth
+                    && location.getZ() >= donorMinZ && location.getZ() < donorMinZ + patchLength) {
+                addEntityCopy(entity, offsetX, offsetZ, copies);
+            }
+        }
+    }
+
+    private void addEntityCopy(Entity entity, int offsetX, int offsetZ, List<EntityCopy> copies) {
+        EntitySnapshot snapshot = entity.createSnapshot();
+        if (snapshot == null) {
+            return;
+        }
+        Location donorLocation = entity.getLocation();
+        copies.add(new EntityCopy(snapshot, new Location(
+                targetWorld,
+                donorLocation.getX() + offsetX,
+                donorLocation.getY(),
+                donorLocation.getZ() + offsetZ,
+                donorLocation.getYaw(),
+                donorLocation.getPitch()
+        )));
+    }
+
+    public int clearTargetChunk(Chunk targetChunk, PatchCoord targetPatch) {
+        int minX = targetPatch.minBlockX(patchWidth);
+        int minZ = targetPatch.minBlockZ(patchLength);
+        int cleared = 0;
+        for (Entity entity : targetChunk.getEntities()) {
+            if (entity instanceof Player) {
+                continue;
+            }
+            Location location = entity.getLocation();
+            if (location.getX() >= minX && location.getX() < minX + patchWidth
+                    && location.getZ() >= minZ && location.getZ() < minZ + patchLength) {
+                entity.remove();
+                cleared++;
+            }
+        }
+        for (BlockState state : targetChunk.getTileEntities()) {
+            if (state.getX() >= minX && state.getX() < minX + patchWidth
+                    && state.getZ() >= minZ && state.getZ() < minZ + patchLength) {
+                if (state instanceof Container container) {
+                    container.getInventory().clear();
+                }
+                state.getBlock().setType(Material.AIR, false);
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    public boolean isCopyEntitiesEnabled() {
+        return copyEntities;
     }
 
     public boolean isCopyTileEntitiesEnabled() {
         return copyTileEntities;
     }
 
+    public boolean isBulkApplyEnabled() {
+        return bulkApply;
+    }
+
     public boolean isCopyBiomesEnabled() {
         return copyBiomes;
     }
@@ -107,8 +328,12 @@ public final class PatchCopyService {
         return targetWorld;
     }
 
-    public World getDonorWorld() {
-        return donorWorld;
+    public BlockAccess getTargetAccess() {
+        return targetAccess;
+    }
+
+    public List<DonorSource> getDonors() {
+        return donors;
     }
 
     public int getPatchWidth() {
@@ -119,65 +344,79 @@ public final class PatchCopyService {
         return patchLength;
     }
 
-    public PatchCoord selectRandomDonorPatch() {
-        return randomDonorPatchRaw();
+    public DonorReusePolicy getReusePolicy() {
+        return reusePolicy;
     }
 
-    public PatchCoord selectRandomDonorPatchPreferLand(int maxAttempts) {
-        int attempts = Math.max(1, maxAttempts);
-        PatchCoord fallback = selectRandomDonorPatch();
-        for (int i = 0; i < attempts; i++) {
-            PatchCoord candidate = selectRandomDonorPatch();
-            if (isLikelyLandPatch(candidate)) {
-                return candidate;
-            }
-            fallback = candidate;
-        }
-        return fallback;
-    }
-
-    private boolean isLikelyLandPatch(PatchCoord patch) {
-        int minX = patch.minBlockX(patchWidth);
-        int minZ = patch.minBlockZ(patchLength);
-        int centerX = minX + (patchWidth / 2);
-        int centerZ = minZ + (patchLength / 2);
-
-        int oceanSamples = 0;
-        int totalSamples = 0;
-        int[] sampleOffsetsX = new int[]{0, -(patchWidth / 3), patchWidth / 3};
-        int[] sampleOffsetsZ = new int[]{0, -(patchLength / 3), patchLength / 3};
-
-        for (int ox : sampleOffsetsX) {
-            for (int oz : sampleOffsetsZ) {
-                int sampleX = centerX + ox;
-                int sampleZ = centerZ + oz;
-                int sampleY = Math.max(donorWorld.getMinHeight(), donorWorld.getHighestBlockYAt(sampleX, sampleZ));
-                Biome biome = donorWorld.getBiome(sampleX, sampleY, sampleZ);
-                if (isOceanBiome(biome)) {
-                    oceanSamples++;
-                }
-                totalSamples++;
-            }
+    public DonorAssignmentMode getAssignmentMode() {
+        return assignmentMode;
+    }
+
+    public long getAssignmentSeed() {
+        return seededAssignment.getSeed();
+    }
+
+    public DonorPatch assignDonorPatch(PatchCoord targetPatch) {
+        return donorPatchOf(seededAssignment.assign(targetPatch));
+    }
+
+    public synchronized DonorPatch selectDonorPatch(PatchCoord targetPatch, int landAttempts) {
+        if (assignmentMode == DonorAssignmentMode.SEEDED) {
+            return assignDonorPatch(targetPatch);
         }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        DonorPatch selected = sampleDonorPatch(random);
+        for (int i = 1; i < landAttempts && !selected.source().isLikelyLandPatch(selected.coord()); i++) {
+            selected = sampleDonorPatch(random);
+        }
+        reusePolicy.markUsed(selected);
+        return selected;
+    }
 
-        return oceanSamples <= (totalSamples / 3);
+    public synchronized void releaseDonorPatch(DonorPatch donorPatch) {
+        reusePolicy.release(donorPatch);
     }
 
-    private boolean isOceanBiome(Biome biome) {
-        String biomeName = biome.name().toUpperCase(Locale.ROOT);
-        return biomeName.contains("OCEAN");
+    public synchronized void restoreDonorUsage(long packedDonor) {
+        DonorPatch donorPatch = donorPatchOf(packedDonor);
+        if (donorPatch != null) {
+            reusePolicy.markUsed(donorPatch);
+        }
+    }
+
+    public synchronized void releaseDonorUsage(long packedDonor) {
+        DonorPatch donorPatch = donorPatchOf(packedDonor);
+        if (donorPatch != null) {
+            reusePolicy.release(donorPatch);
+        }
+    }
+
+    public DonorPatch donorPatchOf(long packedDonor) {
+        int index = DonorPatch.donorIndexOf(packedDonor);
+        if (index >= donors.size()) {
+            return null;
+        }
+        return new DonorPatch(donors.get(index), DonorPatch.coordOf(packedDonor));
     }
 
-    private static int ceilDiv(int value, int divisor) {
-        return -Math.floorDiv(-value, divisor);
+    private DonorPatch sampleDonorPatch(RandomGenerator random) {
+        DonorSource donor = donors.get(donorTable.sample(random));
+        PatchCoord coord = reusePolicy.sample(donor, random);
+        if (coord != null) {
+            return new DonorPatch(donor, coord);
+        }
+        for (DonorSource fallback : donors) {
+            coord = reusePolicy.sample(fallback, random);
+            if (coord != null) {
+                return new DonorPatch(fallback, coord);
+            }
+        }
+        return new DonorPatch(donor, donor.randomPatch(random));
     }
 
-    private PatchCoord randomDonorPatchRaw() {
-        int x = ThreadLocalRandom.current().nextInt(donorMinPatchX, donorMaxPatchX + 1);
-        int z = ThreadLocalRandom.current().nextInt(donorMinPatchZ, donorMaxPatchZ + 1);
-        return new PatchCoord(x, z);
+    public record CopyResult(PatchCoord targetPatch, DonorPatch donorPatch) {
     }
 
-    public record CopyResult(PatchCoord targetPatch, PatchCoord donorPatch) {
+    public record EntityCopy(EntitySnapshot snapshot, Location target) {
     }
 }
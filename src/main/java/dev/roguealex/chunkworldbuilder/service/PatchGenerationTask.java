@@ -1,21 +1,31 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.world.BlockAccess;
+import dev.roguealex.chunkworldbuilder.world.ChunkView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
-import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.block.data.BlockData;
 
 public final class PatchGenerationTask {
 
     private final PatchCoord targetPatch;
-    private final PatchCoord donorPatch;
+    private final DonorPatch donorPatch;
     private final PatchCopyService patchCopyService;
-    private final World targetWorld;
-    private final World donorWorld;
+    private final BlockAccess target;
+    private final BlockAccess donor;
     private final int patchWidth;
     private final int patchLength;
     private final boolean copyBiomes;
+    private final boolean copyTileEntities;
+    private final boolean copyEntities;
     private final int minY;
     private final int maxY;
     private final int targetMinX;
@@ -27,16 +37,26 @@ public final class PatchGenerationTask {
     private final int targetMaxZ;
     private final int donorMaxX;
     private final int donorMaxZ;
+    private final boolean bulkApply;
+    private final Set<Long> touchedChunks;
+    private ChunkView[] donorSnapshots;
+    private ChunkView[] targetSnapshots;
+    private List<BlockState> tileEntities;
+    private List<PatchCopyService.EntityCopy> entities;
+    private ChangeBuffer changes;
+    private int changesApplied;
     private int dx;
     private int dz;
     private int y;
     private boolean complete;
-    private boolean copiedWithWorldEdit;
     private boolean prepared;
+    private long startedAtNanos;
+    private int ticks;
+    private long blocksWritten;
 
     public PatchGenerationTask(
             PatchCoord targetPatch,
-            PatchCoord donorPatch,
+            DonorPatch donorPatch,
             PatchCopyService patchCopyService,
             WorldEditPatchCopyEngine worldEditEngine
     ) {
@@ -44,21 +64,26 @@ public final class PatchGenerationTask {
         this.donorPatch = donorPatch;
         this.patchCopyService = patchCopyService;
         this.worldEditEngine = worldEditEngine;
-        this.targetWorld = patchCopyService.getTargetWorld();
-        this.donorWorld = patchCopyService.getDonorWorld();
+        this.target = patchCopyService.getTargetAccess();
+        this.donor = donorPatch.source().getAccess();
         this.patchWidth = patchCopyService.getPatchWidth();
         this.patchLength = patchCopyService.getPatchLength();
         this.copyBiomes = patchCopyService.isCopyBiomesEnabled();
+        this.copyTileEntities = patchCopyService.isCopyTileEntitiesEnabled();
+        this.copyEntities = patchCopyService.isCopyEntitiesEnabled();
+        this.bulkApply = patchCopyService.isBulkApplyEnabled();
+        this.touchedChunks = new HashSet<>();
+        this.entities = List.of();
 
-        minY = Math.max(targetWorld.getMinHeight(), donorWorld.getMinHeight());
-        maxY = Math.min(targetWorld.getMaxHeight(), donorWorld.getMaxHeight()) - 1;
+        minY = Math.max(target.getMinHeight(), donor.getMinHeight());
+        maxY = Math.min(target.getMaxHeight(), donor.getMaxHeight()) - 1;
 
         targetMinX = targetPatch.minBlockX(patchWidth);
         targetMinZ = targetPatch.minBlockZ(patchLength);
         targetMaxX = targetMinX + patchWidth - 1;
         targetMaxZ = targetMinZ + patchLength - 1;
-        donorMinX = donorPatch.minBlockX(patchWidth);
-        donorMinZ = donorPatch.minBlockZ(patchLength);
+        donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        donorMinZ = donorPatch.coord().minBlockZ(patchLength);
         donorMaxX = donorMinX + patchWidth - 1;
         donorMaxZ = donorMinZ + patchLength - 1;
 
@@ -66,32 +91,62 @@ public final class PatchGenerationTask {
         dz = 0;
         y = minY;
         complete = maxY < minY;
-        copiedWithWorldEdit = false;
         prepared = false;
     }
 
     public int process(int maxBlocks) {
         if (!prepared) {
-            prepareChunks();
-            prepared = true;
+            prepareSnapshots();
         }
+        ticks++;
 
-        if (!complete && !copiedWithWorldEdit && worldEditEngine != null) {
-            worldEditEngine.copyPatch(targetPatch, donorPatch);
-            copiedWithWorldEdit = true;
-            complete = true;
-            return Math.max(1, maxBlocks);
+        if (changes != null) {
+            return applyChanges(maxBlocks);
+        }
+
+        if (!complete && worldEditEngine != null) {
+            return copyWorldEditSlice(maxBlocks);
         }
 
         int processed = 0;
         while (!complete && processed < maxBlocks) {
-            copyCurrentBlock();
+            if (bulkApply) {
+                copyCurrentBlockBulk();
+            } else {
+                copyCurrentBlock();
+            }
             processed++;
             advanceCursor();
         }
+
+        if (complete) {
+            finish();
+        }
         return processed;
     }
 
+    public void prepareSnapshots() {
+        startedAtNanos = System.nanoTime();
+        prepareChunks();
+        prepared = true;
+    }
+
+    public void computeChanges() {
+        if (!prepared || !bulkApply || worldEditEngine != null) {
+            throw new IllegalStateException("Patch " + targetPatch.asKey() + " has no snapshots to diff");
+        }
+
+        ChangeBuffer buffer = new ChangeBuffer();
+        while (!complete) {
+            recordCurrentBlock(buffer);
+            advanceCursor();
+        }
+        donorSnapshots = null;
+        targetSnapshots = null;
+        changes = buffer;
+        complete = false;
+    }
+
     public boolean isComplete() {
         return complete;
     }
@@ -100,13 +155,125 @@ public final class PatchGenerationTask {
         return targetPatch;
     }
 
+    public DonorPatch donorPatch() {
+        return donorPatch;
+    }
+
+    public long startedAtNanos() {
+        return startedAtNanos;
+    }
+
+    public int ticks() {
+        return ticks;
+    }
+
+    public long blocksWritten() {
+        return blocksWritten;
+    }
+
+    public List<PatchCopyService.EntityCopy> entities() {
+        return entities;
+    }
+
+    public void drainTouchedChunks(Set<Long> sink) {
+        sink.addAll(touchedChunks);
+        touchedChunks.clear();
+    }
+
+    private int applyChanges(int maxBlocks) {
+        int processed = 0;
+        while (changesApplied < changes.size() && processed < maxBlocks) {
+            applyChange(changesApplied++);
+            processed++;
+        }
+
+        if (changesApplied == changes.size()) {
+            changes = null;
+            complete = true;
+            finish();
+        }
+        return processed;
+    }
+
+    private void applyChange(int index) {
+        long cell = changes.cell(index);
+        int targetX = targetMinX + (int) (cell >>> 42);
+        int targetZ = targetMinZ + (int) ((cell >>> 21) & 0x1FFFFF);
+        int cellY = minY + (int) (cell & 0x1FFFFF);
+
+        BlockData block = changes.block(index);
+        if (block != null) {
+            target.setBlockData(targetX, cellY, targetZ, block);
+            blocksWritten++;
+        }
+        Biome biome = changes.biome(index);
+        if (biome != null) {
+            target.setBiome(targetX, cellY, targetZ, biome);
+        }
+        touchedChunks.add(ChunkKey.of(targetX >> 4, targetZ >> 4));
+    }
+
+    private void finish() {
+        if (tileEntities != null) {
+            patchCopyService.applyTileEntities(tileEntities, targetPatch, donorPatch);
+            tileEntities = null;
+        }
+        donorSnapshots = null;
+        targetSnapshots = null;
+    }
+
     private void prepareChunks() {
-        loadChunkRange(targetWorld, targetMinX, targetMaxX, targetMinZ, targetMaxZ, true, true);
-        loadChunkRange(donorWorld, donorMinX, donorMaxX, donorMinZ, donorMaxZ, true, true);
+        loadChunkRange(target, targetMinX, targetMaxX, targetMinZ, targetMaxZ, true, true);
+        loadChunkRange(donor, donorMinX, donorMaxX, donorMinZ, donorMaxZ, true, true);
+        if (copyTileEntities && worldEditEngine == null) {
+            tileEntities = patchCopyService.collectTileEntities(donorPatch);
+        }
+        if (copyEntities) {
+            collectEntities();
+        }
+        if (bulkApply) {
+            donorSnapshots = snapshotChunkRange(donor, donorMinX, donorMaxX, donorMinZ, donorMaxZ);
+            targetSnapshots = snapshotChunkRange(target, targetMinX, targetMaxX, targetMinZ, targetMaxZ);
+        }
+    }
+
+    private void collectEntities() {
+        World donorWorld = donorPatch.source().getWorld();
+        List<PatchCopyService.EntityCopy> copies = new ArrayList<>();
+        for (int chunkX = Math.floorDiv(donorMinX, 16); chunkX <= Math.floorDiv(donorMaxX, 16); chunkX++) {
+            for (int chunkZ = Math.floorDiv(donorMinZ, 16); chunkZ <= Math.floorDiv(donorMaxZ, 16); chunkZ++) {
+                patchCopyService.collectEntities(donorWorld.getChunkAt(chunkX, chunkZ), targetPatch, donorPatch, copies);
+            }
+        }
+        entities = copies;
+    }
+
+    private ChunkView[] snapshotChunkRange(BlockAccess world, int minX, int maxX, int minZ, int maxZ) {
+        int minChunkX = Math.floorDiv(minX, 16);
+        int maxChunkX = Math.floorDiv(maxX, 16);
+        int minChunkZ = Math.floorDiv(minZ, 16);
+        int maxChunkZ = Math.floorDiv(maxZ, 16);
+        int spanZ = maxChunkZ - minChunkZ + 1;
+
+        ChunkView[] snapshots = new ChunkView[(maxChunkX - minChunkX + 1) * spanZ];
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                snapshots[(chunkX - minChunkX) * spanZ + (chunkZ - minChunkZ)] =
+                        world.snapshotChunk(chunkX, chunkZ, copyBiomes);
+            }
+        }
+        return snapshots;
+    }
+
+    private static ChunkView snapshotAt(ChunkView[] snapshots, int minX, int maxZ, int minZ, int x, int z) {
+        int minChunkX = Math.floorDiv(minX, 16);
+        int minChunkZ = Math.floorDiv(minZ, 16);
+        int spanZ = Math.floorDiv(maxZ, 16) - minChunkZ + 1;
+        return snapshots[(Math.floorDiv(x, 16) - minChunkX) * spanZ + (Math.floorDiv(z, 16) - minChunkZ)];
     }
 
     private void loadChunkRange(
-            World world,
+            BlockAccess world,
             int minX,
             int maxX,
             int minZ,
@@ -130,21 +297,89 @@ public final class PatchGenerationTask {
         }
     }
 
+    private int copyWorldEditSlice(int maxBlocks) {
+        int columns = patchWidth * patchLength;
+        int sliceMaxY = Math.min(maxY, y + Math.max(1, maxBlocks / columns) - 1);
+        worldEditEngine.copySlice(targetPatch, donorPatch, y, sliceMaxY);
+
+        int copied = (sliceMaxY - y + 1) * columns;
+        blocksWritten += copied;
+        y = sliceMaxY + 1;
+        if (y > maxY) {
+            complete = true;
+        }
+        return copied;
+    }
+
     private void copyCurrentBlock() {
         int targetX = targetMinX + dx;
         int targetZ = targetMinZ + dz;
         int donorX = donorMinX + dx;
         int donorZ = donorMinZ + dz;
 
-        Block donorBlock = donorWorld.getBlockAt(donorX, y, donorZ);
-        Block targetBlock = targetWorld.getBlockAt(targetX, y, targetZ);
+        target.setBlockData(targetX, y, targetZ, donor.getBlockData(donorX, y, donorZ));
+        blocksWritten++;
+
+        if (copyBiomes) {
+            target.setBiome(targetX, y, targetZ, donor.getBiome(donorX, y, donorZ));
+        }
+    }
+
+    private void copyCurrentBlockBulk() {
+        int targetX = targetMinX + dx;
+        int targetZ = targetMinZ + dz;
+        int donorX = donorMinX + dx;
+        int donorZ = donorMinZ + dz;
+
+        ChunkView donorChunk = snapshotAt(donorSnapshots, donorMinX, donorMaxZ, donorMinZ, donorX, donorZ);
+        ChunkView targetChunk = snapshotAt(targetSnapshots, targetMinX, targetMaxZ, targetMinZ, targetX, targetZ);
+        int donorLocalX = donorX & 15;
+        int donorLocalZ = donorZ & 15;
+        int targetLocalX = targetX & 15;
+        int targetLocalZ = targetZ & 15;
 
-        BlockData donorData = donorBlock.getBlockData();
-        targetBlock.setBlockData(donorData, false);
+        BlockData donorData = donorChunk.getBlockData(donorLocalX, y, donorLocalZ);
+        if (!donorData.equals(targetChunk.getBlockData(targetLocalX, y, targetLocalZ))) {
+            target.setBlockData(targetX, y, targetZ, donorData);
+            blocksWritten++;
+            touchedChunks.add(ChunkKey.of(targetX >> 4, targetZ >> 4));
+        }
 
         if (copyBiomes) {
-            Biome biome = donorWorld.getBiome(donorX, y, donorZ);
-            targetWorld.setBiome(targetX, y, targetZ, biome);
+            Biome biome = donorChunk.getBiome(donorLocalX, y, donorLocalZ);
+            if (biome != targetChunk.getBiome(targetLocalX, y, targetLocalZ)) {
+                target.setBiome(targetX, y, targetZ, biome);
+                touchedChunks.add(ChunkKey.of(targetX >> 4, targetZ >> 4));
+            }
+        }
+    }
+
+    private void recordCurrentBlock(ChangeBuffer buffer) {
+        int donorX = donorMinX + dx;
+        int donorZ = donorMinZ + dz;
+        int targetX = targetMinX + dx;
+        int targetZ = targetMinZ + dz;
+
+        ChunkView donorChunk = snapshotAt(donorSnapshots, donorMinX, donorMaxZ, donorMinZ, donorX, donorZ);
+        ChunkView targetChunk = snapshotAt(targetSnapshots, targetMinX, targetMaxZ, targetMinZ, targetX, targetZ);
+        int donorLocalX = donorX & 15;
+        int donorLocalZ = donorZ & 15;
+        int targetLocalX = targetX & 15;
+        int targetLocalZ = targetZ & 15;
+
+        BlockData donorData = donorChunk.getBlockData(donorLocalX, y, donorLocalZ);
+        BlockData block = donorData.equals(targetChunk.getBlockData(targetLocalX, y, targetLocalZ)) ? null : donorData;
+
+        Biome biome = null;
+        if (copyBiomes) {
+            Biome donorBiome = donorChunk.getBiome(donorLocalX, y, donorLocalZ);
+            if (donorBiome != targetChunk.getBiome(targetLocalX, y, targetLocalZ)) {
+                biome = donorBiome;
+            }
+        }
+
+        if (block != null || biome != null) {
+            buffer.add(((long) dx << 42) | ((long) dz << 21) | (y - minY), block, biome);
         }
     }
 
@@ -166,4 +401,41 @@ public final class PatchGenerationTask {
             complete = true;
         }
     }
+
+    private static final class ChangeBuffer {
+
+        private long[] cells = new long[1024];
+        private BlockData[] blocks = new BlockData[1024];
+        private Biome[] biomes = new Biome[1024];
+        private int size;
+
+        void add(long cell, BlockData block, Biome biome) {
+            if (size == cells.length) {
+                int capacity = size * 2;
+                cells = Arrays.copyOf(cells, capacity);
+                blocks = Arrays.copyOf(blocks, capacity);
+                biomes = Arrays.copyOf(biomes, capacity);
+            }
+            cells[size] = cell;
+            blocks[size] = block;
+            biomes[size] = biome;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long cell(int index) {
+            return cells[index];
+        }
+
+        BlockData block(int index) {
+            return blocks[index];
+        }
+
+        Biome biome(int index) {
+            return biomes[index];
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+public final class PatchPreparationScheduler {
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+    private final ArrayDeque<PreparedPatch> inFlight;
+    private final Map<Long, Integer> claimedChunks;
+
+    public PatchPreparationScheduler(ForkJoinPool pool, int maxInFlight) {
+        this.pool = pool;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new ArrayDeque<>();
+        this.claimedChunks = new HashMap<>();
+    }
+
+    public boolean hasCapacity() {
+        return inFlight.size() < maxInFlight;
+    }
+
+    public boolean dependsOnInFlight(long[] chunks) {
+        for (long chunk : chunks) {
+            if (claimedChunks.containsKey(chunk)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void submit(PatchGenerationTask task, long[] chunks, long enqueuedAtNanos) {
+        for (long chunk : chunks) {
+            claimedChunks.merge(chunk, 1, Integer::sum);
+        }
+        inFlight.add(new PreparedPatch(task, chunks, enqueuedAtNanos, CompletableFuture.runAsync(task::computeChanges, pool)));
+    }
+
+    public PreparedPatch pollReady() {
+        PreparedPatch head = inFlight.peek();
+        if (head == null || !head.future().isDone()) {
+            return null;
+        }
+        return inFlight.poll();
+    }
+
+    public void release(long[] chunks) {
+        for (long chunk : chunks) {
+            claimedChunks.computeIfPresent(chunk, (ignored, count) -> count <= 1 ? null : count - 1);
+        }
+    }
+
+    public List<PreparedPatch> drain() {
+        List<PreparedPatch> drained = new ArrayList<>(inFlight);
+        for (PreparedPatch prepared : drained) {
+            prepared.future().cancel(false);
+        }
+        inFlight.clear();
+        claimedChunks.clear();
+        return drained;
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    public record PreparedPatch(
+            PatchGenerationTask task,
+            long[] chunks,
+            long enqueuedAtNanos,
+            CompletableFuture<Void> future
+    ) {
+    }
+}
@@ -0,0 +1,543 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchSpiral;
+import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
+import dev.roguealex.chunkworldbuilder.patch.PatchStatus;
+import dev.roguealex.chunkworldbuilder.world.FoliaDetector;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public final class PregenService {
+
+    private static final int MAX_SCAN_PER_RUN = 4096;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int CLEARING = -1;
+    private static final int CLEAR_CHUNKS_PER_TICK = 2;
+    private static final String TARGET_WORLD_UUID_PATH = "target-world-uuid";
+    private static final String PATCH_WIDTH_PATH = "patch-width";
+    private static final String PATCH_LENGTH_PATH = "patch-length";
+    private static final String AREA_MIN_X_PATH = "area.min-x";
+    private static final String AREA_MIN_Z_PATH = "area.min-z";
+    private static final String AREA_MAX_X_PATH = "area.max-x";
+    private static final String AREA_MAX_Z_PATH = "area.max-z";
+    private static final String CURSOR_RING_PATH = "cursor.ring";
+    private static final String CURSOR_OFFSET_PATH = "cursor.offset";
+    private static final String IN_FLIGHT_PATH = "in-flight";
+    private static final String CLEARING_PATH = "clearing";
+    private static final String PROCESSED_PATH = "processed";
+    private static final String QUEUED_PATH = "queued";
+    private static final String ALREADY_GENERATED_PATH = "already-generated";
+    private static final String ACTIVE_MILLIS_PATH = "active-millis";
+    private static final String PAUSED_PATH = "paused";
+    private static final String REGENERATE_PATH = "regenerate";
+
+    private final JavaPlugin plugin;
+    private final World targetWorld;
+    private final PatchStateRegistry patchStateRegistry;
+    private final WorldExpansionService worldExpansionService;
+    private final PatchCopyService patchCopyService;
+    private final TickProfiler profiler;
+    private final File progressFile;
+    private final int patchWidth;
+    private final int patchLength;
+    private final long intervalTicks;
+    private final int maxQueued;
+    private final boolean pauseWhenPlayersOnline;
+    private final double maxMspt;
+    private final long reportIntervalNanos;
+    private final Map<PatchCoord, Integer> inFlight;
+    private final Queue<ChunkClear> pendingClears;
+    private PatchSpiral spiral;
+    private boolean regenerate;
+    private int clearing;
+    private long processed;
+    private long queued;
+    private long alreadyGenerated;
+    private long activeNanos;
+    private long lastRunNanos;
+    private long lastReportNanos;
+    private boolean pausedByCommand;
+    private String pauseReason;
+    private ScheduledTask task;
+    private ScheduledTask clearTask;
+
+    public PregenService(
+            JavaPlugin plugin,
+            World targetWorld,
+            PatchStateRegistry patchStateRegistry,
+            WorldExpansionService worldExpansionService,
+            PatchCopyService patchCopyService,
+            TickProfiler profiler,
+            File progressFile,
+            int patchWidth,
+            int patchLength,
+            long intervalTicks,
+            int maxQueuePercent,
+            boolean pauseWhenPlayersOnline,
+            double maxMspt,
+            int reportIntervalSeconds
+    ) {
+        this.plugin = plugin;
+        this.targetWorld = targetWorld;
+        this.patchStateRegistry = patchStateRegistry;
+        this.worldExpansionService = worldExpansionService;
+        this.patchCopyService = patchCopyService;
+        this.profiler = profiler;
+        this.progressFile = progressFile;
+        this.patchWidth = patchWidth;
+        this.patchLength = patchLength;
+        this.intervalTicks = Math.max(1L, intervalTicks);
+        this.maxQueued = Math.max(1, (int) ((long) worldExpansionService.getMaxPatchesQueued()
+                * Math.max(1, Math.min(100, maxQueuePercent)) / 100L));
+        this.pauseWhenPlayersOnline = pauseWhenPlayersOnline;
+        this.maxMspt = FoliaDetector.isFolia() ? 0.0 : maxMspt;
+        this.reportIntervalNanos = Math.max(1, reportIntervalSeconds) * 1_000_000_000L;
+        this.inFlight = new LinkedHashMap<>();
+        this.pendingClears = new ArrayDeque<>();
+    }
+
+    public synchronized boolean start(PatchSpiral area, boolean regenerate) {
+        if (spiral != null) {
+            return false;
+        }
+        spiral = area;
+        this.regenerate = regenerate;
+        clearing = 0;
+        pendingClears.clear();
+        processed = 0L;
+        queued = 0L;
+        alreadyGenerated = 0L;
+        activeNanos = 0L;
+        pausedByCommand = false;
+        inFlight.clear();
+        beginSession();
+        save();
+        return true;
+    }
+
+    public synchronized void resumeSaved() {
+        if (spiral != null || !progressFile.exists()) {
+            return;
+        }
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(progressFile);
+        if (!targetWorld.getUID().toString().equals(yaml.getString(TARGET_WORLD_UUID_PATH))
+                || yaml.getInt(PATCH_WIDTH_PATH) != patchWidth
+                || yaml.getInt(PATCH_LENGTH_PATH) != patchLength) {
+            plugin.getLogger().warning("Discarding saved pregen progress for " + targetWorld.getName()
+                    + ": the world or its patch size changed.");
+            deleteProgress();
+            return;
+        }
+
+        try {
+            spiral = new PatchSpiral(
+                    yaml.getInt(AREA_MIN_X_PATH),
+                    yaml.getInt(AREA_MIN_Z_PATH),
+                    yaml.getInt(AREA_MAX_X_PATH),
+                    yaml.getInt(AREA_MAX_Z_PATH),
+                    yaml.getInt(CURSOR_RING_PATH),
+                    yaml.getInt(CURSOR_OFFSET_PATH)
+            );
+        } catch (IllegalArgumentException ex) {
+            plugin.getLogger().warning("Discarding invalid pregen progress for " + targetWorld.getName()
+                    + ": " + ex.getMessage());
+            deleteProgress();
+            return;
+        }
+        processed = yaml.getLong(PROCESSED_PATH);
+        queued = yaml.getLong(QUEUED_PATH);
+        alreadyGenerated = yaml.getLong(ALREADY_GENERATED_PATH);
+        activeNanos = yaml.getLong(ACTIVE_MILLIS_PATH) * 1_000_000L;
+        pausedByCommand = yaml.getBoolean(PAUSED_PATH);
+        regenerate = yaml.getBoolean(REGENERATE_PATH);
+        clearing = 0;
+        pendingClears.clear();
+        inFlight.clear();
+        for (String key : yaml.getStringList(IN_FLIGHT_PATH)) {
+            try {
+                inFlight.put(PatchCoord.fromKey(key), 0);
+            } catch (IllegalArgumentException ex) {
+                plugin.getLogger().warning("Skipping invalid pregen entry: " + key);
+            }
+        }
+        beginSession();
+        for (String key : yaml.getStringList(CLEARING_PATH)) {
+            try {
+                PatchCoord patch = PatchCoord.fromKey(key);
+                if (patchStateRegistry.tryClaimForClearing(patch)) {
+                    clearAndQueue(patch);
+                } else if (patchStateRegistry.getStatus(patch) != PatchStatus.DONE) {
+                    inFlight.put(patch, 0);
+                }
+            } catch (IllegalArgumentException ex) {
+                plugin.getLogger().warning("Skipping invalid pregen entry: " + key);
+            }
+        }
+        plugin.getLogger().info("Resuming " + label().toLowerCase(Locale.ROOT) + " of " + targetWorld.getName() + " at "
+                + processed + "/" + spiral.area() + " patches" + (pausedByCommand ? " (paused)." : "."));
+    }
+
+    public synchronized boolean pause() {
+        if (spiral == null || pausedByCommand) {
+            return false;
+        }
+        pausedByCommand = true;
+        save();
+        return true;
+    }
+
+    public synchronized boolean resume() {
+        if (spiral == null || !pausedByCommand) {
+            return false;
+        }
+        pausedByCommand = false;
+        save();
+        return true;
+    }
+
+    public synchronized boolean cancel() {
+        if (spiral == null) {
+            return false;
+        }
+        finish();
+        return true;
+    }
+
+    public synchronized boolean isRunning() {
+        return spiral != null;
+    }
+
+    public synchronized boolean isRegenerating() {
+        return spiral != null && regenerate;
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        cancelClearTask();
+        if (spiral != null) {
+            accumulateActiveTime(System.nanoTime());
+            save();
+        }
+    }
+
+    public synchronized List<String> describe() {
+        if (spiral == null) {
+            return List.of("No pregen or regen running in " + targetWorld.getName() + ".");
+        }
+        long area = spiral.area();
+        List<String> lines = new ArrayList<>();
+        lines.add(label() + " of " + targetWorld.getName() + ": " + processed + "/" + area + " patches ("
+                + String.format(Locale.ROOT, "%.1f", processed * 100.0 / area) + "%), area "
+                + spiral.getMinPatchX() + "," + spiral.getMinPatchZ() + " .. "
+                + spiral.getMaxPatchX() + "," + spiral.getMaxPatchZ() + ".");
+        lines.add(" queued=" + queued + " alreadyGenerated=" + alreadyGenerated + " inFlight=" + inFlight.size()
+                + (regenerate ? " clearing=" + clearing : "")
+                + " state=" + (pauseReason == null ? "running" : "paused (" + pauseReason + ")"));
+        lines.add(" elapsed=" + formatDuration(activeNanos / 1_000_000_000L) + " eta=" + describeEta());
+        return lines;
+    }
+
+    private void beginSession() {
+        lastRunNanos = System.nanoTime();
+        lastReportNanos = lastRunNanos;
+        pauseReason = null;
+        if (task == null) {
+            Runnable feed = profiler.wrap("pregen-feed", this::run);
+            task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(
+                    plugin,
+                    ignored -> feed.run(),
+                    intervalTicks,
+                    intervalTicks
+            );
+        }
+    }
+
+    private synchronized void run() {
+        if (spiral == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        String reason = pauseReason();
+        if (!Objects.equals(reason, pauseReason)) {
+            plugin.getLogger().info(label() + " of " + targetWorld.getName()
+                    + (reason == null ? " resumed." : " paused: " + reason + "."));
+            pauseReason = reason;
+        }
+        if (reason != null) {
+            lastRunNanos = now;
+            return;
+        }
+        accumulateActiveTime(now);
+
+        retryInFlight();
+        int scanned = 0;
+        while (scanned < MAX_SCAN_PER_RUN && worldExpansionService.getQueuedCount() + clearing < maxQueued) {
+            int ring = spiral.getRing();
+            int offset = spiral.getOffset();
+            PatchCoord next = spiral.next();
+            if (next == null) {
+                break;
+            }
+            scanned++;
+
+            PatchStatus status = patchStateRegistry.getStatus(next);
+            if (status == PatchStatus.NEW) {
+                if (!worldExpansionService.queuePatch(next)) {
+                    spiral.seek(ring, offset);
+                    break;
+                }
+                inFlight.put(next, 1);
+                queued++;
+            } else if (status == PatchStatus.DONE) {
+                if (regenerate && resetAndQueue(next)) {
+                    queued++;
+                } else {
+                    alreadyGenerated++;
+                }
+            }
+            processed++;
+        }
+
+        if (spiral.isFinished() && inFlight.isEmpty()) {
+            plugin.getLogger().info(label() + " of " + targetWorld.getName() + " finished: " + processed
+                    + " patches (queued " + queued + ", already generated " + alreadyGenerated + ") in "
+                    + formatDuration(activeNanos / 1_000_000_000L) + ".");
+            finish();
+            return;
+        }
+        if (now - lastReportNanos >= reportIntervalNanos) {
+            lastReportNanos = now;
+            save();
+            plugin.getLogger().info(label() + " of " + targetWorld.getName() + ": " + processed + "/" + spiral.area()
+                    + " patches, eta " + describeEta() + ".");
+        }
+    }
+
+    private boolean resetAndQueue(PatchCoord patch) {
+        Long donor = patchStateRegistry.getDonor(patch);
+        if (!patchStateRegistry.tryReset(patch)) {
+            return false;
+        }
+        if (donor != null) {
+            patchCopyService.releaseDonorUsage(donor);
+        }
+        clearAndQueue(patch);
+        return true;
+    }
+
+    private void clearAndQueue(PatchCoord patch) {
+        inFlight.put(patch, CLEARING);
+        clearing++;
+
+        long[] chunks = ChunkKey.forPatch(patch, patchWidth, patchLength);
+        AtomicInteger remaining = new AtomicInteger(chunks.length);
+        for (long chunk : chunks) {
+            pendingClears.add(new ChunkClear(patch, chunk, remaining));
+        }
+        if (clearTask == null) {
+            Runnable clear = profiler.wrap("regen-clear", this::clearPendingChunks);
+            clearTask = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> clear.run(), 1L, 1L);
+        }
+    }
+
+    private synchronized void clearPendingChunks() {
+        for (int i = 0; i < CLEAR_CHUNKS_PER_TICK && !pendingClears.isEmpty(); i++) {
+            ChunkClear pending = pendingClears.poll();
+            int chunkX = ChunkKey.x(pending.chunk());
+            int chunkZ = ChunkKey.z(pending.chunk());
+            if (FoliaDetector.isFolia()) {
+                Bukkit.getRegionScheduler().execute(plugin, targetWorld, chunkX, chunkZ,
+                        () -> clearChunk(targetWorld.getChunkAt(chunkX, chunkZ), pending));
+            } else {
+                targetWorld.getChunkAtAsync(chunkX, chunkZ).whenComplete((chunk, error) -> clearChunk(chunk, pending));
+            }
+        }
+        if (pendingClears.isEmpty()) {
+            cancelClearTask();
+        }
+    }
+
+    private void clearChunk(Chunk chunk, ChunkClear pending) {
+        try {
+            if (chunk != null && patchStateRegistry.getStatus(pending.patch()) == PatchStatus.CLEARING) {
+                patchCopyService.clearTargetChunk(chunk, pending.patch());
+            }
+        } catch (RuntimeException ex) {
+            plugin.getLogger().warning("Could not clear patch " + pending.patch().asKey() + " in chunk "
+                    + ChunkKey.x(pending.chunk()) + "," + ChunkKey.z(pending.chunk()) + ": " + ex.getMessage());
+        }
+        if (pending.remaining().decrementAndGet() == 0) {
+            queueCleared(pending.patch());
+        }
+    }
+
+    private void cancelClearTask() {
+        if (clearTask != null) {
+            clearTask.cancel();
+            clearTask = null;
+        }
+    }
+
+    private synchronized void queueCleared(PatchCoord patch) {
+        Integer attempts = inFlight.get(patch);
+        if (attempts != null && attempts == CLEARING) {
+            clearing--;
+            inFlight.put(patch, 1);
+        }
+        if (patchStateRegistry.finishClearing(patch)) {
+            worldExpansionService.queuePatch(patch);
+        }
+    }
+
+    private void retryInFlight() {
+        Iterator<Map.Entry<PatchCoord, Integer>> iterator = inFlight.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<PatchCoord, Integer> entry = iterator.next();
+            PatchStatus status = patchStateRegistry.getStatus(entry.getKey());
+            if (status == PatchStatus.DONE) {
+                iterator.remove();
+            } else if (status == PatchStatus.NEW && entry.getValue() != CLEARING) {
+                if (entry.getValue() >= MAX_ATTEMPTS) {
+                    plugin.getLogger().warning(label() + " gave up on patch " + entry.getKey().asKey()
+                            + " of " + targetWorld.getName() + " after " + MAX_ATTEMPTS + " attempts.");
+                    iterator.remove();
+                } else if (worldExpansionService.getQueuedCount() < maxQueued
+                        && worldExpansionService.queuePatch(entry.getKey())) {
+                    entry.setValue(entry.getValue() + 1);
+                }
+            }
+        }
+    }
+
+    private String pauseReason() {
+        if (pausedByCommand) {
+            return "by command";
+        }
+        if (pauseWhenPlayersOnline && !regenerate && !Bukkit.getOnlinePlayers().isEmpty()) {
+            return "players online";
+        }
+        if (maxMspt > 0.0) {
+            double mspt = Bukkit.getAverageTickTime();
+            if (mspt > maxMspt) {
+                return "mspt " + String.format(Locale.ROOT, "%.1f", mspt) + " > "
+                        + String.format(Locale.ROOT, "%.1f", maxMspt);
+            }
+        }
+        return null;
+    }
+
+    private void accumulateActiveTime(long now) {
+        if (pauseReason == null) {
+            activeNanos += now - lastRunNanos;
+        }
+        lastRunNanos = now;
+    }
+
+    private String describeEta() {
+        long remaining = spiral.area() - processed;
+        if (remaining <= 0L) {
+            return "finishing";
+        }
+        if (processed <= 0L || activeNanos <= 0L) {
+            return "unknown";
+        }
+        double patchesPerSecond = processed * 1.0e9 / activeNanos;
+        return formatDuration((long) (remaining / patchesPerSecond));
+    }
+
+    private void finish() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        cancelClearTask();
+        pendingClears.clear();
+        for (Map.Entry<PatchCoord, Integer> entry : inFlight.entrySet()) {
+            if (entry.getValue() == CLEARING) {
+                patchStateRegistry.finishClearing(entry.getKey());
+            }
+        }
+        spiral = null;
+        clearing = 0;
+        inFlight.clear();
+        pauseReason = null;
+        deleteProgress();
+    }
+
+    private void save() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set(TARGET_WORLD_UUID_PATH, targetWorld.getUID().toString());
+        yaml.set(PATCH_WIDTH_PATH, patchWidth);
+        yaml.set(PATCH_LENGTH_PATH, patchLength);
+        yaml.set(AREA_MIN_X_PATH, spiral.getMinPatchX());
+        yaml.set(AREA_MIN_Z_PATH, spiral.getMinPatchZ());
+        yaml.set(AREA_MAX_X_PATH, spiral.getMaxPatchX());
+        yaml.set(AREA_MAX_Z_PATH, spiral.getMaxPatchZ());
+        yaml.set(CURSOR_RING_PATH, spiral.getRing());
+        yaml.set(CURSOR_OFFSET_PATH, spiral.getOffset());
+        List<String> pending = new ArrayList<>(inFlight.size());
+        List<String> clearingPatches = new ArrayList<>();
+        for (Map.Entry<PatchCoord, Integer> entry : inFlight.entrySet()) {
+            (entry.getValue() == CLEARING ? clearingPatches : pending).add(entry.getKey().asKey());
+        }
+        yaml.set(IN_FLIGHT_PATH, pending);
+        yaml.set(CLEARING_PATH, clearingPatches);
+        yaml.set(PROCESSED_PATH, processed);
+        yaml.set(QUEUED_PATH, queued);
+        yaml.set(ALREADY_GENERATED_PATH, alreadyGenerated);
+        yaml.set(ACTIVE_MILLIS_PATH, activeNanos / 1_000_000L);
+        yaml.set(PAUSED_PATH, pausedByCommand);
+        yaml.set(REGENERATE_PATH, regenerate);
+        try {
+            yaml.save(progressFile);
+        } catch (IOException ex) {
+            plugin.getLogger().warning("Could not save " + label().toLowerCase(Locale.ROOT) + " progress for " + targetWorld.getName()
+                    + ": " + ex.getMessage());
+        }
+    }
+
+    private void deleteProgress() {
+        if (progressFile.exists() && !progressFile.delete()) {
+            plugin.getLogger().warning("Could not delete pregen progress file: " + progressFile.getAbsolutePath());
+        }
+    }
+
+    private String label() {
+        return regenerate ? "Regen" : "Pregen";
+    }
+
+    private static String formatDuration(long seconds) {
+        if (seconds >= 3600L) {
+            return (seconds / 3600L) + "h " + String.format(Locale.ROOT, "%02d", (seconds % 3600L) / 60L) + "m";
+        }
+        if (seconds >= 60L) {
+            return (seconds / 60L) + "m " + String.format(Locale.ROOT, "%02d", seconds % 60L) + "s";
+        }
+        return seconds + "s";
+    }
+
+    private record ChunkClear(PatchCoord patch, long chunk, AtomicInteger remaining) {
+    }
+}
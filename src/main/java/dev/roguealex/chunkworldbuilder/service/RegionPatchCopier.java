@@ -0,0 +1,304 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.world.BlockAccess;
+import dev.roguealex.chunkworldbuilder.world.ChunkView;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public final class RegionPatchCopier {
+
+    private final JavaPlugin plugin;
+    private final PatchCopyService patchCopyService;
+    private final AtomicInteger blockTokens;
+    private final AtomicInteger entityTokens;
+    private final AtomicInteger activeWrites;
+    private final World targetWorld;
+    private final BlockAccess targetAccess;
+    private final int patchWidth;
+    private final int patchLength;
+    private volatile int blocksPerTick;
+    private volatile boolean cancelled;
+
+    public RegionPatchCopier(JavaPlugin plugin, PatchCopyService patchCopyService) {
+        this.plugin = plugin;
+        this.patchCopyService = patchCopyService;
+        this.blockTokens = new AtomicInteger();
+        this.entityTokens = new AtomicInteger();
+        this.activeWrites = new AtomicInteger();
+        this.blocksPerTick = 1;
+        this.targetWorld = patchCopyService.getTargetWorld();
+        this.targetAccess = patchCopyService.getTargetAccess();
+        this.patchWidth = patchCopyService.getPatchWidth();
+        this.patchLength = patchCopyService.getPatchLength();
+    }
+
+    public CompletableFuture<Result> copy(PatchCoord targetPatch, DonorPatch donorPatch) {
+        long[] donorChunks = ChunkKey.forPatch(donorPatch.coord(), patchWidth, patchLength);
+        List<CompletableFuture<DonorChunk>> snapshots = new ArrayList<>(donorChunks.length);
+        for (long donorChunk : donorChunks) {
+            snapshots.add(snapshotDonorChunk(donorChunk, targetPatch, donorPatch));
+        }
+
+        return CompletableFuture.allOf(snapshots.toArray(CompletableFuture[]::new)).thenCompose(ignored -> {
+            Map<Long, DonorChunk> donors = new HashMap<>();
+            for (int i = 0; i < donorChunks.length; i++) {
+                donors.put(donorChunks[i], snapshots.get(i).join());
+            }
+
+            long[] targetChunks = ChunkKey.forPatch(targetPatch, patchWidth, patchLength);
+            List<CompletableFuture<Result>> writes = new ArrayList<>(targetChunks.length);
+            for (long targetChunk : targetChunks) {
+                ChunkWrite write = new ChunkWrite(targetChunk, targetPatch, donorPatch, donors);
+                Bukkit.getRegionScheduler().run(plugin, targetWorld, write.chunkX, write.chunkZ, write);
+                writes.add(write.result);
+            }
+            return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).thenApply(done -> {
+                int ticks = 0;
+                long written = 0L;
+                for (CompletableFuture<Result> write : writes) {
+                    Result result = write.join();
+                    ticks = Math.max(ticks, result.ticks());
+                    written += result.blocksWritten();
+                }
+                return new Result(ticks, written);
+            });
+        });
+    }
+
+    public int refill(int blocks, int entities) {
+        int previous = blocksPerTick;
+        blocksPerTick = Math.max(1, blocks);
+        int used = previous - Math.max(0, blockTokens.getAndSet(blocksPerTick));
+        entityTokens.set(Math.max(1, entities));
+        return Math.max(0, used);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private static int acquire(AtomicInteger pool, int wanted) {
+        while (true) {
+            int available = pool.get();
+            if (available <= 0 || wanted <= 0) {
+                return 0;
+            }
+            int granted = Math.min(available, wanted);
+            if (pool.compareAndSet(available, available - granted)) {
+                return granted;
+            }
+        }
+    }
+
+    private CompletableFuture<DonorChunk> snapshotDonorChunk(long key, PatchCoord targetPatch, DonorPatch donorPatch) {
+        CompletableFuture<DonorChunk> future = new CompletableFuture<>();
+        World donorWorld = donorPatch.source().getWorld();
+        BlockAccess donorAccess = donorPatch.source().getAccess();
+        int chunkX = ChunkKey.x(key);
+        int chunkZ = ChunkKey.z(key);
+        Bukkit.getRegionScheduler().execute(plugin, donorWorld, chunkX, chunkZ, () -> {
+            try {
+                ChunkView view = donorAccess.snapshotChunk(chunkX, chunkZ, patchCopyService.isCopyBiomesEnabled());
+                List<BlockState> tileEntities = new ArrayList<>();
+                List<PatchCopyService.EntityCopy> entities = new ArrayList<>();
+                if (patchCopyService.isCopyTileEntitiesEnabled() || patchCopyService.isCopyEntitiesEnabled()) {
+                    Chunk chunk = donorWorld.getChunkAt(chunkX, chunkZ);
+                    if (patchCopyService.isCopyTileEntitiesEnabled()) {
+                        patchCopyService.collectTileEntities(chunk, donorPatch, tileEntities);
+                    }
+                    if (patchCopyService.isCopyEntitiesEnabled()) {
+                        patchCopyService.collectEntities(chunk, targetPatch, donorPatch, entities);
+                    }
+                }
+                future.complete(new DonorChunk(view, tileEntities, entities));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        return future;
+    }
+
+    private final class ChunkWrite implements Consumer<ScheduledTask> {
+
+        private final CompletableFuture<Result> result;
+        private final int chunkX;
+        private final int chunkZ;
+        private final Map<Long, DonorChunk> donors;
+        private final int offsetX;
+        private final int offsetZ;
+        private final int minX;
+        private final int maxX;
+        private final int minZ;
+        private final int maxZ;
+        private final int minY;
+        private final int maxY;
+        private int x;
+        private int z;
+        private int y;
+        private int ticks;
+        private long written;
+        private boolean blocksDone;
+        private List<PatchCopyService.EntityCopy> pendingEntities;
+        private int entityCursor;
+
+        private ChunkWrite(long chunk, PatchCoord targetPatch, DonorPatch donorPatch, Map<Long, DonorChunk> donors) {
+            this.result = new CompletableFuture<>();
+            this.chunkX = ChunkKey.x(chunk);
+            this.chunkZ = ChunkKey.z(chunk);
+            this.donors = donors;
+            int targetMinX = targetPatch.minBlockX(patchWidth);
+            int targetMinZ = targetPatch.minBlockZ(patchLength);
+            this.offsetX = targetMinX - donorPatch.coord().minBlockX(patchWidth);
+            this.offsetZ = targetMinZ - donorPatch.coord().minBlockZ(patchLength);
+            BlockAccess donorAccess = donorPatch.source().getAccess();
+            this.minY = Math.max(targetAccess.getMinHeight(), donorAccess.getMinHeight());
+            this.maxY = Math.min(targetAccess.getMaxHeight(), donorAccess.getMaxHeight()) - 1;
+            this.minX = Math.max(targetMinX, chunkX << 4);
+            this.maxX = Math.min(targetMinX + patchWidth - 1, (chunkX << 4) + 15);
+            this.minZ = Math.max(targetMinZ, chunkZ << 4);
+            this.maxZ = Math.min(targetMinZ + patchLength - 1, (chunkZ << 4) + 15);
+            this.x = minX;
+            this.z = minZ;
+            this.y = minY;
+            activeWrites.incrementAndGet();
+        }
+
+        @Override
+        public void accept(ScheduledTask task) {
+            if (cancelled) {
+                finishBlocks();
+                result.completeExceptionally(new CancellationException("Patch copy cancelled"));
+                return;
+            }
+            try {
+                ticks++;
+                if (!blocksDone) {
+                    int granted = acquire(blockTokens, Math.max(1, blocksPerTick / Math.max(1, activeWrites.get())));
+                    int processed = copyBlocks(granted);
+                    if (x <= maxX) {
+                        Bukkit.getRegionScheduler().runDelayed(plugin, targetWorld, chunkX, chunkZ, this, 1L);
+                        return;
+                    }
+                    blockTokens.addAndGet(granted - processed);
+                    finishBlocks();
+                    applyBlockEntities();
+                }
+                if (spawnEntities()) {
+                    result.complete(new Result(ticks, written));
+                } else {
+                    Bukkit.getRegionScheduler().runDelayed(plugin, targetWorld, chunkX, chunkZ, this, 1L);
+                }
+            } catch (Throwable ex) {
+                finishBlocks();
+                result.completeExceptionally(ex);
+            }
+        }
+
+        private void finishBlocks() {
+            if (!blocksDone) {
+                blocksDone = true;
+                activeWrites.decrementAndGet();
+            }
+        }
+
+        private int copyBlocks(int budget) {
+            boolean copyBiomes = patchCopyService.isCopyBiomesEnabled();
+            int processed = 0;
+            while (x <= maxX) {
+                int donorX = x - offsetX;
+                int donorZ = z - offsetZ;
+                ChunkView donor = donors.get(ChunkKey.of(donorX >> 4, donorZ >> 4)).view();
+                int localX = donorX & 15;
+                int localZ = donorZ & 15;
+
+                while (y <= maxY) {
+                    if (processed >= budget) {
+                        return processed;
+                    }
+                    BlockData data = donor.getBlockData(localX, y, localZ);
+                    if (!data.equals(targetAccess.getBlockData(x, y, z))) {
+                        targetAccess.setBlockData(x, y, z, data);
+                        written++;
+                    }
+                    if (copyBiomes) {
+                        Biome biome = donor.getBiome(localX, y, localZ);
+                        if (biome != targetAccess.getBiome(x, y, z)) {
+                            targetAccess.setBiome(x, y, z, biome);
+                        }
+                    }
+                    processed++;
+                    y++;
+                }
+
+                y = minY;
+                if (++z > maxZ) {
+                    z = minZ;
+                    x++;
+                }
+            }
+            return processed;
+        }
+
+        private void applyBlockEntities() {
+            pendingEntities = new ArrayList<>();
+            for (DonorChunk donor : donors.values()) {
+                for (BlockState state : donor.tileEntities()) {
+                    if (ownsColumn(state.getX() + offsetX, state.getZ() + offsetZ)) {
+                        patchCopyService.applyTileEntity(state, offsetX, offsetZ);
+                    }
+                }
+                for (PatchCopyService.EntityCopy copy : donor.entities()) {
+                    Location target = copy.target();
+                    if (ownsColumn(target.getBlockX(), target.getBlockZ())) {
+                        pendingEntities.add(copy);
+                    }
+                }
+            }
+        }
+
+        private boolean spawnEntities() {
+            int granted = acquire(entityTokens, pendingEntities.size() - entityCursor);
+            for (int i = 0; i < granted; i++) {
+                PatchCopyService.EntityCopy copy = pendingEntities.get(entityCursor++);
+                try {
+                    copy.snapshot().createEntity(copy.target());
+                } catch (RuntimeException ex) {
+                    plugin.getLogger().warning("Could not copy entity " + copy.snapshot().getEntityType()
+                            + ": " + ex.getMessage());
+                }
+            }
+            return entityCursor >= pendingEntities.size();
+        }
+
+        private boolean ownsColumn(int blockX, int blockZ) {
+            return blockX >= minX && blockX <= maxX && blockZ >= minZ && blockZ <= maxZ;
+        }
+    }
+
+    public record Result(int ticks, long blocksWritten) {
+    }
+
+    private record DonorChunk(
+            ChunkView view,
+            List<BlockState> tileEntities,
+            List<PatchCopyService.EntityCopy> entities
+    ) {
+    }
+}
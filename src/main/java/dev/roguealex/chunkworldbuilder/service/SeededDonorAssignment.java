@@ -0,0 +1,32 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.patch.DonorRange;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public final class SeededDonorAssignment {
+
+    private final long seed;
+    private final AliasTable donorTable;
+    private final DonorRange[] ranges;
+
+    public SeededDonorAssignment(long seed, double[] weights, List<DonorRange> ranges) {
+        if (weights.length != ranges.size()) {
+            throw new IllegalArgumentException("Got " + weights.length + " donor weights for " + ranges.size() + " ranges");
+        }
+        this.seed = seed;
+        this.donorTable = new AliasTable(weights);
+        this.ranges = ranges.toArray(new DonorRange[0]);
+    }
+
+    public long assign(PatchCoord targetPatch) {
+        SplittableRandom random = DonorSeeds.forPatch(seed, targetPatch);
+        int donor = donorTable.sample(random);
+        return DonorPatch.pack(donor, ranges[donor].randomPatch(random));
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
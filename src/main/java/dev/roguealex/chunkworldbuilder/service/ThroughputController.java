@@ -0,0 +1,202 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import dev.roguealex.chunkworldbuilder.listeners.PlayerMoveWatcher;
+import dev.roguealex.chunkworldbuilder.metrics.TickProfiler;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public final class ThroughputController {
+
+    private static final double HEADROOM_RATIO = 0.8;
+
+    private final JavaPlugin plugin;
+    private final GenerationScheduler generationScheduler;
+    private final List<PlayerMoveWatcher> playerMoveWatchers;
+    private final TickProfiler profiler;
+    private final long intervalTicks;
+    private final double targetMspt;
+    private final int minBlockBudget;
+    private final int maxBlockBudget;
+    private final int budgetIncrease;
+    private final double decreaseFactor;
+    private final int minMoveCheckIntervalTicks;
+    private final int maxMoveCheckIntervalTicks;
+    private final int minPrefetchRadius;
+    private final int maxPrefetchRadius;
+    private volatile int moveCheckIntervalTicks;
+    private volatile int prefetchRadius;
+    private volatile double lastMspt;
+    private volatile int lastBacklog;
+    private volatile long increases;
+    private volatile long decreases;
+    private ScheduledTask task;
+
+    public ThroughputController(
+            JavaPlugin plugin,
+            GenerationScheduler generationScheduler,
+            TickProfiler profiler,
+            long intervalTicks,
+            double targetMspt,
+            int minBudgetPercent,
+            int maxBudgetPercent,
+            int increasePercent,
+            double decreaseFactor,
+            int minMoveCheckIntervalTicks,
+            int maxMoveCheckIntervalTicks,
+            int minPrefetchRadius,
+            int maxPrefetchRadius,
+            int initialMoveCheckIntervalTicks,
+            int initialPrefetchRadius
+    ) {
+        this.plugin = plugin;
+        this.generationScheduler = generationScheduler;
+        this.playerMoveWatchers = new CopyOnWriteArrayList<>();
+        this.profiler = profiler;
+        this.intervalTicks = Math.max(1L, intervalTicks);
+        this.targetMspt = targetMspt > 0.0 ? targetMspt : 40.0;
+
+        int baseBudget = generationScheduler.getBaseBlockBudget();
+        this.minBlockBudget = Math.max(1, percentOf(baseBudget, minBudgetPercent));
+        this.maxBlockBudget = Math.max(minBlockBudget, percentOf(baseBudget, maxBudgetPercent));
+        this.budgetIncrease = Math.max(1, percentOf(baseBudget, increasePercent));
+        this.decreaseFactor = decreaseFactor > 0.0 && decreaseFactor < 1.0 ? decreaseFactor : 0.5;
+
+        this.minMoveCheckIntervalTicks = Math.max(1, minMoveCheckIntervalTicks);
+        this.maxMoveCheckIntervalTicks = Math.max(this.minMoveCheckIntervalTicks, maxMoveCheckIntervalTicks);
+        this.minPrefetchRadius = Math.max(0, minPrefetchRadius);
+        this.maxPrefetchRadius = Math.max(this.minPrefetchRadius, maxPrefetchRadius);
+
+        generationScheduler.setBlockBudget(clamp(generationScheduler.getBlockBudget(), minBlockBudget, maxBlockBudget));
+        this.moveCheckIntervalTicks = clamp(
+                initialMoveCheckIntervalTicks,
+                this.minMoveCheckIntervalTicks,
+                this.maxMoveCheckIntervalTicks
+        );
+        this.prefetchRadius = clamp(initialPrefetchRadius, this.minPrefetchRadius, this.maxPrefetchRadius);
+    }
+
+    public void addPlayerMoveWatcher(PlayerMoveWatcher playerMoveWatcher) {
+        playerMoveWatcher.setCheckIntervalTicks(moveCheckIntervalTicks);
+        playerMoveWatcher.setPrefetchRadiusPatches(prefetchRadius);
+        playerMoveWatchers.add(playerMoveWatcher);
+    }
+
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        Runnable adjust = profiler.wrap("auto-tune", this::adjust);
+        task = Bukkit.getGlobalRegionScheduler().runAtFixedRate(
+                plugin,
+                ignored -> adjust.run(),
+                intervalTicks,
+                intervalTicks
+        );
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void adjust() {
+        double mspt = Bukkit.getAverageTickTime();
+        int backlog = generationScheduler.getQueuedCount();
+        lastMspt = mspt;
+        lastBacklog = backlog;
+
+        int currentBudget = generationScheduler.getBlockBudget();
+        int budget = currentBudget;
+        int moveInterval = moveCheckIntervalTicks;
+        int prefetch = prefetchRadius;
+
+        boolean overloaded = mspt > targetMspt;
+        if (overloaded) {
+            budget = Math.max(minBlockBudget, (int) (budget * decreaseFactor));
+            moveInterval = Math.min(maxMoveCheckIntervalTicks, moveInterval * 2);
+            prefetch = Math.max(minPrefetchRadius, prefetch - 1);
+        } else if (mspt < targetMspt * HEADROOM_RATIO) {
+            if (backlog > 0) {
+                budget = Math.min(maxBlockBudget, budget + budgetIncrease);
+            }
+            moveInterval = Math.max(minMoveCheckIntervalTicks, moveInterval - 1);
+            if (backlog < generationScheduler.getMaxPatchesQueued() / 4) {
+                prefetch = Math.min(maxPrefetchRadius, prefetch + 1);
+            }
+        } else {
+            return;
+        }
+        if (budget == currentBudget && moveInterval == moveCheckIntervalTicks && prefetch == prefetchRadius) {
+            return;
+        }
+        if (overloaded) {
+            decreases++;
+        } else {
+            increases++;
+        }
+
+        generationScheduler.setBlockBudget(budget);
+        moveCheckIntervalTicks = moveInterval;
+        prefetchRadius = prefetch;
+        for (PlayerMoveWatcher playerMoveWatcher : playerMoveWatchers) {
+            playerMoveWatcher.setCheckIntervalTicks(moveInterval);
+            playerMoveWatcher.setPrefetchRadiusPatches(prefetch);
+        }
+    }
+
+    public int getBlockBudget() {
+        return generationScheduler.getBlockBudget();
+    }
+
+    public int getMoveCheckIntervalTicks() {
+        return moveCheckIntervalTicks;
+    }
+
+    public int getPrefetchRadius() {
+        return prefetchRadius;
+    }
+
+    public double getLastMspt() {
+        return lastMspt;
+    }
+
+    public int getLastBacklog() {
+        return lastBacklog;
+    }
+
+    public long getIncreases() {
+        return increases;
+    }
+
+    public long getDecreases() {
+        return decreases;
+    }
+
+    public List<String> describe() {
+        return List.of(
+                "Auto-tune: mspt=" + String.format(Locale.ROOT, "%.2f", lastMspt)
+                        + "/" + String.format(Locale.ROOT, "%.2f", targetMspt)
+                        + " backlog=" + lastBacklog
+                        + " increases=" + increases + " decreases=" + decreases,
+                "Auto-tune limits: blocksPerTick=" + getBlockBudget() + " [" + minBlockBudget + ".." + maxBlockBudget + "]"
+                        + " moveCheckTicks=" + getMoveCheckIntervalTicks()
+                        + " [" + minMoveCheckIntervalTicks + ".." + maxMoveCheckIntervalTicks + "]"
+                        + " prefetchRadius=" + getPrefetchRadius()
+                        + " [" + minPrefetchRadius + ".." + maxPrefetchRadius + "]"
+        );
+    }
+
+    private static int percentOf(int base, int percent) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) base * Math.max(0, percent) / 100L);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
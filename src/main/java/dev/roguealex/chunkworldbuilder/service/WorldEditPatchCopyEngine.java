@@ -1,5 +1,6 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
@@ -7,51 +8,77 @@ import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.SideEffect;
+import com.sk89q.worldedit.util.SideEffectSet;
 import com.sk89q.worldedit.world.World;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import java.util.List;
 
 public final class WorldEditPatchCopyEngine {
 
+    private static final SideEffectSet COPY_SIDE_EFFECTS = SideEffectSet.defaults()
+            .with(SideEffect.LIGHTING, SideEffect.State.DELAYED)
+            .with(SideEffect.NEIGHBORS, SideEffect.State.OFF)
+            .with(SideEffect.UPDATE, SideEffect.State.OFF);
+
     private final PatchCopyService patchCopyService;
+    private final World[] weDonorWorlds;
+    private final World weTargetWorld;
+    private EditSession session;
 
     public WorldEditPatchCopyEngine(PatchCopyService patchCopyService) {
         this.patchCopyService = patchCopyService;
+        List<DonorSource> donors = patchCopyService.getDonors();
+        this.weDonorWorlds = new World[donors.size()];
+        for (DonorSource donor : donors) {
+            weDonorWorlds[donor.getIndex()] = BukkitAdapter.adapt(donor.getWorld());
+        }
+        this.weTargetWorld = BukkitAdapter.adapt(patchCopyService.getTargetWorld());
     }
 
-    public void copyPatch(PatchCoord targetPatch, PatchCoord donorPatch) {
-        org.bukkit.World donorWorld = patchCopyService.getDonorWorld();
-        org.bukkit.World targetWorld = patchCopyService.getTargetWorld();
-
+    public void copySlice(PatchCoord targetPatch, DonorPatch donorPatch, int minY, int maxY) {
         int patchWidth = patchCopyService.getPatchWidth();
         int patchLength = patchCopyService.getPatchLength();
-        int minY = Math.max(targetWorld.getMinHeight(), donorWorld.getMinHeight());
-        int maxY = Math.min(targetWorld.getMaxHeight(), donorWorld.getMaxHeight()) - 1;
+        World weDonorWorld = weDonorWorlds[donorPatch.source().getIndex()];
 
-        int donorMinX = donorPatch.minBlockX(patchWidth);
-        int donorMinZ = donorPatch.minBlockZ(patchLength);
+        int donorMinX = donorPatch.coord().minBlockX(patchWidth);
+        int donorMinZ = donorPatch.coord().minBlockZ(patchLength);
         int donorMaxX = donorMinX + patchWidth - 1;
         int donorMaxZ = donorMinZ + patchLength - 1;
 
         int targetMinX = targetPatch.minBlockX(patchWidth);
         int targetMinZ = targetPatch.minBlockZ(patchLength);
 
-        World weDonorWorld = BukkitAdapter.adapt(donorWorld);
-        World weTargetWorld = BukkitAdapter.adapt(targetWorld);
-
         BlockVector3 regionMin = BlockVector3.at(donorMinX, minY, donorMinZ);
         BlockVector3 regionMax = BlockVector3.at(donorMaxX, maxY, donorMaxZ);
         BlockVector3 targetOrigin = BlockVector3.at(targetMinX, minY, targetMinZ);
 
         Region region = new CuboidRegion(weDonorWorld, regionMin, regionMax);
 
-        try (com.sk89q.worldedit.EditSession editSession = WorldEdit.getInstance().newEditSession(weTargetWorld)) {
-            ForwardExtentCopy copy = new ForwardExtentCopy(weDonorWorld, region, regionMin, editSession, targetOrigin);
+        try {
+            ForwardExtentCopy copy = new ForwardExtentCopy(weDonorWorld, region, regionMin, session(), targetOrigin);
             copy.setCopyingEntities(false);
             copy.setCopyingBiomes(patchCopyService.isCopyBiomesEnabled());
             Operations.complete(copy);
-            editSession.flushSession();
         } catch (Exception ex) {
             throw new RuntimeException("WorldEdit patch copy failed", ex);
         }
     }
+
+    public void flush() {
+        EditSession current = session;
+        if (current == null) {
+            return;
+        }
+        session = null;
+        current.close();
+    }
+
+    private EditSession session() {
+        if (session == null) {
+            session = WorldEdit.getInstance().newEditSessionBuilder().world(weTargetWorld).build();
+            session.setSideEffectApplier(COPY_SIDE_EFFECTS);
+        }
+        return session;
+    }
 }
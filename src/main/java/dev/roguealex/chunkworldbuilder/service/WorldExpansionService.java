@@ -1,108 +1,164 @@
 package dev.roguealex.chunkworldbuilder.service;
 
+import dev.roguealex.chunkworldbuilder.metrics.GenerationMetrics;
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
 import dev.roguealex.chunkworldbuilder.patch.PatchStateRegistry;
+import dev.roguealex.chunkworldbuilder.world.FoliaDetector;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
 import java.util.Queue;
-import org.bukkit.Bukkit;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class WorldExpansionService {
 
+    private static final int MAX_PATCHES_PER_BATCH = 16;
+    private static final int MAX_PREPARATIONS_PER_TICK = 1;
+    private static final long MAX_UNSAVED_NANOS = TimeUnit.SECONDS.toNanos(5L);
+    private static final Comparator<PatchGenerationRequest> QUEUE_ORDER = Comparator
+            .comparingInt(PatchGenerationRequest::priority)
+            .thenComparingLong(PatchGenerationRequest::sequence);
+
     private final JavaPlugin plugin;
     private final PatchStateRegistry patchStateRegistry;
     private final PatchCopyService patchCopyService;
     private final WorldEditPatchCopyEngine worldEditEngine;
-    private final int maxBlocksPerTick;
+    private final double budgetMultiplier;
+    private final GenerationMetrics metrics;
     private final int maxPatchesQueued;
-    private final PriorityQueue<PatchGenerationRequest> normalQueue;
+    private final int maxEntitiesPerTick;
+    private final int maxConcurrentRegionPatches;
+    private final RegionPatchCopier regionCopier;
+    private final PatchPreparationScheduler preparationScheduler;
+    private final AtomicBoolean regionCompletedSinceFlush;
+    private final Queue<PatchCopyService.EntityCopy> pendingEntities;
+    private final List<CompletedPatch> sessionPatches;
+    private final TreeSet<PatchGenerationRequest> normalQueue;
     private final Queue<PatchGenerationRequest> urgentQueue;
+    private final Map<Long, List<PatchGenerationRequest>> normalQueueByChunk;
+    private final Set<Long> batchFootprint;
+    private final Set<Long> batchTouchedChunks;
     private final World targetWorld;
     private final int patchWidth;
     private final int patchLength;
-    private int taskId;
     private long sequenceCounter;
     private PatchGenerationTask activeTask;
+    private long[] activeChunks;
+    private long activeEnqueuedAtNanos;
+    private long[] lastCompletedChunks;
+    private int batchPatchCount;
+    private long lastSavedAtNanos;
+    private int regionPatchesInFlight;
+    private volatile int queuedSnapshot;
 
     public WorldExpansionService(
             JavaPlugin plugin,
             PatchStateRegistry patchStateRegistry,
             PatchCopyService patchCopyService,
             WorldEditPatchCopyEngine worldEditEngine,
-            int maxBlocksPerTick,
-            int maxPatchesQueued
+            double budgetMultiplier,
+            GenerationMetrics metrics,
+            int maxPatchesQueued,
+            int maxEntitiesPerTick,
+            int maxConcurrentRegionPatches,
+            ForkJoinPool preparationPool,
+            int maxPreparedPatches
     ) {
         this.plugin = plugin;
         this.patchStateRegistry = patchStateRegistry;
         this.patchCopyService = patchCopyService;
         this.worldEditEngine = worldEditEngine;
-        this.maxBlocksPerTick = Math.max(1, maxBlocksPerTick);
+        this.budgetMultiplier = Math.max(1.0, budgetMultiplier);
+        this.metrics = metrics;
         this.maxPatchesQueued = Math.max(1, maxPatchesQueued);
+        this.maxEntitiesPerTick = Math.max(1, maxEntitiesPerTick);
+        this.maxConcurrentRegionPatches = Math.max(1, maxConcurrentRegionPatches);
+        this.regionCopier = FoliaDetector.isFolia()
+                ? new RegionPatchCopier(plugin, patchCopyService)
+                : null;
+        this.preparationScheduler = regionCopier == null
+                && worldEditEngine == null
+                && patchCopyService.isBulkApplyEnabled()
+                && preparationPool != null
+                ? new PatchPreparationScheduler(preparationPool, maxPreparedPatches)
+                : null;
+        this.regionCompletedSinceFlush = new AtomicBoolean();
+        this.pendingEntities = new ArrayDeque<>();
+        this.sessionPatches = new ArrayList<>();
         this.targetWorld = patchCopyService.getTargetWorld();
         this.patchWidth = patchCopyService.getPatchWidth();
         this.patchLength = patchCopyService.getPatchLength();
-        this.normalQueue = new PriorityQueue<>(Comparator
-                .comparingInt(PatchGenerationRequest::priority)
-                .thenComparingLong(PatchGenerationRequest::sequence));
+        this.normalQueue = new TreeSet<>(QUEUE_ORDER);
         this.urgentQueue = new ArrayDeque<>();
-        this.taskId = -1;
+        this.normalQueueByChunk = new HashMap<>();
+        this.batchFootprint = new HashSet<>();
+        this.batchTouchedChunks = new HashSet<>();
         this.sequenceCounter = 0L;
-    }
-
-    public void start() {
-        if (taskId != -1) {
-            return;
-        }
-        taskId = Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, this::tick, 1L, 1L);
-        if (taskId == -1) {
-            throw new IllegalStateException("Could not start WorldExpansionService scheduler task.");
-        }
+        this.lastSavedAtNanos = System.nanoTime();
+        metrics.bindQueueDepth(() -> queuedSnapshot);
     }
 
     public void stop() {
-        if (taskId != -1) {
-            Bukkit.getScheduler().cancelTask(taskId);
-            taskId = -1;
+        if (regionCopier != null) {
+            regionCopier.cancel();
         }
 
         if (activeTask != null) {
-            patchStateRegistry.resetToNew(activeTask.targetPatch());
+            abandon(activeTask.targetPatch(), activeTask.donorPatch());
             activeTask = null;
         }
+        if (preparationScheduler != null) {
+            for (PatchPreparationScheduler.PreparedPatch prepared : preparationScheduler.drain()) {
+                abandon(prepared.task().targetPatch(), prepared.task().donorPatch());
+            }
+        }
+        flushWorldEditSession();
+        flushBatch();
 
         while (!urgentQueue.isEmpty()) {
             PatchGenerationRequest queued = urgentQueue.poll();
             if (queued != null) {
-                patchStateRegistry.resetToNew(queued.targetPatch());
+                abandon(queued.targetPatch(), queued.donorPatch());
             }
         }
         while (!normalQueue.isEmpty()) {
-            PatchGenerationRequest queued = normalQueue.poll();
+            PatchGenerationRequest queued = normalQueue.pollFirst();
             if (queued != null) {
-                patchStateRegistry.resetToNew(queued.targetPatch());
+                abandon(queued.targetPatch(), queued.donorPatch());
             }
         }
+        normalQueueByChunk.clear();
+        lastCompletedChunks = null;
+        spawnPendingEntities(Integer.MAX_VALUE);
     }
 
     public synchronized boolean queuePatch(PatchCoord targetPatch) {
-        return queuePatch(targetPatch, patchCopyService.selectRandomDonorPatch(), false);
+        return queuePatch(targetPatch, 0, false);
     }
 
     public synchronized boolean queuePatchUrgent(PatchCoord targetPatch) {
-        return queuePatch(targetPatch, patchCopyService.selectRandomDonorPatch(), true);
+        return queuePatch(targetPatch, 0, true);
     }
 
     public synchronized boolean queuePatchPreferLand(PatchCoord targetPatch, int maxAttempts) {
-        return queuePatch(targetPatch, patchCopyService.selectRandomDonorPatchPreferLand(maxAttempts), false);
+        return queuePatch(targetPatch, regionCopier != null ? 0 : maxAttempts, false);
     }
 
-    private boolean queuePatch(PatchCoord targetPatch, PatchCoord donorPatch, boolean urgent) {
+    private boolean queuePatch(PatchCoord targetPatch, int landAttempts, boolean urgent) {
         if ((urgentQueue.size() + normalQueue.size()) >= maxPatchesQueued) {
             return false;
         }
@@ -111,15 +167,59 @@ public final class WorldExpansionService {
             return false;
         }
 
+        DonorPatch donorPatch = patchCopyService.selectDonorPatch(targetPatch, landAttempts);
+        long[] chunks = ChunkKey.forPatch(targetPatch, patchWidth, patchLength);
+        long now = System.nanoTime();
         if (urgent) {
-            urgentQueue.offer(new PatchGenerationRequest(targetPatch, donorPatch, 0, nextSequence()));
+            urgentQueue.offer(new PatchGenerationRequest(targetPatch, donorPatch, 0, nextSequence(), chunks, now));
         } else {
             int priority = computePlayerDistancePriority(targetPatch);
-            normalQueue.offer(new PatchGenerationRequest(targetPatch, donorPatch, priority, nextSequence()));
+            offerNormal(new PatchGenerationRequest(targetPatch, donorPatch, priority, nextSequence(), chunks, now));
         }
         return true;
     }
 
+    private void offerNormal(PatchGenerationRequest request) {
+        normalQueue.add(request);
+        for (long chunk : request.chunks()) {
+            normalQueueByChunk.computeIfAbsent(chunk, ignored -> new ArrayList<>(4)).add(request);
+        }
+    }
+
+    private PatchGenerationRequest pollNextNormal() {
+        PatchGenerationRequest best = null;
+        if (lastCompletedChunks != null && batchPatchCount < MAX_PATCHES_PER_BATCH) {
+            for (long chunk : lastCompletedChunks) {
+                List<PatchGenerationRequest> sharing = normalQueueByChunk.get(chunk);
+                if (sharing == null) {
+                    continue;
+                }
+                for (PatchGenerationRequest candidate : sharing) {
+                    if (best == null || QUEUE_ORDER.compare(candidate, best) < 0) {
+                        best = candidate;
+                    }
+                }
+            }
+        }
+
+        if (best != null) {
+            normalQueue.remove(best);
+        } else {
+            best = normalQueue.pollFirst();
+        }
+        if (best == null) {
+            return null;
+        }
+
+        for (long chunk : best.chunks()) {
+            List<PatchGenerationRequest> sharing = normalQueueByChunk.get(chunk);
+            if (sharing != null && sharing.remove(best) && sharing.isEmpty()) {
+                normalQueueByChunk.remove(chunk);
+            }
+        }
+        return best;
+    }
+
     public synchronized int queueAround(PatchCoord center, int radiusPatches) {
         return queueAroundInternal(center, radiusPatches, false);
     }
@@ -130,7 +230,7 @@ public final class WorldExpansionService {
 
     private int queueAroundInternal(PatchCoord center, int radiusPatches, boolean urgent) {
         if (radiusPatches <= 0) {
-            return queuePatch(center, patchCopyService.selectRandomDonorPatch(), urgent) ? 1 : 0;
+            return queuePatch(center, 0, urgent) ? 1 : 0;
         }
 
         List<Offset> offsets = new ArrayList<>();
@@ -145,72 +245,387 @@ public final class WorldExpansionService {
 
         int added = 0;
         for (Offset offset : offsets) {
-            if (queuePatch(
-                    new PatchCoord(center.patchX() + offset.dx(), center.patchZ() + offset.dz()),
-                    patchCopyService.selectRandomDonorPatch(),
-                    urgent
-            )) {
+            if (queuePatch(new PatchCoord(center.patchX() + offset.dx(), center.patchZ() + offset.dz()), 0, urgent)) {
                 added++;
             }
         }
         return added;
     }
 
+    public double getBudgetMultiplier() {
+        return budgetMultiplier;
+    }
+
+    public int getMaxPatchesQueued() {
+        return maxPatchesQueued;
+    }
+
     public synchronized int getQueuedCount() {
-        return urgentQueue.size() + normalQueue.size() + (activeTask == null ? 0 : 1);
+        return urgentQueue.size() + normalQueue.size() + (activeTask == null ? 0 : 1) + regionPatchesInFlight
+                + (preparationScheduler == null ? 0 : preparationScheduler.size());
     }
 
-    private void tick() {
-        if (Bukkit.isStopping()) {
-            stop();
-            return;
+    public World getTargetWorld() {
+        return targetWorld;
+    }
+
+    public int tick(int blockBudget) {
+        if (regionCopier != null) {
+            int used = regionCopier.refill(blockBudget, maxEntitiesPerTick);
+            dispatchRegionCopies();
+            queuedSnapshot = getQueuedCount();
+            return used;
         }
 
+        long tickStart = System.nanoTime();
+        int processed = 0;
         try {
-            if (activeTask == null) {
-                if (!startNextTaskIfAvailable()) {
-                    return;
-                }
+            spawnPendingEntities(maxEntitiesPerTick);
+            if (preparationScheduler != null) {
+                dispatchPreparations();
             }
 
-            activeTask.process(maxBlocksPerTick);
-            if (!activeTask.isComplete()) {
-                return;
-            }
+            int budget = blockBudget;
+            while (budget > 0) {
+                if (activeTask == null && !startNextTaskIfAvailable()) {
+                    flushBatch();
+                    break;
+                }
 
-            patchStateRegistry.markDone(activeTask.targetPatch());
-            activeTask = null;
+                int blocks = activeTask.process(budget);
+                budget -= blocks;
+                processed += blocks;
+                if (!activeTask.isComplete()) {
+                    break;
+                }
+                completeActiveTask();
+            }
+            flushWorldEditSession();
+            if (batchPatchCount > 0 && System.nanoTime() - lastSavedAtNanos >= MAX_UNSAVED_NANOS) {
+                saveDoneMarks();
+            }
         } catch (RuntimeException ex) {
             plugin.getLogger().severe("Patch generation tick failed: " + ex.getMessage());
             if (activeTask != null) {
-                patchStateRegistry.resetToNew(activeTask.targetPatch());
+                abandon(activeTask.targetPatch(), activeTask.donorPatch());
+                if (preparationScheduler != null) {
+                    preparationScheduler.release(activeChunks);
+                }
                 activeTask = null;
+                metrics.recordPatchFailed();
             }
+            flushWorldEditSession();
+        }
+
+        if (processed > 0) {
+            metrics.recordTick(System.nanoTime() - tickStart, processed);
         }
+        queuedSnapshot = getQueuedCount();
+        return processed;
     }
 
-    private boolean startNextTaskIfAvailable() {
-        PatchGenerationRequest next;
+    private void dispatchRegionCopies() {
+        if (regionCompletedSinceFlush.getAndSet(false)) {
+            patchStateRegistry.flush();
+        }
+
+        while (true) {
+            PatchGenerationRequest next;
+            synchronized (this) {
+                if (regionPatchesInFlight >= maxConcurrentRegionPatches) {
+                    return;
+                }
+                next = urgentQueue.poll();
+                if (next == null) {
+                    next = pollNextNormal();
+                }
+                if (next == null) {
+                    return;
+                }
+                if (!patchStateRegistry.tryStartGenerating(next.targetPatch())) {
+                    abandon(next.targetPatch(), next.donorPatch());
+                    continue;
+                }
+                regionPatchesInFlight++;
+            }
+
+            PatchGenerationRequest request = next;
+            long startedAt = System.nanoTime();
+            metrics.recordPatchStarted(request.enqueuedAtNanos(), startedAt);
+            regionCopier.copy(request.targetPatch(), request.donorPatch()).whenComplete(
+                    (result, error) -> completeRegionCopy(request, startedAt, result, error)
+            );
+        }
+    }
+
+    private void completeRegionCopy(
+            PatchGenerationRequest request,
+            long startedAt,
+            RegionPatchCopier.Result result,
+            Throwable error
+    ) {
         synchronized (this) {
-            next = urgentQueue.poll();
+            regionPatchesInFlight--;
+        }
+        if (error != null) {
+            abandon(request.targetPatch(), request.donorPatch());
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause()
+                    : error;
+            if (!(cause instanceof CancellationException)) {
+                metrics.recordPatchFailed();
+                plugin.getLogger().severe("Patch generation failed for " + request.targetPatch().asKey()
+                        + ": " + cause.getMessage());
+            }
+            return;
+        }
+
+        patchStateRegistry.markDone(request.targetPatch(), request.donorPatch().packed());
+        metrics.recordPatchCompleted(
+                request.enqueuedAtNanos(),
+                startedAt,
+                System.nanoTime(),
+                result.ticks(),
+                result.blocksWritten()
+        );
+        regionCompletedSinceFlush.set(true);
+    }
+
+    private void completeActiveTask() {
+        CompletedPatch completed = new CompletedPatch(
+                activeTask.targetPatch(),
+                activeTask.donorPatch(),
+                activeTask.entities(),
+                activeEnqueuedAtNanos,
+                activeTask.startedAtNanos(),
+                activeTask.ticks(),
+                activeTask.blocksWritten()
+        );
+        if (worldEditEngine != null) {
+            sessionPatches.add(completed);
+        } else {
+            markCompleted(completed);
+        }
+        activeTask.drainTouchedChunks(batchTouchedChunks);
+        if (preparationScheduler != null) {
+            preparationScheduler.release(activeChunks);
+        }
+        batchPatchCount++;
+        lastCompletedChunks = activeChunks;
+        activeTask = null;
+    }
+
+    private void markCompleted(CompletedPatch completed) {
+        pendingEntities.addAll(completed.entities());
+        patchStateRegistry.markDone(completed.targetPatch(), completed.donorPatch().packed());
+        metrics.recordPatchCompleted(
+                completed.enqueuedAtNanos(),
+                completed.startedAtNanos(),
+                System.nanoTime(),
+                completed.ticks(),
+                completed.blocksWritten()
+        );
+    }
+
+    private void flushWorldEditSession() {
+        if (worldEditEngine == null) {
+            return;
+        }
+        try {
+            worldEditEngine.flush();
+        } catch (RuntimeException ex) {
+            plugin.getLogger().severe("WorldEdit session flush failed, resetting " + sessionPatches.size()
+                    + " patch(es): " + ex.getMessage());
+            for (CompletedPatch completed : sessionPatches) {
+                abandon(completed.targetPatch(), completed.donorPatch());
+                metrics.recordPatchFailed();
+            }
+            sessionPatches.clear();
+            return;
+        }
+        if (sessionPatches.isEmpty()) {
+            return;
+        }
+        for (CompletedPatch completed : sessionPatches) {
+            markCompleted(completed);
+        }
+        sessionPatches.clear();
+        patchStateRegistry.flush();
+    }
+
+    private void spawnPendingEntities(int limit) {
+        for (int spawned = 0; spawned < limit && !pendingEntities.isEmpty(); spawned++) {
+            PatchCopyService.EntityCopy copy = pendingEntities.poll();
+            try {
+                copy.snapshot().createEntity(copy.target());
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning("Could not copy entity " + copy.snapshot().getEntityType()
+                        + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void dispatchPreparations() {
+        List<PatchGenerationRequest> deferred = new ArrayList<>();
+        int scanned = 0;
+        int preparations = 0;
+        while (preparationScheduler.hasCapacity() && scanned < MAX_PATCHES_PER_BATCH
+                && preparations < MAX_PREPARATIONS_PER_TICK) {
+            PatchGenerationRequest next;
+            synchronized (this) {
+                next = urgentQueue.peek();
+                if (next != null && !preparationScheduler.dependsOnInFlight(next.chunks())) {
+                    urgentQueue.poll();
+                } else {
+                    next = pollNextNormal();
+                }
+            }
             if (next == null) {
-                next = normalQueue.poll();
+                break;
+            }
+            scanned++;
+
+            if (preparationScheduler.dependsOnInFlight(next.chunks())) {
+                deferred.add(next);
+                continue;
+            }
+            if (!patchStateRegistry.tryStartGenerating(next.targetPatch())) {
+                abandon(next.targetPatch(), next.donorPatch());
+                continue;
+            }
+
+            PatchGenerationTask task = new PatchGenerationTask(next.targetPatch(), next.donorPatch(), patchCopyService, null);
+            preparations++;
+            try {
+                task.prepareSnapshots();
+            } catch (RuntimeException ex) {
+                abandon(next.targetPatch(), next.donorPatch());
+                metrics.recordPatchFailed();
+                plugin.getLogger().severe("Patch preparation failed for " + next.targetPatch().asKey()
+                        + ": " + ex.getMessage());
+                continue;
             }
+            metrics.recordPatchStarted(next.enqueuedAtNanos(), task.startedAtNanos());
+            preparationScheduler.submit(task, next.chunks(), next.enqueuedAtNanos());
         }
 
-        if (next == null) {
-            return false;
+        if (!deferred.isEmpty()) {
+            synchronized (this) {
+                for (PatchGenerationRequest request : deferred) {
+                    offerNormal(request);
+                }
+            }
         }
+    }
 
-        if (!patchStateRegistry.tryStartGenerating(next.targetPatch())) {
-            patchStateRegistry.resetToNew(next.targetPatch());
-            return false;
+    private boolean startNextPreparedTask() {
+        PatchPreparationScheduler.PreparedPatch prepared;
+        PatchGenerationTask task;
+        while (true) {
+            prepared = preparationScheduler.pollReady();
+            if (prepared == null) {
+                return false;
+            }
+
+            task = prepared.task();
+            try {
+                prepared.future().join();
+                break;
+            } catch (CompletionException | CancellationException ex) {
+                preparationScheduler.release(prepared.chunks());
+                abandon(task.targetPatch(), task.donorPatch());
+                metrics.recordPatchFailed();
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                plugin.getLogger().severe("Patch preparation failed for " + task.targetPatch().asKey()
+                        + ": " + cause.getMessage());
+            }
+        }
+
+        if (batchPatchCount >= MAX_PATCHES_PER_BATCH || !sharesBatchChunk(prepared.chunks())) {
+            flushBatch();
+        }
+        for (long chunk : prepared.chunks()) {
+            batchFootprint.add(chunk);
+        }
+
+        activeTask = task;
+        activeChunks = prepared.chunks();
+        activeEnqueuedAtNanos = prepared.enqueuedAtNanos();
+        return true;
+    }
+
+    private boolean startNextTaskIfAvailable() {
+        if (preparationScheduler != null) {
+            return startNextPreparedTask();
+        }
+
+        PatchGenerationRequest next;
+        while (true) {
+            synchronized (this) {
+                next = urgentQueue.poll();
+                if (next == null) {
+                    next = pollNextNormal();
+                }
+            }
+
+            if (next == null) {
+                return false;
+            }
+            if (patchStateRegistry.tryStartGenerating(next.targetPatch())) {
+                break;
+            }
+            abandon(next.targetPatch(), next.donorPatch());
+        }
+
+        if (batchPatchCount >= MAX_PATCHES_PER_BATCH || !sharesBatchChunk(next.chunks())) {
+            flushBatch();
+        }
+        for (long chunk : next.chunks()) {
+            batchFootprint.add(chunk);
         }
 
         activeTask = new PatchGenerationTask(next.targetPatch(), next.donorPatch(), patchCopyService, worldEditEngine);
+        activeChunks = next.chunks();
+        activeEnqueuedAtNanos = next.enqueuedAtNanos();
+        metrics.recordPatchStarted(next.enqueuedAtNanos(), System.nanoTime());
         return true;
     }
 
+    private void abandon(PatchCoord targetPatch, DonorPatch donorPatch) {
+        patchStateRegistry.resetToNew(targetPatch);
+        patchCopyService.releaseDonorPatch(donorPatch);
+    }
+
+    private boolean sharesBatchChunk(long[] chunks) {
+        for (long chunk : chunks) {
+            if (batchFootprint.contains(chunk)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void flushBatch() {
+        for (long chunk : batchTouchedChunks) {
+            int chunkX = ChunkKey.x(chunk);
+            int chunkZ = ChunkKey.z(chunk);
+            if (!targetWorld.getPlayersSeeingChunk(chunkX, chunkZ).isEmpty()) {
+                targetWorld.refreshChunk(chunkX, chunkZ);
+            }
+        }
+        batchTouchedChunks.clear();
+        batchFootprint.clear();
+        if (batchPatchCount > 0) {
+            saveDoneMarks();
+            batchPatchCount = 0;
+        }
+    }
+
+    private void saveDoneMarks() {
+        patchStateRegistry.flush();
+        lastSavedAtNanos = System.nanoTime();
+    }
+
     private int computePlayerDistancePriority(PatchCoord targetPatch) {
         int best = Integer.MAX_VALUE;
         for (Player player : targetWorld.getPlayers()) {
@@ -242,7 +657,35 @@ public final class WorldExpansionService {
         return sequenceCounter++;
     }
 
-    private record PatchGenerationRequest(PatchCoord targetPatch, PatchCoord donorPatch, int priority, long sequence) {
+    private record PatchGenerationRequest(
+            PatchCoord targetPatch,
+            DonorPatch donorPatch,
+            int priority,
+            long sequence,
+            long[] chunks,
+            long enqueuedAtNanos
+    ) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PatchGenerationRequest request && sequence == request.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sequence);
+        }
+    }
+
+    private record CompletedPatch(
+            PatchCoord targetPatch,
+            DonorPatch donorPatch,
+            List<PatchCopyService.EntityCopy> entities,
+            long enqueuedAtNanos,
+            long startedAtNanos,
+            int ticks,
+            long blocksWritten
+    ) {
     }
 
     private record Offset(int dx, int dz) {
@@ -0,0 +1,176 @@
+package dev.roguealex.chunkworldbuilder.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+final class DonorUsageLog {
+
+    static final int RECORD_BYTES = Long.BYTES * 2;
+    static final long REMOVED = LongLongMap.MISSING;
+
+    private final File file;
+    private final LongLongMap donors;
+    private long[] pending;
+    private int pendingSize;
+    private long recordsOnDisk;
+    private boolean compactionNeeded;
+
+    DonorUsageLog(File file) {
+        this.file = file;
+        this.donors = new LongLongMap();
+        this.pending = new long[32];
+    }
+
+    void load() throws IOException {
+        donors.clear();
+        pendingSize = 0;
+        recordsOnDisk = 0L;
+        compactionNeeded = false;
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            while (true) {
+                long target;
+                long donor;
+                try {
+                    target = input.readLong();
+                    donor = input.readLong();
+                } catch (EOFException ex) {
+                    break;
+                }
+                if (donor == REMOVED) {
+                    donors.remove(target);
+                } else {
+                    donors.put(target, donor);
+                }
+                recordsOnDisk++;
+            }
+        }
+        if (file.length() % RECORD_BYTES != 0) {
+            Batch batch = compaction();
+            write(batch);
+            written(batch, true);
+        }
+    }
+
+    Long get(long target) {
+        long donor = donors.get(target);
+        return donor == REMOVED ? null : donor;
+    }
+
+    void put(long target, long donor) {
+        if (donors.put(target, donor) == donor) {
+            return;
+        }
+        append(target, donor);
+    }
+
+    void remove(long target) {
+        if (donors.remove(target) != REMOVED) {
+            append(target, REMOVED);
+        }
+    }
+
+    void forEach(GeneratedPatchStorage.DonorUsageConsumer consumer) {
+        donors.forEach(consumer);
+    }
+
+    int size() {
+        return donors.size();
+    }
+
+    boolean isDirty() {
+        return pendingSize > 0 || compactionNeeded;
+    }
+
+    Batch drain() {
+        if (pendingSize == 0 && !compactionNeeded) {
+            return null;
+        }
+        if (compactionNeeded || recordsOnDisk + pendingSize / 2 > (long) donors.size() * 2 + 1024) {
+            return compaction();
+        }
+        Batch batch = new Batch(Arrays.copyOf(pending, pendingSize), false);
+        pendingSize = 0;
+        return batch;
+    }
+
+    void write(Batch batch) throws IOException {
+        if (!batch.compaction()) {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                    file.toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND
+            )))) {
+                for (long value : batch.records()) {
+                    output.writeLong(value);
+                }
+            }
+            return;
+        }
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            for (long value : batch.records()) {
+                output.writeLong(value);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void written(Batch batch, boolean saved) {
+        if (!saved) {
+            compactionNeeded = true;
+        } else if (batch.compaction()) {
+            recordsOnDisk = batch.records().length / 2;
+        } else {
+            recordsOnDisk += batch.records().length / 2;
+        }
+    }
+
+    void clear() throws IOException {
+        donors.clear();
+        pendingSize = 0;
+        recordsOnDisk = 0L;
+        compactionNeeded = false;
+        Files.deleteIfExists(file.toPath());
+    }
+
+    long fileSizeBytes() {
+        return recordsOnDisk * RECORD_BYTES;
+    }
+
+    private void append(long target, long donor) {
+        if (pendingSize + 2 > pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingSize++] = target;
+        pending[pendingSize++] = donor;
+    }
+
+    private Batch compaction() {
+        long[] records = new long[donors.size() * 2];
+        int size = 0;
+        for (int slot = 0; slot < donors.capacity(); slot++) {
+            if (donors.isUsed(slot)) {
+                records[size++] = donors.keyAt(slot);
+                records[size++] = donors.valueAt(slot);
+            }
+        }
+        pendingSize = 0;
+        compactionNeeded = false;
+        return new Batch(records, true);
+    }
+
+    record Batch(long[] records, boolean compaction) {
+    }
+}
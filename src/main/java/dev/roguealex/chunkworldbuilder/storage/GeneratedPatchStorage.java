@@ -1,14 +1,24 @@
 package dev.roguealex.chunkworldbuilder.storage;
 
+import dev.roguealex.chunkworldbuilder.metrics.LatencyHistogram;
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
 import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchRegion;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -18,6 +28,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 public final class GeneratedPatchStorage {
 
     private static final String GENERATED_PATH = "generated";
+    private static final String REGIONS_PATH = "regions";
     private static final String META_TARGET_WORLD_UUID_PATH = "meta.target-world-uuid";
     private static final String META_PATCH_WIDTH_PATH = "meta.patch-width";
     private static final String META_PATCH_LENGTH_PATH = "meta.patch-length";
@@ -26,10 +37,26 @@ public final class GeneratedPatchStorage {
     private static final String END_PORTAL_X_PATH = "end-portal.x";
     private static final String END_PORTAL_Y_PATH = "end-portal.y";
     private static final String END_PORTAL_Z_PATH = "end-portal.z";
-
-    private final JavaPlugin plugin;
-    private final File file;
-    private final Set<PatchCoord> generatedPatches;
+    private static final String PROGRESS_SOURCE_WIDTH_PATH = "source.patch-width";
+    private static final String PROGRESS_SOURCE_LENGTH_PATH = "source.patch-length";
+    private static final String PROGRESS_TARGET_WIDTH_PATH = "target.patch-width";
+    private static final String PROGRESS_TARGET_LENGTH_PATH = "target.patch-length";
+    private static final String PROGRESS_COMPLETED_PATH = "completed-regions";
+
+    private final Logger logger;
+    private final File legacyFile;
+    private final File directory;
+    private final File indexFile;
+    private final File stagingDirectory;
+    private final File replacedDirectory;
+    private final File pregenProgressFile;
+    private final Map<Long, Integer> regionCounts;
+    private final Map<Long, PatchRegionFile> loadedRegions;
+    private final Set<Long> dirtyRegions;
+    private final Set<Long> unreadableRegions;
+    private final DonorUsageLog donorUsage;
+    private final LatencyHistogram saveNanos;
+    private final Object saveLock;
     private String storedTargetWorldUuid;
     private int storedPatchWidth;
     private int storedPatchLength;
@@ -38,18 +65,46 @@ public final class GeneratedPatchStorage {
     private int endPortalX;
     private int endPortalY;
     private int endPortalZ;
+    private volatile int generatedCount;
+    private boolean dirty;
+    private volatile long storedBytes;
 
     public GeneratedPatchStorage(JavaPlugin plugin, String targetWorldName) {
-        this.plugin = plugin;
-        this.file = new File(
-                new File(plugin.getDataFolder(), "data"),
-                "generated-patches-" + sanitizeFilePart(targetWorldName) + ".yml"
-        );
-        this.generatedPatches = new HashSet<>();
+        this(plugin.getDataFolder(), plugin.getLogger(), targetWorldName);
+    }
+
+    public GeneratedPatchStorage(File dataFolder, Logger logger, String targetWorldName) {
+        this.logger = logger;
+        String baseName = "generated-patches-" + sanitizeFilePart(targetWorldName);
+        File dataDirectory = new File(dataFolder, "data");
+        this.legacyFile = new File(dataDirectory, baseName + ".yml");
+        this.directory = new File(dataDirectory, baseName);
+        this.indexFile = new File(directory, "index.yml");
+        this.stagingDirectory = new File(dataDirectory, baseName + ".migrating");
+        this.replacedDirectory = new File(dataDirectory, baseName + ".replaced");
+        this.pregenProgressFile = new File(dataDirectory, baseName + ".pregen.yml");
+        this.regionCounts = new ConcurrentHashMap<>();
+        this.loadedRegions = new ConcurrentHashMap<>();
+        this.dirtyRegions = new HashSet<>();
+        this.unreadableRegions = ConcurrentHashMap.newKeySet();
+        this.donorUsage = new DonorUsageLog(new File(directory, "donors.bin"));
+        this.saveNanos = new LatencyHistogram();
+        this.saveLock = new Object();
     }
 
-    public void load() {
-        generatedPatches.clear();
+    public boolean load() {
+        synchronized (saveLock) {
+            return readStorage();
+        }
+    }
+
+    private synchronized boolean readStorage() {
+        regionCounts.clear();
+        loadedRegions.clear();
+        dirtyRegions.clear();
+        unreadableRegions.clear();
+        generatedCount = 0;
+        dirty = false;
         storedTargetWorldUuid = null;
         storedPatchWidth = 0;
         storedPatchLength = 0;
@@ -59,43 +114,209 @@ public final class GeneratedPatchStorage {
         endPortalY = 0;
         endPortalZ = 0;
 
-        if (!file.exists()) {
-            ensureParentDirectory();
-            return;
+        if (!finishPendingSwap()) {
+            return false;
         }
-
-        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
-        storedTargetWorldUuid = yaml.getString(META_TARGET_WORLD_UUID_PATH);
-        storedPatchWidth = yaml.getInt(META_PATCH_WIDTH_PATH, 0);
-        storedPatchLength = yaml.getInt(META_PATCH_LENGTH_PATH, 0);
-        List<String> entries = yaml.getStringList(GENERATED_PATH);
-        for (String key : entries) {
-            try {
-                generatedPatches.add(PatchCoord.fromKey(key));
-            } catch (IllegalArgumentException ex) {
-                plugin.getLogger().warning("Skipping invalid patch entry in storage: " + key);
+        try {
+            donorUsage.load();
+        } catch (IOException ex) {
+            logger.warning("Could not read donor usage log: " + ex.getMessage());
+        }
+        if (indexFile.exists()) {
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(indexFile);
+            readHeader(yaml);
+            for (String entry : yaml.getStringList(REGIONS_PATH)) {
+                String[] parts = entry.split(",", -1);
+                try {
+                    if (parts.length != 3) {
+                        throw new NumberFormatException(entry);
+                    }
+                    int count = Integer.parseInt(parts[2]);
+                    if (count > 0) {
+                        regionCounts.put(ChunkKey.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])), count);
+                        generatedCount += count;
+                    }
+                } catch (NumberFormatException ex) {
+                    logger.warning("Skipping invalid region entry in storage index: " + entry);
+                }
             }
+            storedBytes = indexFile.length() + (long) regionCounts.size() * PatchRegionFile.BYTES
+                    + donorUsage.fileSizeBytes();
+            return true;
         }
 
-        endPortalSpawned = yaml.getBoolean(END_PORTAL_SPAWNED_PATH, false);
-        endPortalWorld = yaml.getString(END_PORTAL_WORLD_PATH);
-        endPortalX = yaml.getInt(END_PORTAL_X_PATH, 0);
-        endPortalY = yaml.getInt(END_PORTAL_Y_PATH, 0);
-        endPortalZ = yaml.getInt(END_PORTAL_Z_PATH, 0);
+        if (legacyFile.exists()) {
+            migrateLegacyFile();
+            return true;
+        }
+
+        ensureDirectory();
+        return true;
     }
 
-    public synchronized boolean isGenerated(PatchCoord coord) {
-        return generatedPatches.contains(coord);
+    public boolean isGenerated(PatchCoord coord) {
+        long key = PatchRegion.packedOf(coord);
+        PatchRegionFile region = loadedRegions.get(key);
+        if (region == null) {
+            if (unreadableRegions.contains(key)) {
+                return true;
+            }
+            if (!regionCounts.containsKey(key)) {
+                return false;
+            }
+            synchronized (this) {
+                region = region(key, false);
+                if (region == null) {
+                    return unreadableRegions.contains(key);
+                }
+            }
+        }
+        return region.get(PatchRegion.localIndex(coord));
     }
 
     public synchronized void markGenerated(PatchCoord coord) {
-        if (generatedPatches.add(coord)) {
-            save();
+        long key = PatchRegion.packedOf(coord);
+        PatchRegionFile region = region(key, true);
+        if (region == null) {
+            logger.warning("Not recording patch " + coord.asKey() + ": region " + regionName(key) + " is unreadable.");
+            return;
+        }
+        if (region.set(PatchRegion.localIndex(coord))) {
+            regionCounts.merge(key, 1, Integer::sum);
+            dirtyRegions.add(key);
+            generatedCount++;
+            dirty = true;
+        }
+    }
+
+    public synchronized boolean unmarkGenerated(PatchCoord coord) {
+        long key = PatchRegion.packedOf(coord);
+        PatchRegionFile region = region(key, false);
+        if (region == null || !region.clear(PatchRegion.localIndex(coord))) {
+            return false;
+        }
+        if (region.count() == 0) {
+            regionCounts.remove(key);
+        } else {
+            regionCounts.put(key, region.count());
+        }
+        dirtyRegions.add(key);
+        generatedCount--;
+        dirty = true;
+        return true;
+    }
+
+    public synchronized void recordDonor(PatchCoord target, long donor) {
+        donorUsage.put(target.packed(), donor);
+        dirty |= donorUsage.isDirty();
+    }
+
+    public synchronized void removeDonor(PatchCoord target) {
+        donorUsage.remove(target.packed());
+        dirty |= donorUsage.isDirty();
+    }
+
+    public synchronized Long getDonor(PatchCoord target) {
+        return donorUsage.get(target.packed());
+    }
+
+    public synchronized void forEachDonor(DonorUsageConsumer consumer) {
+        donorUsage.forEach(consumer);
+    }
+
+    public synchronized int getDonorRecordCount() {
+        return donorUsage.size();
+    }
+
+    public void flush() {
+        synchronized (saveLock) {
+            SaveSnapshot snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                snapshot = snapshot();
+            }
+            write(snapshot);
         }
     }
 
     public synchronized Set<PatchCoord> getGeneratedPatches() {
-        return Set.copyOf(generatedPatches);
+        Set<PatchCoord> result = new HashSet<>(Math.max(16, generatedCount * 4 / 3 + 1));
+        for (long key : List.copyOf(regionCounts.keySet())) {
+            PatchRegionFile region = region(key, false);
+            if (region != null) {
+                region.forEach(PatchRegion.fromPacked(key), result::add);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Set<PatchCoord> getGeneratedPatches(int minPatchX, int minPatchZ, int maxPatchX, int maxPatchZ) {
+        Set<PatchCoord> result = new HashSet<>();
+        Consumer<PatchCoord> collect = coord -> {
+            if (coord.patchX() >= minPatchX && coord.patchX() <= maxPatchX
+                    && coord.patchZ() >= minPatchZ && coord.patchZ() <= maxPatchZ) {
+                result.add(coord);
+            }
+        };
+        for (int regionX = minPatchX >> PatchRegion.SHIFT; regionX <= maxPatchX >> PatchRegion.SHIFT; regionX++) {
+            for (int regionZ = minPatchZ >> PatchRegion.SHIFT; regionZ <= maxPatchZ >> PatchRegion.SHIFT; regionZ++) {
+                PatchRegion patchRegion = new PatchRegion(regionX, regionZ);
+                PatchRegionFile region = region(patchRegion.packed(), false);
+                if (region != null) {
+                    region.forEach(patchRegion, collect);
+                } else if (unreadableRegions.contains(patchRegion.packed())) {
+                    for (int index = 0; index < PatchRegion.AREA; index++) {
+                        collect.accept(patchRegion.patchAt(index));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized PatchBounds getGeneratedBounds() {
+        int minRegionX = Integer.MAX_VALUE;
+        int minRegionZ = Integer.MAX_VALUE;
+        int maxRegionX = Integer.MIN_VALUE;
+        int maxRegionZ = Integer.MIN_VALUE;
+        for (long key : regionCounts.keySet()) {
+            minRegionX = Math.min(minRegionX, ChunkKey.x(key));
+            minRegionZ = Math.min(minRegionZ, ChunkKey.z(key));
+            maxRegionX = Math.max(maxRegionX, ChunkKey.x(key));
+            maxRegionZ = Math.max(maxRegionZ, ChunkKey.z(key));
+        }
+
+        int[] bounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        Consumer<PatchCoord> include = coord -> {
+            bounds[0] = Math.min(bounds[0], coord.patchX());
+            bounds[1] = Math.min(bounds[1], coord.patchZ());
+            bounds[2] = Math.max(bounds[2], coord.patchX());
+            bounds[3] = Math.max(bounds[3], coord.patchZ());
+        };
+        for (long key : List.copyOf(regionCounts.keySet())) {
+            PatchRegion patchRegion = PatchRegion.fromPacked(key);
+            if (patchRegion.regionX() != minRegionX && patchRegion.regionX() != maxRegionX
+                    && patchRegion.regionZ() != minRegionZ && patchRegion.regionZ() != maxRegionZ) {
+                continue;
+            }
+            PatchRegionFile region = region(key, false);
+            if (region != null) {
+                region.forEach(patchRegion, include);
+            } else if (unreadableRegions.contains(key)) {
+                include.accept(patchRegion.patchAt(0));
+                include.accept(patchRegion.patchAt(PatchRegion.AREA - 1));
+            }
+        }
+        if (bounds[0] > bounds[2]) {
+            return null;
+        }
+        return new PatchBounds(bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
+
+    public int getGeneratedCount() {
+        return generatedCount;
     }
 
     public synchronized boolean hasStoredPatchSize() {
@@ -110,7 +331,27 @@ public final class GeneratedPatchStorage {
         return storedPatchLength;
     }
 
-    public synchronized MigrationResult migratePatchGridIfNeeded(int newPatchWidth, int newPatchLength) {
+    public synchronized boolean needsPatchGridMigration(int newPatchWidth, int newPatchLength) {
+        return hasStoredPatchSize() && (storedPatchWidth != newPatchWidth || storedPatchLength != newPatchLength);
+    }
+
+    public MigrationResult migratePatchGridIfNeeded(
+            int newPatchWidth,
+            int newPatchLength,
+            MigrationProgress progress,
+            BooleanSupplier cancelled
+    ) {
+        synchronized (saveLock) {
+            return migratePatchGrid(newPatchWidth, newPatchLength, progress, cancelled);
+        }
+    }
+
+    private synchronized MigrationResult migratePatchGrid(
+            int newPatchWidth,
+            int newPatchLength,
+            MigrationProgress progress,
+            BooleanSupplier cancelled
+    ) {
         if (newPatchWidth <= 0 || newPatchLength <= 0) {
             throw new IllegalArgumentException("new patch size must be > 0");
         }
@@ -119,59 +360,85 @@ public final class GeneratedPatchStorage {
             storedPatchWidth = newPatchWidth;
             storedPatchLength = newPatchLength;
             save();
-            return new MigrationResult(false, 0, generatedPatches.size(), newPatchWidth, newPatchLength);
+            return new MigrationResult(false, 0, generatedCount, newPatchWidth, newPatchLength);
         }
 
         if (storedPatchWidth == newPatchWidth && storedPatchLength == newPatchLength) {
-            return new MigrationResult(false, generatedPatches.size(), generatedPatches.size(), newPatchWidth, newPatchLength);
+            deleteDirectory(stagingDirectory);
+            return new MigrationResult(false, generatedCount, generatedCount, newPatchWidth, newPatchLength);
         }
 
+        flush();
+        clearDonorUsage();
         int oldWidth = storedPatchWidth;
         int oldLength = storedPatchLength;
-        Set<PatchCoord> migrated = new HashSet<>();
-
-        for (PatchCoord oldPatch : generatedPatches) {
-            int oldMinX = oldPatch.patchX() * oldWidth;
-            int oldMinZ = oldPatch.patchZ() * oldLength;
-            int oldMaxX = oldMinX + oldWidth - 1;
-            int oldMaxZ = oldMinZ + oldLength - 1;
+        int oldCount = generatedCount;
+        List<Long> sourceRegions = new ArrayList<>(regionCounts.keySet());
+        sourceRegions.sort(null);
+
+        File progressFile = new File(stagingDirectory, "progress.yml");
+        int completed = readCompletedRegions(progressFile, oldWidth, oldLength, newPatchWidth, newPatchLength);
+        if (completed == 0) {
+            deleteDirectory(stagingDirectory);
+        }
+        if (!stagingDirectory.exists() && !stagingDirectory.mkdirs()) {
+            throw new IllegalStateException("Could not create migration directory: " + stagingDirectory.getAbsolutePath());
+        }
 
-            int minNewPatchX = Math.floorDiv(oldMinX, newPatchWidth);
-            int maxNewPatchX = Math.floorDiv(oldMaxX, newPatchWidth);
-            int minNewPatchZ = Math.floorDiv(oldMinZ, newPatchLength);
-            int maxNewPatchZ = Math.floorDiv(oldMaxZ, newPatchLength);
+        try {
+            for (int i = completed; i < sourceRegions.size(); i++) {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Patch grid migration paused after " + i + " of "
+                            + sourceRegions.size() + " regions");
+                }
+                migrateRegion(sourceRegions.get(i), oldWidth, oldLength, newPatchWidth, newPatchLength);
+                writeProgress(progressFile, oldWidth, oldLength, newPatchWidth, newPatchLength, i + 1);
+                progress.onProgress(i + 1, sourceRegions.size());
+            }
 
-            for (int px = minNewPatchX; px <= maxNewPatchX; px++) {
-                for (int pz = minNewPatchZ; pz <= maxNewPatchZ; pz++) {
-                    migrated.add(new PatchCoord(px, pz));
+            Map<Long, Integer> stagedCounts = new HashMap<>();
+            File[] stagedFiles = stagingDirectory.listFiles((dir, name) -> name.endsWith(".bits"));
+            if (stagedFiles != null) {
+                for (File stagedFile : stagedFiles) {
+                    Long key = parseRegionName(stagedFile.getName());
+                    if (key != null) {
+                        stagedCounts.put(key, PatchRegionFile.read(stagedFile).count());
+                    }
                 }
             }
+            writeIndex(new File(stagingDirectory, "index.yml"), stagedCounts, newPatchWidth, newPatchLength);
+            Files.deleteIfExists(progressFile.toPath());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Patch grid migration failed: " + ex.getMessage(), ex);
         }
 
-        int oldCount = generatedPatches.size();
-        generatedPatches.clear();
-        generatedPatches.addAll(migrated);
-        storedPatchWidth = newPatchWidth;
-        storedPatchLength = newPatchLength;
-        save();
+        if (!load() || storedPatchWidth != newPatchWidth || storedPatchLength != newPatchLength) {
+            throw new IllegalStateException("Could not activate migrated patch storage, retrying on the next start");
+        }
+        return new MigrationResult(true, oldCount, generatedCount, newPatchWidth, newPatchLength);
+    }
 
-        return new MigrationResult(true, oldCount, generatedPatches.size(), newPatchWidth, newPatchLength);
+    public WorldResetResult resetIfTargetWorldChanged(UUID targetWorldUuid) {
+        synchronized (saveLock) {
+            return resetTargetWorld(targetWorldUuid);
+        }
     }
 
-    public synchronized WorldResetResult resetIfTargetWorldChanged(UUID targetWorldUuid) {
+    private synchronized WorldResetResult resetTargetWorld(UUID targetWorldUuid) {
         String newUuid = targetWorldUuid.toString();
         if (storedTargetWorldUuid == null || storedTargetWorldUuid.isBlank()) {
             storedTargetWorldUuid = newUuid;
             save();
-            return new WorldResetResult(false, 0, generatedPatches.size());
+            return new WorldResetResult(false, 0, generatedCount);
         }
 
         if (storedTargetWorldUuid.equals(newUuid)) {
-            return new WorldResetResult(false, generatedPatches.size(), generatedPatches.size());
+            return new WorldResetResult(false, generatedCount, generatedCount);
         }
 
-        int oldCount = generatedPatches.size();
-        generatedPatches.clear();
+        int oldCount = generatedCount;
+        clearRegions();
+        clearDonorUsage();
         storedPatchWidth = 0;
         storedPatchLength = 0;
         endPortalSpawned = false;
@@ -182,7 +449,7 @@ public final class GeneratedPatchStorage {
         storedTargetWorldUuid = newUuid;
         save();
 
-        return new WorldResetResult(true, oldCount, generatedPatches.size());
+        return new WorldResetResult(true, oldCount, generatedCount);
     }
 
     public synchronized boolean isEndPortalSpawned() {
@@ -200,7 +467,13 @@ public final class GeneratedPatchStorage {
         return new Location(world, endPortalX + 0.5, endPortalY, endPortalZ + 0.5);
     }
 
-    public synchronized void markEndPortalSpawned(Location location) {
+    public void markEndPortalSpawned(Location location) {
+        synchronized (saveLock) {
+            recordEndPortal(location);
+        }
+    }
+
+    private synchronized void recordEndPortal(Location location) {
         endPortalSpawned = true;
         endPortalWorld = location.getWorld() != null ? location.getWorld().getName() : null;
         endPortalX = location.getBlockX();
@@ -209,40 +482,333 @@ public final class GeneratedPatchStorage {
         save();
     }
 
+    public File getPregenProgressFile() {
+        return pregenProgressFile;
+    }
+
+    public LatencyHistogram getSaveNanos() {
+        return saveNanos;
+    }
+
+    public long getFileSizeBytes() {
+        return storedBytes;
+    }
+
+    private void migrateRegion(long key, int oldWidth, int oldLength, int newWidth, int newLength) throws IOException {
+        PatchRegionFile source = loadedRegions.get(key);
+        if (source == null) {
+            File sourceFile = regionFile(key);
+            if (!sourceFile.exists()) {
+                return;
+            }
+            source = PatchRegionFile.read(sourceFile);
+        }
+
+        Map<Long, PatchRegionFile> staged = new HashMap<>();
+        source.forEach(PatchRegion.fromPacked(key), oldPatch -> {
+            int oldMinX = oldPatch.patchX() * oldWidth;
+            int oldMinZ = oldPatch.patchZ() * oldLength;
+            int minNewPatchX = Math.floorDiv(oldMinX, newWidth);
+            int maxNewPatchX = Math.floorDiv(oldMinX + oldWidth - 1, newWidth);
+            int minNewPatchZ = Math.floorDiv(oldMinZ, newLength);
+            int maxNewPatchZ = Math.floorDiv(oldMinZ + oldLength - 1, newLength);
+
+            for (int px = minNewPatchX; px <= maxNewPatchX; px++) {
+                for (int pz = minNewPatchZ; pz <= maxNewPatchZ; pz++) {
+                    PatchCoord newPatch = new PatchCoord(px, pz);
+                    staged.computeIfAbsent(PatchRegion.packedOf(newPatch), ignored -> new PatchRegionFile())
+                            .set(PatchRegion.localIndex(newPatch));
+                }
+            }
+        });
+
+        for (Map.Entry<Long, PatchRegionFile> entry : staged.entrySet()) {
+            File stagedFile = new File(stagingDirectory, regionName(entry.getKey()) + ".bits");
+            PatchRegionFile merged = entry.getValue();
+            if (stagedFile.exists()) {
+                merged.or(PatchRegionFile.read(stagedFile));
+            }
+            merged.write(stagedFile);
+        }
+    }
+
+    private int readCompletedRegions(File progressFile, int oldWidth, int oldLength, int newWidth, int newLength) {
+        if (!progressFile.exists()) {
+            return 0;
+        }
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(progressFile);
+        if (yaml.getInt(PROGRESS_SOURCE_WIDTH_PATH) != oldWidth
+                || yaml.getInt(PROGRESS_SOURCE_LENGTH_PATH) != oldLength
+                || yaml.getInt(PROGRESS_TARGET_WIDTH_PATH) != newWidth
+                || yaml.getInt(PROGRESS_TARGET_LENGTH_PATH) != newLength) {
+            return 0;
+        }
+        int completed = Math.max(0, yaml.getInt(PROGRESS_COMPLETED_PATH, 0));
+        if (completed > 0) {
+            logger.info("Resuming patch grid migration after " + completed + " regions.");
+        }
+        return completed;
+    }
+
+    private void writeProgress(File progressFile, int oldWidth, int oldLength, int newWidth, int newLength, int completed)
+            throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set(PROGRESS_SOURCE_WIDTH_PATH, oldWidth);
+        yaml.set(PROGRESS_SOURCE_LENGTH_PATH, oldLength);
+        yaml.set(PROGRESS_TARGET_WIDTH_PATH, newWidth);
+        yaml.set(PROGRESS_TARGET_LENGTH_PATH, newLength);
+        yaml.set(PROGRESS_COMPLETED_PATH, completed);
+        yaml.save(progressFile);
+    }
+
+    private boolean finishPendingSwap() {
+        if (new File(stagingDirectory, "index.yml").exists()) {
+            if (directory.exists() && !directory.renameTo(replacedDirectory)) {
+                logger.severe("Could not move old patch storage aside: " + directory.getAbsolutePath());
+                return true;
+            }
+            if (!stagingDirectory.renameTo(directory)) {
+                logger.severe("Could not activate migrated patch storage: " + stagingDirectory.getAbsolutePath());
+                if (replacedDirectory.exists() && !replacedDirectory.renameTo(directory)) {
+                    logger.severe("Could not restore old patch storage from " + replacedDirectory.getAbsolutePath());
+                    return false;
+                }
+                return true;
+            }
+        }
+        deleteDirectory(replacedDirectory);
+        return true;
+    }
+
+    private void deleteDirectory(File target) {
+        File[] files = target.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    logger.warning("Could not delete " + file.getAbsolutePath());
+                }
+            }
+        }
+        if (target.exists() && !target.delete()) {
+            logger.warning("Could not delete " + target.getAbsolutePath());
+        }
+    }
+
     private void save() {
-        ensureParentDirectory();
+        write(snapshot());
+    }
+
+    private SaveSnapshot snapshot() {
+        List<Long> keys = new ArrayList<>(dirtyRegions.size());
+        List<long[]> words = new ArrayList<>(dirtyRegions.size());
+        for (long key : dirtyRegions) {
+            PatchRegionFile region = loadedRegions.get(key);
+            if (region != null) {
+                keys.add(key);
+                words.add(region.snapshot());
+            }
+        }
+        dirtyRegions.clear();
+        dirty = false;
+        return new SaveSnapshot(
+                keys,
+                words,
+                donorUsage.drain(),
+                index(regionCounts, storedPatchWidth, storedPatchLength),
+                regionCounts.size()
+        );
+    }
+
+    private void write(SaveSnapshot snapshot) {
+        long startedAt = System.nanoTime();
+        ensureDirectory();
+        List<Long> failedRegions = new ArrayList<>();
+        for (int i = 0; i < snapshot.regionKeys().size(); i++) {
+            long key = snapshot.regionKeys().get(i);
+            try {
+                PatchRegionFile.write(regionFile(key), snapshot.regionWords().get(i));
+            } catch (IOException ex) {
+                logger.severe("Failed to save generated patch region " + regionName(key) + ": " + ex.getMessage());
+                failedRegions.add(key);
+            }
+        }
+
+        boolean donorsSaved = true;
+        if (snapshot.donors() != null) {
+            try {
+                donorUsage.write(snapshot.donors());
+            } catch (IOException ex) {
+                logger.severe("Failed to save donor usage log: " + ex.getMessage());
+                donorsSaved = false;
+            }
+        }
+
+        boolean indexSaved = true;
+        try {
+            snapshot.index().save(indexFile);
+        } catch (IOException ex) {
+            logger.severe("Failed to save generated patch storage index: " + ex.getMessage());
+            indexSaved = false;
+        }
+        long indexBytes = indexFile.length();
+
+        synchronized (this) {
+            dirtyRegions.addAll(failedRegions);
+            if (snapshot.donors() != null) {
+                donorUsage.written(snapshot.donors(), donorsSaved);
+            }
+            if (!failedRegions.isEmpty() || !donorsSaved || !indexSaved) {
+                dirty = true;
+            }
+            storedBytes = indexBytes + (long) snapshot.regionCount() * PatchRegionFile.BYTES
+                    + donorUsage.fileSizeBytes();
+        }
+        saveNanos.record(System.nanoTime() - startedAt);
+    }
 
+    private void writeIndex(File target, Map<Long, Integer> counts, int patchWidth, int patchLength) throws IOException {
+        index(counts, patchWidth, patchLength).save(target);
+    }
+
+    private YamlConfiguration index(Map<Long, Integer> counts, int patchWidth, int patchLength) {
         YamlConfiguration yaml = new YamlConfiguration();
         yaml.set(META_TARGET_WORLD_UUID_PATH, storedTargetWorldUuid);
-        yaml.set(META_PATCH_WIDTH_PATH, storedPatchWidth);
-        yaml.set(META_PATCH_LENGTH_PATH, storedPatchLength);
-        yaml.set(GENERATED_PATH, serialize(generatedPatches));
+        yaml.set(META_PATCH_WIDTH_PATH, patchWidth);
+        yaml.set(META_PATCH_LENGTH_PATH, patchLength);
         yaml.set(END_PORTAL_SPAWNED_PATH, endPortalSpawned);
         yaml.set(END_PORTAL_WORLD_PATH, endPortalWorld);
         yaml.set(END_PORTAL_X_PATH, endPortalX);
         yaml.set(END_PORTAL_Y_PATH, endPortalY);
         yaml.set(END_PORTAL_Z_PATH, endPortalZ);
+        yaml.set(REGIONS_PATH, serializeRegionIndex(counts));
+        return yaml;
+    }
+
+    private void readHeader(YamlConfiguration yaml) {
+        storedTargetWorldUuid = yaml.getString(META_TARGET_WORLD_UUID_PATH);
+        storedPatchWidth = yaml.getInt(META_PATCH_WIDTH_PATH, 0);
+        storedPatchLength = yaml.getInt(META_PATCH_LENGTH_PATH, 0);
+        endPortalSpawned = yaml.getBoolean(END_PORTAL_SPAWNED_PATH, false);
+        endPortalWorld = yaml.getString(END_PORTAL_WORLD_PATH);
+        endPortalX = yaml.getInt(END_PORTAL_X_PATH, 0);
+        endPortalY = yaml.getInt(END_PORTAL_Y_PATH, 0);
+        endPortalZ = yaml.getInt(END_PORTAL_Z_PATH, 0);
+    }
+
+    private void migrateLegacyFile() {
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(legacyFile);
+        readHeader(yaml);
+        for (String key : yaml.getStringList(GENERATED_PATH)) {
+            try {
+                markGenerated(PatchCoord.fromKey(key));
+            } catch (IllegalArgumentException ex) {
+                logger.warning("Skipping invalid patch entry in storage: " + key);
+            }
+        }
+        save();
+        if (dirty) {
+            logger.warning("Could not fully convert " + legacyFile.getName() + " to region files; keeping the legacy file.");
+            return;
+        }
+
+        File migrated = new File(legacyFile.getParentFile(), legacyFile.getName() + ".migrated");
+        if (!legacyFile.renameTo(migrated)) {
+            logger.warning("Could not rename legacy storage file " + legacyFile.getName() + ".");
+        }
+        logger.info("Converted " + generatedCount + " generated patches from " + legacyFile.getName()
+                + " into " + regionCounts.size() + " region files.");
+    }
+
+    private PatchRegionFile region(long key, boolean create) {
+        PatchRegionFile region = loadedRegions.get(key);
+        if (region != null) {
+            return region;
+        }
+        if (unreadableRegions.contains(key)) {
+            return null;
+        }
+
+        Integer expected = regionCounts.get(key);
+        if (expected != null) {
+            try {
+                region = PatchRegionFile.read(regionFile(key));
+            } catch (IOException ex) {
+                logger.severe("Could not read generated patch region " + regionName(key) + " (" + expected
+                        + " patches): " + ex.getMessage() + ". Treating it as generated and read-only until restart.");
+                unreadableRegions.add(key);
+                return null;
+            }
+            if (region.count() != expected) {
+                generatedCount += region.count() - expected;
+                regionCounts.put(key, region.count());
+                dirty = true;
+            }
+        } else if (create) {
+            region = new PatchRegionFile();
+        } else {
+            return null;
+        }
+        loadedRegions.put(key, region);
+        return region;
+    }
 
+    private void clearRegions() {
+        for (long key : regionCounts.keySet()) {
+            File file = regionFile(key);
+            if (file.exists() && !file.delete()) {
+                logger.warning("Could not delete generated patch region file: " + file.getAbsolutePath());
+            }
+        }
+        regionCounts.clear();
+        loadedRegions.clear();
+        dirtyRegions.clear();
+        unreadableRegions.clear();
+        generatedCount = 0;
+        dirty = true;
+    }
+
+    private void clearDonorUsage() {
         try {
-            yaml.save(file);
+            donorUsage.clear();
         } catch (IOException ex) {
-            plugin.getLogger().severe("Failed to save generated patch storage: " + ex.getMessage());
+            logger.warning("Could not delete donor usage log: " + ex.getMessage());
         }
     }
 
-    private void ensureParentDirectory() {
-        File parent = file.getParentFile();
-        if (parent != null && !parent.exists() && !parent.mkdirs()) {
-            plugin.getLogger().warning("Could not create storage directory: " + parent.getAbsolutePath());
+    private static List<String> serializeRegionIndex(Map<Long, Integer> counts) {
+        List<String> result = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                result.add(ChunkKey.x(entry.getKey()) + "," + ChunkKey.z(entry.getKey()) + "," + entry.getValue());
+            }
         }
+        return result;
+    }
+
+    private File regionFile(long key) {
+        return new File(directory, regionName(key) + ".bits");
+    }
+
+    private static String regionName(long key) {
+        return "r." + ChunkKey.x(key) + "." + ChunkKey.z(key);
     }
 
-    private static Collection<String> serialize(Set<PatchCoord> patches) {
-        List<String> result = new ArrayList<>(patches.size());
-        for (PatchCoord patch : patches) {
-            result.add(patch.asKey());
+    private static Long parseRegionName(String fileName) {
+        String[] parts = fileName.split("\\.", -1);
+        if (parts.length != 4 || !"r".equals(parts[0])) {
+            return null;
+        }
+        try {
+            return ChunkKey.of(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void ensureDirectory() {
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.warning("Could not create storage directory: " + directory.getAbsolutePath());
         }
-        return result;
     }
 
     private static String sanitizeFilePart(String value) {
@@ -252,6 +818,16 @@ public final class GeneratedPatchStorage {
         return value.replaceAll("[^a-zA-Z0-9._-]", "_");
     }
 
+    @FunctionalInterface
+    public interface DonorUsageConsumer {
+        void accept(long target, long donor);
+    }
+
+    @FunctionalInterface
+    public interface MigrationProgress {
+        void onProgress(int completedRegions, int totalRegions);
+    }
+
     public record MigrationResult(
             boolean migrated,
             int oldGeneratedCount,
@@ -261,10 +837,27 @@ public final class GeneratedPatchStorage {
     ) {
     }
 
+    public record PatchBounds(
+            int minPatchX,
+            int minPatchZ,
+            int maxPatchX,
+            int maxPatchZ
+    ) {
+    }
+
     public record WorldResetResult(
             boolean reset,
             int oldGeneratedCount,
             int newGeneratedCount
     ) {
     }
+
+    private record SaveSnapshot(
+            List<Long> regionKeys,
+            List<long[]> regionWords,
+            DonorUsageLog.Batch donors,
+            YamlConfiguration index,
+            int regionCount
+    ) {
+    }
 }
@@ -0,0 +1,113 @@
+package dev.roguealex.chunkworldbuilder.storage;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchRegion;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+final class PatchRegionFile {
+
+    static final int WORDS = PatchRegion.AREA / Long.SIZE;
+    static final int BYTES = WORDS * Long.BYTES;
+
+    private final AtomicLongArray words;
+    private int count;
+
+    PatchRegionFile() {
+        this.words = new AtomicLongArray(WORDS);
+    }
+
+    static PatchRegionFile read(File file) throws IOException {
+        PatchRegionFile region = new PatchRegionFile();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = input.readLong();
+                region.words.set(i, word);
+                region.count += Long.bitCount(word);
+            }
+        }
+        return region;
+    }
+
+    void write(File file) throws IOException {
+        write(file, snapshot());
+    }
+
+    static void write(File file, long[] words) throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            for (long word : words) {
+                output.writeLong(word);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long[] snapshot() {
+        long[] copy = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    boolean get(int localIndex) {
+        return (words.get(localIndex >>> 6) & (1L << localIndex)) != 0L;
+    }
+
+    boolean set(int localIndex) {
+        long mask = 1L << localIndex;
+        int word = localIndex >>> 6;
+        long bits = words.get(word);
+        if ((bits & mask) != 0L) {
+            return false;
+        }
+        words.set(word, bits | mask);
+        count++;
+        return true;
+    }
+
+    boolean clear(int localIndex) {
+        long mask = 1L << localIndex;
+        int word = localIndex >>> 6;
+        long bits = words.get(word);
+        if ((bits & mask) == 0L) {
+            return false;
+        }
+        words.set(word, bits & ~mask);
+        count--;
+        return true;
+    }
+
+    void or(PatchRegionFile other) {
+        count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words.get(i) | other.words.get(i);
+            words.set(i, word);
+            count += Long.bitCount(word);
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    void forEach(PatchRegion region, Consumer<PatchCoord> action) {
+        for (int word = 0; word < WORDS; word++) {
+            long bits = words.get(word);
+            while (bits != 0L) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                action.accept(region.patchAt((word << 6) | bit));
+                bits &= bits - 1;
+            }
+        }
+    }
+}
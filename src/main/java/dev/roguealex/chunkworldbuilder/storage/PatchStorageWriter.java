@@ -0,0 +1,73 @@
+package dev.roguealex.chunkworldbuilder.storage;
+
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.patch.PatchRegion;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class PatchStorageWriter implements AutoCloseable {
+
+    private final File directory;
+    private final int patchWidth;
+    private final int patchLength;
+    private final Map<Long, PatchRegionFile> regions;
+    private final DataOutputStream donorOutput;
+
+    public PatchStorageWriter(File dataFolder, String targetWorldName, int patchWidth, int patchLength) throws IOException {
+        this.directory = new File(new File(dataFolder, "data"), "generated-patches-" + sanitizeFilePart(targetWorldName));
+        if (directory.exists()) {
+            throw new IOException("Patch storage already exists: " + directory.getAbsolutePath());
+        }
+        if (!directory.mkdirs()) {
+            throw new IOException("Could not create storage directory: " + directory.getAbsolutePath());
+        }
+        this.patchWidth = patchWidth;
+        this.patchLength = patchLength;
+        this.regions = new HashMap<>();
+        this.donorOutput = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(new File(directory, "donors.bin").toPath())
+        ));
+    }
+
+    public synchronized void markGenerated(PatchCoord target, long donor) throws IOException {
+        regions.computeIfAbsent(PatchRegion.packedOf(target), ignored -> new PatchRegionFile())
+                .set(PatchRegion.localIndex(target));
+        donorOutput.writeLong(target.packed());
+        donorOutput.writeLong(donor);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        donorOutput.close();
+        StringBuilder index = new StringBuilder()
+                .append("meta:\n")
+                .append("  patch-width: ").append(patchWidth).append('\n')
+                .append("  patch-length: ").append(patchLength).append('\n')
+                .append("regions:\n");
+        for (Map.Entry<Long, PatchRegionFile> entry : regions.entrySet()) {
+            long key = entry.getKey();
+            entry.getValue().write(new File(directory, "r." + ChunkKey.x(key) + "." + ChunkKey.z(key) + ".bits"));
+            index.append("- '").append(ChunkKey.x(key)).append(',').append(ChunkKey.z(key)).append(',')
+                    .append(entry.getValue().count()).append("'\n");
+        }
+        Files.writeString(new File(directory, "index.yml").toPath(), index, StandardCharsets.UTF_8);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    private static String sanitizeFilePart(String value) {
+        if (value == null || value.isBlank()) {
+            return "unknown";
+        }
+        return value.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,25 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+
+public interface BlockAccess {
+
+    String getName();
+
+    int getMinHeight();
+
+    int getMaxHeight();
+
+    BlockData getBlockData(int x, int y, int z);
+
+    void setBlockData(int x, int y, int z, BlockData data);
+
+    Biome getBiome(int x, int y, int z);
+
+    void setBiome(int x, int y, int z, Biome biome);
+
+    boolean loadChunk(int chunkX, int chunkZ, boolean generate);
+
+    ChunkView snapshotChunk(int chunkX, int chunkZ, boolean includeBiomes);
+}
@@ -0,0 +1,11 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+
+public interface ChunkView {
+
+    BlockData getBlockData(int localX, int y, int localZ);
+
+    Biome getBiome(int localX, int y, int localZ);
+}
@@ -0,0 +1,22 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+public final class FoliaDetector {
+
+    private static final boolean FOLIA = detect();
+
+    private FoliaDetector() {
+    }
+
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+import dev.roguealex.chunkworldbuilder.patch.ChunkKey;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+
+public final class InMemoryBlockAccess implements BlockAccess {
+
+    private final String name;
+    private final int minHeight;
+    private final int maxHeight;
+    private final BlockData defaultBlock;
+    private final Biome defaultBiome;
+    private final Map<Long, ArrayChunk> chunks;
+
+    public InMemoryBlockAccess(String name, int minHeight, int maxHeight, BlockData defaultBlock, Biome defaultBiome) {
+        if (maxHeight <= minHeight) {
+            throw new IllegalArgumentException("maxHeight must be > minHeight");
+        }
+        this.name = name;
+        this.minHeight = minHeight;
+        this.maxHeight = maxHeight;
+        this.defaultBlock = defaultBlock;
+        this.defaultBiome = defaultBiome;
+        this.chunks = new HashMap<>();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getMinHeight() {
+        return minHeight;
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    @Override
+    public BlockData getBlockData(int x, int y, int z) {
+        ArrayChunk chunk = chunks.get(ChunkKey.of(x >> 4, z >> 4));
+        if (chunk == null) {
+            return defaultBlock;
+        }
+        return chunk.getBlockData(x & 15, y, z & 15);
+    }
+
+    @Override
+    public void setBlockData(int x, int y, int z, BlockData data) {
+        chunkAt(x >> 4, z >> 4).blocks[index(x & 15, y, z & 15)] = data;
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        ArrayChunk chunk = chunks.get(ChunkKey.of(x >> 4, z >> 4));
+        if (chunk == null) {
+            return defaultBiome;
+        }
+        return chunk.getBiome(x & 15, y, z & 15);
+    }
+
+    @Override
+    public void setBiome(int x, int y, int z, Biome biome) {
+        chunkAt(x >> 4, z >> 4).biomes[index(x & 15, y, z & 15)] = biome;
+    }
+
+    @Override
+    public boolean loadChunk(int chunkX, int chunkZ, boolean generate) {
+        if (generate) {
+            chunkAt(chunkX, chunkZ);
+            return true;
+        }
+        return chunks.containsKey(ChunkKey.of(chunkX, chunkZ));
+    }
+
+    @Override
+    public ChunkView snapshotChunk(int chunkX, int chunkZ, boolean includeBiomes) {
+        ArrayChunk chunk = chunkAt(chunkX, chunkZ);
+        return new ArrayChunk(
+                chunk.blocks.clone(),
+                includeBiomes ? chunk.biomes.clone() : filled(new Biome[chunk.biomes.length], defaultBiome)
+        );
+    }
+
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    private ArrayChunk chunkAt(int chunkX, int chunkZ) {
+        return chunks.computeIfAbsent(ChunkKey.of(chunkX, chunkZ), ignored -> {
+            int volume = (maxHeight - minHeight) << 8;
+            return new ArrayChunk(
+                    filled(new BlockData[volume], defaultBlock),
+                    filled(new Biome[volume], defaultBiome)
+            );
+        });
+    }
+
+    private int index(int localX, int y, int localZ) {
+        return ((y - minHeight) << 8) | (localZ << 4) | localX;
+    }
+
+    private static <T> T[] filled(T[] array, T value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private final class ArrayChunk implements ChunkView {
+
+        private final BlockData[] blocks;
+        private final Biome[] biomes;
+
+        private ArrayChunk(BlockData[] blocks, Biome[] biomes) {
+            this.blocks = blocks;
+            this.biomes = biomes;
+        }
+
+        @Override
+        public BlockData getBlockData(int localX, int y, int localZ) {
+            return blocks[index(localX, y, localZ)];
+        }
+
+        @Override
+        public Biome getBiome(int localX, int y, int localZ) {
+            return biomes[index(localX, y, localZ)];
+        }
+    }
+}
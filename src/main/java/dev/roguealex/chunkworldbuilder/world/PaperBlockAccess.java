@@ -0,0 +1,77 @@
+package dev.roguealex.chunkworldbuilder.world;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+
+public final class PaperBlockAccess implements BlockAccess {
+
+    private final World world;
+
+    public PaperBlockAccess(World world) {
+        this.world = world;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public String getName() {
+        return world.getName();
+    }
+
+    @Override
+    public int getMinHeight() {
+        return world.getMinHeight();
+    }
+
+    @Override
+    public int getMaxHeight() {
+        return world.getMaxHeight();
+    }
+
+    @Override
+    public BlockData getBlockData(int x, int y, int z) {
+        return world.getBlockAt(x, y, z).getBlockData();
+    }
+
+    @Override
+    public void setBlockData(int x, int y, int z, BlockData data) {
+        world.getBlockAt(x, y, z).setBlockData(data, false);
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return world.getBiome(x, y, z);
+    }
+
+    @Override
+    public void setBiome(int x, int y, int z, Biome biome) {
+        world.setBiome(x, y, z, biome);
+    }
+
+    @Override
+    public boolean loadChunk(int chunkX, int chunkZ, boolean generate) {
+        return world.loadChunk(chunkX, chunkZ, generate);
+    }
+
+    @Override
+    public ChunkView snapshotChunk(int chunkX, int chunkZ, boolean includeBiomes) {
+        return new SnapshotView(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, includeBiomes, false));
+    }
+
+    private record SnapshotView(ChunkSnapshot snapshot) implements ChunkView {
+
+        @Override
+        public BlockData getBlockData(int localX, int y, int localZ) {
+            return snapshot.getBlockData(localX, y, localZ);
+        }
+
+        @Override
+        public Biome getBiome(int localX, int y, int localZ) {
+            return snapshot.getBiome(localX, y, localZ);
+        }
+    }
+}
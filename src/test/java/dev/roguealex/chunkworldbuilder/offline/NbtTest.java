@@ -0,0 +1,84 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class NbtTest {
+
+    @Test
+    void roundTripsEveryTagType() throws IOException {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("Name", "minecraft:oak_log");
+        nested.put("axis", "y");
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("byte", (byte) -7);
+        root.put("short", (short) 31000);
+        root.put("int", 123456789);
+        root.put("long", Long.MIN_VALUE + 3);
+        root.put("float", 1.5f);
+        root.put("double", -2.25);
+        root.put("bytes", new byte[]{1, -2, 3});
+        root.put("string", "h\u00e9llo");
+        root.put("compounds", new NbtList(Nbt.TAG_COMPOUND,
+                List.<Object>of(nested, new LinkedHashMap<String, Object>())));
+        root.put("strings", new NbtList(Nbt.TAG_STRING, List.<Object>of("a", "b")));
+        root.put("empty", NbtList.empty());
+        root.put("nested", nested);
+        root.put("ints", new int[]{-1, 0, Integer.MAX_VALUE});
+        root.put("longs", new long[]{Long.MAX_VALUE, 0L, -1L});
+
+        Map<String, Object> read = roundTrip(root);
+
+        assertEquals(List.copyOf(root.keySet()), List.copyOf(read.keySet()));
+        assertEquals((byte) -7, read.get("byte"));
+        assertEquals((short) 31000, read.get("short"));
+        assertEquals(123456789, read.get("int"));
+        assertEquals(Long.MIN_VALUE + 3, read.get("long"));
+        assertEquals(1.5f, read.get("float"));
+        assertEquals(-2.25, read.get("double"));
+        assertArrayEquals(new byte[]{1, -2, 3}, (byte[]) read.get("bytes"));
+        assertEquals("h\u00e9llo", read.get("string"));
+        assertEquals(new NbtList(Nbt.TAG_COMPOUND, List.<Object>of(nested, Map.of())), read.get("compounds"));
+        assertEquals(new NbtList(Nbt.TAG_STRING, List.<Object>of("a", "b")), read.get("strings"));
+        assertEquals(NbtList.empty(), read.get("empty"));
+        assertEquals(nested, read.get("nested"));
+        assertArrayEquals(new int[]{-1, 0, Integer.MAX_VALUE}, (int[]) read.get("ints"));
+        assertArrayEquals(new long[]{Long.MAX_VALUE, 0L, -1L}, (long[]) read.get("longs"));
+    }
+
+    @Test
+    void skipsNullValues() throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("kept", 1);
+        root.put("dropped", null);
+
+        assertEquals(Map.of("kept", 1), roundTrip(root));
+    }
+
+    @Test
+    void rejectsNonCompoundRoot() {
+        byte[] bytes = {Nbt.TAG_INT, 0, 0, 0, 0, 0, 1};
+
+        assertThrows(IOException.class, () -> Nbt.readRoot(new DataInputStream(new ByteArrayInputStream(bytes))));
+    }
+
+    private static Map<String, Object> roundTrip(Map<String, Object> root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            Nbt.writeRoot(output, root);
+        }
+        return Nbt.readRoot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
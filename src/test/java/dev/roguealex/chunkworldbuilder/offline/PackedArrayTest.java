@@ -0,0 +1,65 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PackedArrayTest {
+
+    @Test
+    void roundTripsEveryBitWidth() {
+        Random random = new Random(42L);
+        for (int bits = 1; bits <= 16; bits++) {
+            int[] values = new int[DonorChunk.BLOCKS_PER_SECTION];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1 << bits);
+            }
+
+            long[] packed = PackedArray.pack(values, bits);
+            int perLong = Long.SIZE / bits;
+
+            assertEquals((values.length + perLong - 1) / perLong, packed.length, "bits=" + bits);
+            assertArrayEquals(values, PackedArray.unpack(packed, bits, values.length), "bits=" + bits);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(values[i], PackedArray.get(packed, bits, i), "bits=" + bits + " index=" + i);
+            }
+        }
+    }
+
+    @Test
+    void valuesDoNotSpanWordBoundaries() {
+        int bits = 5;
+        int[] values = new int[13];
+        values[11] = 0b11111;
+        values[12] = 0b10101;
+
+        long[] packed = PackedArray.pack(values, bits);
+
+        assertEquals(2, packed.length);
+        assertEquals(0b11111L << 55, packed[0]);
+        assertEquals(0b10101L, packed[1]);
+        assertEquals(0b11111, PackedArray.get(packed, bits, 11));
+        assertEquals(0b10101, PackedArray.get(packed, bits, 12));
+    }
+
+    @Test
+    void readsZeroForMissingOrShortData() {
+        assertEquals(0, PackedArray.get(null, 4, 100));
+        assertEquals(0, PackedArray.get(new long[]{-1L}, 0, 3));
+        assertEquals(0, PackedArray.get(new long[]{-1L}, 4, 16));
+        assertArrayEquals(new int[]{15, 15, 0}, Arrays.copyOfRange(
+                PackedArray.unpack(new long[]{-1L}, 4, 20), 14, 17));
+    }
+
+    @Test
+    void bitsForPaletteSize() {
+        assertEquals(0, PackedArray.bitsFor(1));
+        assertEquals(1, PackedArray.bitsFor(2));
+        assertEquals(2, PackedArray.bitsFor(3));
+        assertEquals(4, PackedArray.bitsFor(16));
+        assertEquals(5, PackedArray.bitsFor(17));
+    }
+}
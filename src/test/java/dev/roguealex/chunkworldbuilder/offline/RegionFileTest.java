@@ -0,0 +1,124 @@
+package dev.roguealex.chunkworldbuilder.offline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegionFileTest {
+
+    private static final int SECTOR_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsZlibChunks() throws IOException {
+        byte[][] chunks = new byte[RegionFile.CHUNKS][];
+        chunks[0] = RegionFile.compress(chunk(-32, -64, 0));
+        chunks[(5 << 5) | 7] = RegionFile.compress(chunk(-25, -59, 1));
+        chunks[RegionFile.CHUNKS - 1] = RegionFile.compress(chunk(-1, -33, 2));
+        Path file = directory.resolve(RegionFile.fileName(-1, -2));
+
+        RegionFile.write(file, -1, -2, chunks);
+
+        try (RegionFile region = RegionFile.open(file, -1, -2)) {
+            assertEquals(chunk(-32, -64, 0), region.readChunk(0, 0));
+            assertEquals(chunk(-25, -59, 1), region.readChunk(7, 5));
+            assertEquals(chunk(-1, -33, 2), region.readChunk(31, 31));
+            assertNull(region.readChunk(1, 0));
+        }
+    }
+
+    @Test
+    void headerOffsetsPointAtSectorAlignedNonOverlappingChunks() throws IOException {
+        byte[][] chunks = new byte[RegionFile.CHUNKS][];
+        Random random = new Random(7L);
+        for (int i = 0; i < RegionFile.CHUNKS; i += 37) {
+            Map<String, Object> root = chunk(i & 31, i >>> 5, i);
+            byte[] noise = new byte[random.nextInt(3 * SECTOR_BYTES)];
+            random.nextBytes(noise);
+            root.put("noise", noise);
+            chunks[i] = RegionFile.compress(root);
+        }
+        Path file = directory.resolve(RegionFile.fileName(0, 0));
+
+        RegionFile.write(file, 0, 0, chunks);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(0, bytes.capacity() % SECTOR_BYTES);
+        int expectedSector = 2;
+        for (int i = 0; i < RegionFile.CHUNKS; i++) {
+            int location = bytes.getInt(i * Integer.BYTES);
+            int timestamp = bytes.getInt(SECTOR_BYTES + i * Integer.BYTES);
+            if (chunks[i] == null) {
+                assertEquals(0, location, "chunk " + i);
+                assertEquals(0, timestamp, "chunk " + i);
+                continue;
+            }
+            int offset = location >>> 8;
+            int sectors = location & 0xFF;
+            assertEquals(expectedSector, offset, "chunk " + i);
+            assertEquals((chunks[i].length + 5 + SECTOR_BYTES - 1) / SECTOR_BYTES, sectors, "chunk " + i);
+            assertTrue(timestamp > 0, "chunk " + i);
+
+            int position = offset * SECTOR_BYTES;
+            assertEquals(chunks[i].length + 1, bytes.getInt(position), "chunk " + i);
+            assertEquals(2, bytes.get(position + 4), "chunk " + i);
+            byte[] stored = new byte[chunks[i].length];
+            bytes.get(position + 5, stored);
+            assertArrayEquals(chunks[i], stored, "chunk " + i);
+            expectedSector += sectors;
+        }
+        assertEquals(expectedSector * SECTOR_BYTES, bytes.capacity());
+    }
+
+    @Test
+    void oversizedChunksGoToExternalFiles() throws IOException {
+        Map<String, Object> large = chunk(33, 2, 0);
+        byte[] noise = new byte[256 * SECTOR_BYTES];
+        new Random(3L).nextBytes(noise);
+        large.put("noise", noise);
+        byte[][] chunks = new byte[RegionFile.CHUNKS][];
+        chunks[(2 << 5) | 1] = RegionFile.compress(large);
+        chunks[(2 << 5) | 2] = RegionFile.compress(chunk(34, 2, 1));
+        Path file = directory.resolve(RegionFile.fileName(1, 0));
+
+        RegionFile.write(file, 1, 0, chunks);
+
+        Path external = directory.resolve("c.33.2.mcc");
+        assertTrue(Files.exists(external));
+        assertArrayEquals(chunks[(2 << 5) | 1], Files.readAllBytes(external));
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int location = bytes.getInt(((2 << 5) | 1) * Integer.BYTES);
+        assertEquals(1, location & 0xFF);
+        assertEquals(0x82, bytes.get((location >>> 8) * SECTOR_BYTES + 4) & 0xFF);
+
+        try (RegionFile region = RegionFile.open(file, 1, 0)) {
+            Map<String, Object> read = region.readChunk(1, 2);
+            assertArrayEquals(noise, (byte[]) read.get("noise"));
+            assertEquals(33, read.get("xPos"));
+            assertEquals(chunk(34, 2, 1), region.readChunk(2, 2));
+        }
+    }
+
+    private static Map<String, Object> chunk(int chunkX, int chunkZ, int marker) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("DataVersion", 3955);
+        root.put("xPos", chunkX);
+        root.put("zPos", chunkZ);
+        root.put("Status", "minecraft:full");
+        root.put("marker", (long) marker << 40);
+        return root;
+    }
+}
@@ -0,0 +1,177 @@
+package dev.roguealex.chunkworldbuilder.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.roguealex.chunkworldbuilder.patch.PatchCoord;
+import dev.roguealex.chunkworldbuilder.world.InMemoryBlockAccess;
+import java.lang.reflect.Proxy;
+import org.bukkit.block.Biome;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.Test;
+
+class PatchGenerationTaskTest {
+
+    private static final int MIN_Y = -16;
+    private static final int MAX_Y = 32;
+    private static final int PATCH_WIDTH = 20;
+    private static final int PATCH_LENGTH = 12;
+    private static final PatchCoord TARGET_PATCH = new PatchCoord(3, -2);
+    private static final PatchCoord DONOR_PATCH = new PatchCoord(-1, 1);
+    private static final int[] BUDGETS = {MAX_Y - MIN_Y - 1, 100_000};
+    private static final BlockData AIR = blockState("air");
+    private static final BlockData[] TERRAIN = {
+            blockState("stone"),
+            blockState("dirt"),
+            blockState("gravel"),
+            blockState("water")
+    };
+
+    @Test
+    void plainCopyMatchesDonor() {
+        for (boolean copyBiomes : new boolean[]{false, true}) {
+            for (int budget : BUDGETS) {
+                InMemoryBlockAccess donor = donorWorld();
+                InMemoryBlockAccess target = targetWorld();
+                PatchGenerationTask task = task(donor, target, copyBiomes, false);
+
+                run(task, budget);
+
+                assertCopied(donor, target, copyBiomes, "plain biomes=" + copyBiomes + " budget=" + budget);
+            }
+        }
+    }
+
+    @Test
+    void bulkCopyMatchesDonor() {
+        for (boolean copyBiomes : new boolean[]{false, true}) {
+            for (int budget : BUDGETS) {
+                InMemoryBlockAccess donor = donorWorld();
+                InMemoryBlockAccess target = targetWorld();
+                PatchGenerationTask task = task(donor, target, copyBiomes, true);
+
+                run(task, budget);
+
+                assertCopied(donor, target, copyBiomes, "bulk biomes=" + copyBiomes + " budget=" + budget);
+            }
+        }
+    }
+
+    @Test
+    void preparedCopyMatchesDonor() {
+        for (boolean copyBiomes : new boolean[]{false, true}) {
+            for (int budget : BUDGETS) {
+                InMemoryBlockAccess donor = donorWorld();
+                InMemoryBlockAccess target = targetWorld();
+                PatchGenerationTask task = task(donor, target, copyBiomes, true);
+
+                task.prepareSnapshots();
+                task.computeChanges();
+                run(task, budget);
+
+                assertCopied(donor, target, copyBiomes, "prepared biomes=" + copyBiomes + " budget=" + budget);
+            }
+        }
+    }
+
+    private static void run(PatchGenerationTask task, int budget) {
+        int rounds = 0;
+        while (!task.isComplete()) {
+            int processed = task.process(budget);
+            assertTrue(processed <= budget, "processed " + processed + " blocks with a budget of " + budget);
+            assertTrue(++rounds <= PATCH_WIDTH * PATCH_LENGTH * (MAX_Y - MIN_Y), "task did not finish");
+        }
+    }
+
+    private static void assertCopied(InMemoryBlockAccess donor, InMemoryBlockAccess target, boolean copyBiomes,
+                                     String label) {
+        int targetMinX = TARGET_PATCH.minBlockX(PATCH_WIDTH);
+        int targetMinZ = TARGET_PATCH.minBlockZ(PATCH_LENGTH);
+        int donorMinX = DONOR_PATCH.minBlockX(PATCH_WIDTH);
+        int donorMinZ = DONOR_PATCH.minBlockZ(PATCH_LENGTH);
+        for (int dx = 0; dx < PATCH_WIDTH; dx++) {
+            for (int dz = 0; dz < PATCH_LENGTH; dz++) {
+                for (int y = MIN_Y; y < MAX_Y; y++) {
+                    String at = label + " at " + dx + "," + y + "," + dz;
+                    assertEquals(donor.getBlockData(donorMinX + dx, y, donorMinZ + dz),
+                            target.getBlockData(targetMinX + dx, y, targetMinZ + dz), at);
+                    Biome expected = copyBiomes ? donor.getBiome(donorMinX + dx, y, donorMinZ + dz) : Biome.THE_VOID;
+                    assertEquals(expected, target.getBiome(targetMinX + dx, y, targetMinZ + dz), at);
+                }
+            }
+        }
+    }
+
+    private static PatchGenerationTask task(InMemoryBlockAccess donor, InMemoryBlockAccess target, boolean copyBiomes,
+                                            boolean bulkApply) {
+        PatchCopyService patchCopyService = new PatchCopyService(
+                null,
+                null,
+                target,
+                donor,
+                PATCH_WIDTH,
+                PATCH_LENGTH,
+                DONOR_PATCH.minBlockX(PATCH_WIDTH),
+                DONOR_PATCH.minBlockX(PATCH_WIDTH) + PATCH_WIDTH - 1,
+                DONOR_PATCH.minBlockZ(PATCH_LENGTH),
+                DONOR_PATCH.minBlockZ(PATCH_LENGTH) + PATCH_LENGTH - 1,
+                copyBiomes,
+                false,
+                false,
+                bulkApply
+        );
+        return new PatchGenerationTask(
+                TARGET_PATCH,
+                new DonorPatch(patchCopyService.getDonors().get(0), DONOR_PATCH),
+                patchCopyService,
+                null
+        );
+    }
+
+    private static InMemoryBlockAccess donorWorld() {
+        InMemoryBlockAccess donor = new InMemoryBlockAccess("donor", MIN_Y, MAX_Y, AIR, Biome.PLAINS);
+        int minX = DONOR_PATCH.minBlockX(PATCH_WIDTH);
+        int minZ = DONOR_PATCH.minBlockZ(PATCH_LENGTH);
+        for (int x = minX; x < minX + PATCH_WIDTH; x++) {
+            for (int z = minZ; z < minZ + PATCH_LENGTH; z++) {
+                int surface = 4 + ((x * 7 + z * 13) & 7);
+                for (int y = MIN_Y; y <= surface; y++) {
+                    donor.setBlockData(x, y, z, TERRAIN[(x ^ y ^ z) & 3]);
+                }
+                if (((x + z) & 3) == 0) {
+                    for (int y = MIN_Y; y < MAX_Y; y += 2) {
+                        donor.setBiome(x, y, z, Biome.OCEAN);
+                    }
+                }
+            }
+        }
+        return donor;
+    }
+
+    private static InMemoryBlockAccess targetWorld() {
+        InMemoryBlockAccess target = new InMemoryBlockAccess("target", MIN_Y, MAX_Y, AIR, Biome.THE_VOID);
+        int minX = TARGET_PATCH.minBlockX(PATCH_WIDTH);
+        int minZ = TARGET_PATCH.minBlockZ(PATCH_LENGTH);
+        for (int x = minX; x < minX + PATCH_WIDTH; x++) {
+            for (int z = minZ; z < minZ + PATCH_LENGTH; z++) {
+                for (int y = MIN_Y; y < 0; y++) {
+                    target.setBlockData(x, y, z, TERRAIN[(x + y + z) & 3]);
+                }
+            }
+        }
+        return target;
+    }
+
+    private static BlockData blockState(String name) {
+        return (BlockData) Proxy.newProxyInstance(
+                BlockData.class.getClassLoader(),
+                new Class<?>[]{BlockData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> name;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }
+        );
+    }
+}